@@ -0,0 +1,67 @@
+package jprm.simulador_elevadores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Dados sintéticos reproduzíveis usados pelos benchmarks
+ */
+final class CenariosBenchmark {
+
+	// 2016-08-31 10:00:00 UTC, mesmo dia do elevadores.csv
+	static final long INICIO_MILIS = 1472637600000l;
+
+	static final int LOTACAO_MAXIMA = 8;
+
+	private CenariosBenchmark() {
+	}
+
+	/**
+	 * Tabela com chegadas ordenadas, intervalo médio entre chegadas
+	 * intervaloMedioMilis e andares de destino uniformes entre 2 e andares
+	 */
+	static PessoaTable tabela(int pessoas, int andares, long intervaloMedioMilis, long semente) {
+		SplittableRandom aleatorio = new SplittableRandom(semente);
+		PessoaTable tabela = new PessoaTable(pessoas);
+		long chegada = INICIO_MILIS;
+		for (int i = 0; i < pessoas; i++) {
+			tabela.adicionar("pessoa", aleatorio.nextInt(2, andares + 1), chegada);
+			chegada += aleatorio.nextLong(2 * intervaloMedioMilis + 1);
+		}
+		return tabela;
+	}
+
+	/**
+	 * Elevadores subindo lotados, com a fila do térreo de cada um com
+	 * pessoasFila / quantidade pessoas
+	 */
+	static List<Elevador> elevadores(int quantidade, int andares, int pessoasFila, long semente) {
+		SplittableRandom aleatorio = new SplittableRandom(semente);
+		PessoaTable tabela = new PessoaTable(pessoasFila + quantidade * LOTACAO_MAXIMA);
+		List<Elevador> elevadores = new ArrayList<>(quantidade);
+		for (int j = 0; j < quantidade; j++) {
+			Elevador e = new Elevador(1, 1, andares, LOTACAO_MAXIMA, ElevadorStatus.SUBINDO, 0l, 2l, 20l);
+			e.setIdentificacao(j + 1);
+			for (int k = 0; k < LOTACAO_MAXIMA; k++) {
+				e.embarcar(tabela.getPessoa(tabela.adicionar("pessoa", aleatorio.nextInt(2, andares + 1), 0l)));
+			}
+			elevadores.add(e);
+		}
+		for (int i = 0; i < pessoasFila; i++) {
+			Pessoa p = tabela.getPessoa(tabela.adicionar("pessoa", aleatorio.nextInt(2, andares + 1), 0l));
+			elevadores.get(i % quantidade).getFilaTerreo().adicionar(p);
+		}
+		return elevadores;
+	}
+
+	/**
+	 * Controle pelo nome, ver {@link ElevadorControle#criar(String)}, com
+	 * semente fixa para o controle aleatório
+	 */
+	static ElevadorControle controle(String nome) {
+		ElevadorControle controle = ElevadorControle.criar(nome);
+		controle.setAleatorio(new SplittableRandom(1l));
+		return controle;
+	}
+}
@@ -0,0 +1,59 @@
+package jprm.simulador_elevadores;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Uma decisão de cada controle, com elevadores subindo lotados e a fila do
+ * térreo distribuída entre eles. O controle por projeção depende de um
+ * simulador em execução e é medido pelo {@link SimuladorBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControleBenchmark {
+
+	@Param({ "Sequencial", "Aleatorio", "MenorTempoImediato", "AtribuicaoLote", "Destino" })
+	public String controle;
+
+	@Param({ "4", "40" })
+	public int elevadores;
+
+	@Param({ "25", "150" })
+	public int andares;
+
+	@Param({ "8", "1000", "100000" })
+	public int fila;
+
+	private ElevadorControle elevadorControle;
+	private Pessoa candidato;
+
+	@Setup
+	public void preparar() {
+		List<Elevador> lista = CenariosBenchmark.elevadores(this.elevadores, this.andares, this.fila, 13l);
+		this.elevadorControle = CenariosBenchmark.controle(this.controle);
+		this.elevadorControle.inicializar(lista);
+		this.candidato = lista.get(0).getLotacao().get(0);
+	}
+
+	@Benchmark
+	public Elevador decisao() {
+		return this.elevadorControle.decisao(this.candidato, 1l);
+	}
+
+}
@@ -0,0 +1,61 @@
+package jprm.simulador_elevadores;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Um tick de {@link Elevador#atualizar(long)}, com desembarque nas paradas e
+ * reembarque da mesma lotação ao voltar ao térreo, em ciclo
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElevadorBenchmark {
+
+	@Param({ "25", "150" })
+	public int andares;
+
+	private Elevador elevador;
+	private List<Pessoa> lotacao;
+	private long instante;
+
+	@Setup
+	public void preparar() {
+		this.elevador = CenariosBenchmark.elevadores(1, this.andares, 0, 7l).get(0);
+		this.lotacao = this.elevador.getLotacao();
+		this.elevador.setStatus(ElevadorStatus.PARADO_SUBIR);
+		this.instante = 0l;
+	}
+
+	@Benchmark
+	public ElevadorStatus atualizar() {
+		this.instante += 1;
+		Elevador e = this.elevador;
+		e.atualizar(this.instante);
+		ElevadorStatus status = e.getStatus();
+		if (status == ElevadorStatus.PARADO_SUBIR || status == ElevadorStatus.PARADO_DESCER) {
+			e.desembarcar();
+		} else if (status == ElevadorStatus.ESPERA_TERREO) {
+			e.setLotacao(this.lotacao);
+			e.setStatus(ElevadorStatus.PARADO_SUBIR);
+			e.setMarcadorTemporal(this.instante);
+		}
+		return status;
+	}
+
+}
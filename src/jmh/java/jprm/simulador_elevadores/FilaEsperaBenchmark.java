@@ -0,0 +1,67 @@
+package jprm.simulador_elevadores;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Elevador#simularTempoFilaEspera(Pessoa)} com filas longas, com a fila
+ * estável (resumo já calculado) e com a fila mudando a cada chamada (uma
+ * chegada e, a cada lotação, um embarque)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilaEsperaBenchmark {
+
+	@Param({ "25", "150" })
+	public int andares;
+
+	@Param({ "8", "1000", "100000" })
+	public int fila;
+
+	private Elevador elevador;
+	private Pessoa candidato;
+	private int chegadas;
+
+	@Setup
+	public void preparar() {
+		this.elevador = CenariosBenchmark.elevadores(1, this.andares, this.fila, 11l).get(0);
+		this.elevador.setLotacao(Collections.emptyList());
+		this.candidato = this.elevador.getFilaTerreo().getPessoa(0);
+		this.chegadas = 0;
+	}
+
+	@Benchmark
+	public long filaEstavel() {
+		return this.elevador.simularTempoFilaEspera(this.candidato);
+	}
+
+	@Benchmark
+	public long filaMudando() {
+		FilaTerreo f = this.elevador.getFilaTerreo();
+		long tempo = this.elevador.simularTempoFilaEspera(this.candidato);
+		f.adicionar(f.getPessoa(this.chegadas % f.tamanho()));
+		this.chegadas += 1;
+		if (this.chegadas % CenariosBenchmark.LOTACAO_MAXIMA == 0) {
+			f.drenarPara(this.elevador, CenariosBenchmark.LOTACAO_MAXIMA);
+			this.elevador.setLotacao(Collections.emptyList());
+		}
+		return tempo;
+	}
+
+}
@@ -0,0 +1,93 @@
+package jprm.simulador_elevadores;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Leitura de um trajeto com a quantidade de pessoas informada, no formato do
+ * elevadores.csv e no formato binário ({@link TrajetoBinario}); o resultado é
+ * o tempo por arquivo, a vazão em pessoas por segundo é pessoas / tempo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PessoaLoaderBenchmark {
+
+	@Param({ "1000", "1000000" })
+	public int pessoas;
+
+	private Path diretorio;
+	private Path csv;
+	private Path binario;
+
+	@Setup
+	public void preparar() throws IOException {
+		this.diretorio = Files.createTempDirectory("benchmark");
+		this.csv = this.diretorio.resolve("trajeto.csv");
+		this.binario = this.diretorio.resolve("trajeto.bin");
+		PessoaTable tabela = CenariosBenchmark.tabela(this.pessoas, 25, 1000l, 19l);
+		DateTimeFormatter formato = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+		try (BufferedWriter w = Files.newBufferedWriter(this.csv)) {
+			for (int id = 0; id < tabela.tamanho(); id++) {
+				w.write("\"Pessoa " + id + "\",\"" + formato.format(EscalaTempo.deMilis(tabela.getChegada(id)))
+						+ "\"," + tabela.getAndar(id));
+				w.newLine();
+			}
+		}
+		TrajetoBinario.converter(this.csv, this.binario, true);
+	}
+
+	@TearDown
+	public void remover() throws IOException {
+		Files.deleteIfExists(this.csv);
+		Files.deleteIfExists(this.binario);
+		Files.deleteIfExists(this.diretorio);
+	}
+
+	@Benchmark
+	public int csvSequencial() {
+		return new PessoaLoader(this.csv.toString()).getTabelaPessoas().tamanho();
+	}
+
+	@Benchmark
+	public int csvParalelo() {
+		return new PessoaLoader(this.csv.toString()).getTabelaPessoasParalela().tamanho();
+	}
+
+	@Benchmark
+	public int csvCursor() {
+		int quantidade = 0;
+		try (CursorChegadas c = new PessoaLoader(this.csv.toString()).abrirCursor()) {
+			while (c.avancar()) {
+				quantidade += c.getAndar();
+			}
+		}
+		return quantidade;
+	}
+
+	@Benchmark
+	public int binario() {
+		return new PessoaLoader(this.binario.toString()).getTabelaPessoasParalela().tamanho();
+	}
+
+}
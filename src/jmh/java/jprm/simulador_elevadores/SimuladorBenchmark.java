@@ -0,0 +1,104 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Um passo da simulação por eventos discretos ({@link Simulador#processarInstante()}
+ * seguido de {@link Simulador#avancarProximoEvento()}) com as filas do térreo
+ * em torno de um tamanho controlado: a simulação começa com a fila preenchida
+ * e recebe chegadas contínuas na taxa aproximada de atendimento dos
+ * elevadores. Quando a fila sai da faixa [fila / 2, 2 * fila] a simulação é
+ * reiniciada no setup de cada invocação, fora da medição; cada invocação mede
+ * um lote curto de passos para diluir o custo do setup
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimuladorBenchmark {
+
+	private static final int PASSOS_POR_INVOCACAO = 10;
+
+	@Param({ "MenorTempoImediato", "Destino" })
+	public String controle;
+
+	@Param({ "4", "40" })
+	public int elevadores;
+
+	@Param({ "25", "150" })
+	public int andares;
+
+	@Param({ "100", "1000", "100000" })
+	public int fila;
+
+	private Simulador simulador;
+	private long semente;
+
+	@Setup(Level.Iteration)
+	public void iniciarSimulacao() {
+		this.simulador = new Simulador(CenariosBenchmark.controle(this.controle));
+		this.simulador.setQuantidadeElevadores(this.elevadores);
+		this.simulador.setAndarMaximoElevador(this.andares);
+		this.semente += 1;
+		GeradorChegadas chegadas = new GeradorChegadas(PerfilChegadas.constante(taxaAtendimentoPorHora()),
+				EscalaTempo.deMilis(CenariosBenchmark.INICIO_MILIS), Duration.ofDays(365l), this.semente)
+						.setAndares(2, this.andares);
+		this.simulador.inicializar(chegadas);
+
+		PessoaTable tabela = CenariosBenchmark.tabela(this.fila, this.andares, 0l, this.semente);
+		for (int id = 0; id < tabela.tamanho(); id++) {
+			this.simulador.adicionarNaFila(id % this.elevadores, tabela.getPessoa(id));
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void manterFila() {
+		int tamanho = 0;
+		for (Elevador e : this.simulador.getListaElevadores()) {
+			tamanho += e.getFilaTerreo().tamanho();
+		}
+		if (tamanho < this.fila / 2 || tamanho > 2 * this.fila) {
+			iniciarSimulacao();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PASSOS_POR_INVOCACAO)
+	public SimulacaoStatus processarInstante() {
+		SimulacaoStatus status = null;
+		for (int i = 0; i < PASSOS_POR_INVOCACAO; i++) {
+			status = this.simulador.processarInstante();
+			this.simulador.avancarProximoEvento();
+		}
+		return status;
+	}
+
+	/**
+	 * Pessoas por hora que os elevadores levam com viagens lotadas até o
+	 * último andar, uma estimativa por baixo da capacidade de atendimento
+	 */
+	private double taxaAtendimentoPorHora() {
+		long viagem = 2 * (this.andares - 1) * this.simulador.getPeriodoEntreAndaresElevador().toMillis()
+				+ Math.min(CenariosBenchmark.LOTACAO_MAXIMA, this.andares - 1)
+						* this.simulador.getPeriodoParadaElevador().toMillis();
+		return 3600000d * this.elevadores * this.simulador.getLotacaoMaximaElevador() / viagem;
+	}
+
+}
@@ -1,5 +1,10 @@
 package jprm.simulador_elevadores;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -20,57 +25,57 @@ public class App {
 		// String conf = config.get("conf", "opcaoDefault");
 		// logger.info(String.format("Configuração carregada: conf=%s", conf));
 
-		// Capturar a lista 3 vezes para evitar problemas de referencia para a
-		// mesma lista
-		List<Pessoa> listaPessoas1 = (new PessoaLoader()).getListaPessoasResource();
-		List<Pessoa> listaPessoas2 = (new PessoaLoader()).getListaPessoasResource();
-		List<Pessoa> listaPessoas3 = (new PessoaLoader()).getListaPessoasResource();
+		// a tabela de chegadas não é alterada pelas simulações, cada simulação
+		// escreve os embarques e desembarques no seu próprio resultado
+		PessoaTable tabelaPessoas = (new PessoaLoader()).getTabelaPessoasResource();
 
 		/**
-		 * Simulação com controle sequencial
+		 * Simulações com controle sequencial, aleatório, menor tempo
+		 * imediato, atribuição em lote e por destino, executadas em paralelo
 		 */
-		ElevadorControle ctrlS = new ElevadorControleSequencial();
-		Simulador sim1 = new Simulador(ctrlS);
-		logger.info("Simulação com " + sim1.getElevadorControle().getNome());
-		sim1.inicializar(listaPessoas1);
-
-		while (sim1.processarInstante() == SimulacaoStatus.PROCESSANDO) {
-			sim1.incrementarInstanteAtual();
-		}
-		logger.info("Simulação Finalizada");
-
-		/**
-		 * Simulação com controle Aleatório
-		 */
-		ElevadorControle ctrlA = new ElevadorControleAleatorio();
-		Simulador sim2 = new Simulador(ctrlA);
-		logger.info("Simulação com " + sim2.getElevadorControle().getNome());
-		sim2.inicializar(listaPessoas2);
-
-		while (sim2.processarInstante() == SimulacaoStatus.PROCESSANDO) {
-			sim2.incrementarInstanteAtual();
+		SimulacaoBatchRunner runner = new SimulacaoBatchRunner(tabelaPessoas);
+		// eventos de cada simulação (posição dos elevadores, embarques e
+		// desembarques) registrados em eventos_<controle>.csv por um thread
+		// próprio, sem atrasar a simulação
+		List<SimulacaoListenerAssincrono> listeners = Collections.synchronizedList(new ArrayList<>());
+		runner.setConfiguracao(sim -> {
+			String arquivo = "eventos_" + sim.getElevadorControle().getClass().getSimpleName() + ".csv";
+			try {
+				SimulacaoListenerAssincrono listener = new SimulacaoListenerAssincrono(
+						Files.newBufferedWriter(Paths.get(arquivo)));
+				listeners.add(listener);
+				sim.setListener(listener);
+			} catch (IOException e) {
+				logger.error(String.format("Erro ao criar %s", arquivo), e);
+			}
+		});
+		runner.adicionar(ElevadorControleSequencial::new);
+		runner.adicionar(ElevadorControleAleatorio::new);
+		runner.adicionar(ElevadorControleMenorTempoImediato::new);
+		runner.adicionar(ElevadorControleAtribuicaoLote::new);
+		runner.adicionar(ElevadorControleDestino::new);
+		List<ResultadoLote> resultados;
+		try {
+			resultados = runner.executar();
+		} finally {
+			// os threads de escrita são daemon: sem o close os eventos ainda
+			// não escritos seriam perdidos se alguma simulação falhar
+			for (SimulacaoListenerAssincrono listener : listeners) {
+				try {
+					listener.close();
+				} catch (IOException e) {
+					logger.warn("Erro ao fechar registro de eventos", e);
+				}
+			}
 		}
-		logger.info("Simulação Finalizada");
-
-		/**
-		 * Simulação com controle menor tempo imediato
-		 */
-		ElevadorControle ctrlMTI = new ElevadorControleMenorTempoImediato();
-		Simulador sim3 = new Simulador(ctrlMTI);
-		logger.info("Simulação com " + sim3.getElevadorControle().getNome());
-		sim3.inicializar(listaPessoas3);
-
-		while (sim3.processarInstante() == SimulacaoStatus.PROCESSANDO) {
-			sim3.incrementarInstanteAtual();
-		}
-		logger.info("Simulação Finalizada");
 
 		/**
 		 * Imprime estatisticas
 		 */
-		sim1.imprimeEstatisticasSimulacao();
-		sim2.imprimeEstatisticasSimulacao();
-		sim3.imprimeEstatisticasSimulacao();
+		for (ResultadoLote r : resultados) {
+			r.getSimulador().imprimeEstatisticasSimulacao();
+		}
+		logger.info("Comparação:" + SimulacaoBatchRunner.formatarComparacao(resultados));
 
 		logger.info("Processo Finalizado");
 
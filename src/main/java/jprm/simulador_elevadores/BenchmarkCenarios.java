@@ -0,0 +1,490 @@
+package jprm.simulador_elevadores;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmark de execuções completas sobre um catálogo fixo de cenários, cada
+ * cenário simulado com cada controle. Mede segundos simulados por segundo real,
+ * pessoas por segundo, pico de heap e taxa de alocação, escreve um relatório
+ * CSV e compara com um relatório de referência (baseline), falhando quando
+ * alguma métrica piora além da tolerância
+ *
+ * Cada simulação é repetida ao menos repeticoes vezes e até somar um segundo
+ * de execução, e é registrada a repetição mais rápida com o menor pico de heap
+ * entre as repetições, para reduzir o efeito do aquecimento da JVM e de ruído
+ * da máquina
+ *
+ * uso: BenchmarkCenarios relatorio=saida.csv [baseline=referencia.csv]
+ * [tolerancia=10] [repeticoes=3] [cenarios=elevadores,pico-manha]
+ */
+public class BenchmarkCenarios {
+
+	private static final Logger logger = LoggerFactory.getLogger(BenchmarkCenarios.class);
+
+	public static final String CABECALHO = "cenario,controle,pessoas,simulado_s,execucao_ms,simuladoPorSegundo,"
+			+ "pessoasPorSegundo,picoHeap_bytes,alocacaoPorSegundo_bytes,alocacaoPorPessoa_bytes,mediaTotalPercurso_ms,"
+			+ "p99TotalPercurso_ms";
+
+	// tolerância padrão de piora em relação ao baseline, em porcentagem
+	private static final double toleranciaDefault = 10d;
+
+	private static final int repeticoesDefault = 3;
+
+	// tempo mínimo de execução somado entre as repetições, em nanosegundos
+	private static final long tempoMinimoRepeticoes = 1000000000l;
+
+	// mesmo dia do elevadores.csv
+	private static final LocalDateTime inicioDia = LocalDateTime.of(2016, 8, 31, 0, 0);
+
+	public static void main(String[] args) {
+		Map<String, String> opcoes = new HashMap<>();
+		for (String a : args) {
+			int i = a.indexOf('=');
+			if (i <= 0) {
+				logger.error("uso: BenchmarkCenarios relatorio=saida.csv [baseline=referencia.csv] [tolerancia=10] "
+						+ "[repeticoes=3] [cenarios=" + String.join(",", nomesCatalogo()) + "]");
+				return;
+			}
+			opcoes.put(a.substring(0, i), a.substring(i + 1));
+		}
+		List<Cenario> cenarios = catalogo();
+		if (opcoes.containsKey("cenarios")) {
+			List<String> nomes = Arrays.asList(opcoes.get("cenarios").split(","));
+			cenarios.removeIf(c -> !nomes.contains(c.getNome()));
+		}
+
+		int repeticoes = Integer.parseInt(opcoes.getOrDefault("repeticoes", String.valueOf(repeticoesDefault)));
+		List<Medicao> medicoes = new ArrayList<>();
+		for (Cenario c : cenarios) {
+			medicoes.addAll(executar(c, repeticoes));
+		}
+
+		Path relatorio = Paths.get(opcoes.getOrDefault("relatorio", "benchmark.csv"));
+		try {
+			escrever(medicoes, relatorio);
+			logger.info(String.format("Relatório escrito em %s", relatorio));
+		} catch (IOException e) {
+			logger.error(String.format("Erro ao escrever %s", relatorio), e);
+		}
+
+		if (opcoes.containsKey("baseline")) {
+			Path baseline = Paths.get(opcoes.get("baseline"));
+			double tolerancia = Double.parseDouble(opcoes.getOrDefault("tolerancia", String.valueOf(toleranciaDefault)));
+			List<String> regressoes;
+			try {
+				regressoes = comparar(medicoes, ler(baseline), tolerancia);
+			} catch (IOException e) {
+				logger.error(String.format("Erro ao ler %s", baseline), e);
+				System.exit(2);
+				return;
+			}
+			if (!regressoes.isEmpty()) {
+				logger.error("Regressões em relação a " + baseline + ":" + System.lineSeparator()
+						+ String.join(System.lineSeparator(), regressoes));
+				System.exit(1);
+			}
+			logger.info(String.format("Nenhuma regressão acima de %.1f%% em relação a %s", tolerancia, baseline));
+		}
+	}
+
+	/**
+	 * Catálogo de cenários: o elevadores.csv, um dia sintético com 1 milhão de
+	 * pessoas, um pico de subida pela manhã e uma torre de 150 andares com 40
+	 * elevadores, os sintéticos gerados por {@link GeradorChegadas}. O controle
+	 * por projeção é executado somente no elevadores.csv, pois cada decisão
+	 * copia todas as pessoas em transito, e sem orçamento de tempo, com as
+	 * projeções limitadas pelo horizonte: com o orçamento padrão o trabalho de
+	 * cada decisão, e portanto o resultado, dependeria da carga da máquina
+	 *
+	 * @return
+	 */
+	public static List<Cenario> catalogo() {
+		List<Supplier<ElevadorControle>> rapidos = Arrays.asList(ElevadorControleSequencial::new,
+				() -> new ElevadorControleAleatorio(1l), ElevadorControleMenorTempoImediato::new,
+				ElevadorControleAtribuicaoLote::new, ElevadorControleDestino::new);
+		List<Supplier<ElevadorControle>> todos = new ArrayList<>(rapidos);
+		todos.add(() -> {
+			ElevadorControleProjecao projecao = new ElevadorControleProjecao();
+			projecao.setOrcamento(null);
+			return projecao;
+		});
+
+		List<Cenario> cenarios = new ArrayList<>();
+		cenarios.add(new Cenario("elevadores", () -> (new PessoaLoader()).getTabelaPessoasResource(), s -> {
+		}, todos));
+		cenarios.add(new Cenario("dia-sintetico", () -> chegadasUniformes(1000000, 60, Duration.ofDays(1), 1l), s -> {
+			s.setQuantidadeElevadores(300);
+			s.setLotacaoMaximaElevador(20);
+			s.setAndarMaximoElevador(60);
+		}, rapidos));
+		// 20000 pessoas em um pico com desvio de 20 minutos
+		PerfilChegadas picoSubida = PerfilChegadas.picoSubida(20000d * 3d / Math.sqrt(2d * Math.PI));
+		cenarios.add(new Cenario("pico-manha", () -> tabela(new GeradorChegadas(picoSubida, inicioDia.plusHours(6),
+				Duration.ofHours(6), 2l).setAndares(2, 40), 20000), s -> {
+			s.setQuantidadeElevadores(24);
+			s.setLotacaoMaximaElevador(20);
+			s.setAndarMaximoElevador(40);
+		}, rapidos));
+		cenarios.add(new Cenario("torre-150", () -> chegadasUniformes(25000, 150, Duration.ofHours(8), 3l), s -> {
+			s.setQuantidadeElevadores(40);
+			s.setLotacaoMaximaElevador(20);
+			s.setAndarMaximoElevador(150);
+		}, rapidos));
+		return cenarios;
+	}
+
+	private static List<String> nomesCatalogo() {
+		List<String> nomes = new ArrayList<>();
+		catalogo().forEach(c -> nomes.add(c.getNome()));
+		return nomes;
+	}
+
+	/**
+	 * Chegadas de Poisson com taxa constante a partir das 8:00, andares de
+	 * destino uniformes acima do térreo
+	 */
+	private static PessoaTable chegadasUniformes(int pessoas, int andarMaximo, Duration duracao, long semente) {
+		PerfilChegadas perfil = PerfilChegadas.constante(pessoas * 3600000d / duracao.toMillis());
+		// sem limite de duração, a quantidade de pessoas encerra o trajeto
+		return tabela(new GeradorChegadas(perfil, inicioDia.plusHours(8), Duration.ofDays(365), semente)
+				.setAndares(2, andarMaximo), pessoas);
+	}
+
+	private static PessoaTable tabela(GeradorChegadas gerador, int pessoas) {
+		PessoaTable tabela = new PessoaTable(pessoas);
+		try (CursorChegadas c = gerador.setQuantidadeMaxima(pessoas)) {
+			while (c.avancar()) {
+				tabela.adicionar(c.getNome(), c.getAndar(), c.getChegada());
+			}
+		}
+		return tabela;
+	}
+
+	/**
+	 * Executa o cenário com cada controle, em sequência no thread atual
+	 *
+	 * @param cenario
+	 * @param repeticoes
+	 *            execuções mínimas de cada controle, é registrada a mais rápida
+	 * @return
+	 */
+	public static List<Medicao> executar(Cenario cenario, int repeticoes) {
+		PessoaTable tabela = cenario.getTabela().get();
+		List<Medicao> medicoes = new ArrayList<>();
+		for (Supplier<ElevadorControle> fabrica : cenario.getControles()) {
+			Medicao melhor = null;
+			long menorPicoHeap = Long.MAX_VALUE;
+			long inicio = System.nanoTime();
+			int i = 0;
+			for (; i < repeticoes || System.nanoTime() - inicio < tempoMinimoRepeticoes; i++) {
+				Medicao m = medir(cenario, tabela, fabrica.get());
+				if (melhor == null || m.getExecucao() < melhor.getExecucao()) {
+					melhor = m;
+				}
+				menorPicoHeap = Math.min(menorPicoHeap, m.getPicoHeap());
+			}
+			logger.info(String.format("Cenário %s com %s: %d repetições, melhor %d ms", cenario.getNome(),
+					melhor.getControle(), i, melhor.getExecucao()));
+			medicoes.add(new Medicao(melhor.getCenario(), melhor.getControle(), melhor.getPessoas(),
+					melhor.getSimulado(), melhor.getExecucao(), melhor.getSimuladoPorSegundo(),
+					melhor.getPessoasPorSegundo(), menorPicoHeap, melhor.getAlocacaoPorSegundo(),
+					melhor.getAlocacaoPorPessoa(), melhor.getMediaTotalPercurso(), melhor.getP99TotalPercurso()));
+		}
+		return medicoes;
+	}
+
+	private static Medicao medir(Cenario cenario, PessoaTable tabela, ElevadorControle controle) {
+		Simulador sim = new Simulador(controle);
+		cenario.getConfiguracao().accept(sim);
+
+		System.gc();
+		List<MemoryPoolMXBean> pools = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pool.resetPeakUsage();
+				pools.add(pool);
+			}
+		}
+		long alocadoInicio = bytesAlocados();
+		long inicio = System.nanoTime();
+		sim.inicializar(tabela);
+		sim.executar();
+		long execucao = System.nanoTime() - inicio;
+		long alocado = bytesAlocados() - alocadoInicio;
+		long picoHeap = 0l;
+		for (MemoryPoolMXBean pool : pools) {
+			picoHeap += pool.getPeakUsage().getUsed();
+		}
+
+		EstatisticasSimulacao e = sim.getEstatisticas();
+		double segundos = execucao / 1e9;
+		long simulado = Duration.between(sim.getInstanteInicial(), sim.getInstanteFinal()).getSeconds();
+		return new Medicao(cenario.getNome(), controle.getNome(), tabela.tamanho(), simulado,
+				execucao / 1000000l, simulado / segundos, tabela.tamanho() / segundos, picoHeap,
+				alocado < 0 ? -1d : alocado / segundos, alocado < 0 ? -1d : (double) alocado / tabela.tamanho(),
+				e.getTempoMedioTotalPercurso().map(Duration::toMillis).orElse(-1l),
+				e.getPercentilTotalPercurso(99).map(Duration::toMillis).orElse(-1l));
+	}
+
+	/**
+	 * Bytes alocados pelo thread atual (alocações de outros threads, como as
+	 * projeções em paralelo, não são contadas), -1 se a JVM não informa
+	 */
+	private static long bytesAlocados() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1l;
+	}
+
+	public static void escrever(List<Medicao> medicoes, Path arquivo) throws IOException {
+		try (BufferedWriter w = Files.newBufferedWriter(arquivo)) {
+			w.write(CABECALHO);
+			w.newLine();
+			for (Medicao m : medicoes) {
+				w.write(m.paraCsv());
+				w.newLine();
+			}
+		}
+	}
+
+	public static List<Medicao> ler(Path arquivo) throws IOException {
+		List<Medicao> medicoes = new ArrayList<>();
+		for (String linha : Files.readAllLines(arquivo)) {
+			if (!linha.isEmpty() && !linha.equals(CABECALHO)) {
+				medicoes.add(Medicao.deCsv(linha));
+			}
+		}
+		return medicoes;
+	}
+
+	/**
+	 * Compara as medições com o baseline, pelo par cenário e controle. Vazões
+	 * (simulado por segundo e pessoas por segundo) pioram quando diminuem,
+	 * memória (pico de heap e alocação por pessoa) quando aumenta. A alocação por
+	 * segundo acompanha a velocidade da execução, por isso é somente informada.
+	 * Medições sem correspondente no baseline são ignoradas
+	 *
+	 * @param atuais
+	 * @param baseline
+	 * @param tolerancia
+	 *            piora máxima em porcentagem
+	 * @return descrição de cada métrica que piorou além da tolerância
+	 */
+	public static List<String> comparar(List<Medicao> atuais, List<Medicao> baseline, double tolerancia) {
+		Map<String, Medicao> referencias = new HashMap<>();
+		baseline.forEach(m -> referencias.put(m.getChave(), m));
+		double limite = tolerancia / 100d;
+		List<String> regressoes = new ArrayList<>();
+		for (Medicao m : atuais) {
+			Medicao r = referencias.get(m.getChave());
+			if (r == null) {
+				continue;
+			}
+			verificarMaior(regressoes, m, "simuladoPorSegundo", m.getSimuladoPorSegundo(),
+					r.getSimuladoPorSegundo(), limite);
+			verificarMaior(regressoes, m, "pessoasPorSegundo", m.getPessoasPorSegundo(), r.getPessoasPorSegundo(),
+					limite);
+			verificarMenor(regressoes, m, "picoHeap_bytes", m.getPicoHeap(), r.getPicoHeap(), limite);
+			verificarMenor(regressoes, m, "alocacaoPorPessoa_bytes", m.getAlocacaoPorPessoa(),
+					r.getAlocacaoPorPessoa(), limite);
+		}
+		return regressoes;
+	}
+
+	private static void verificarMaior(List<String> regressoes, Medicao m, String metrica, double atual,
+			double referencia, double limite) {
+		if (referencia > 0 && atual < referencia * (1d - limite)) {
+			regressoes.add(descrever(m, metrica, atual, referencia));
+		}
+	}
+
+	private static void verificarMenor(List<String> regressoes, Medicao m, String metrica, double atual,
+			double referencia, double limite) {
+		if (referencia > 0 && atual > referencia * (1d + limite)) {
+			regressoes.add(descrever(m, metrica, atual, referencia));
+		}
+	}
+
+	private static String descrever(Medicao m, String metrica, double atual, double referencia) {
+		return String.format(Locale.ROOT, "%s: %s = %.1f (baseline %.1f, %+.1f%%)", m.getChave(), metrica, atual,
+				referencia, (atual / referencia - 1d) * 100d);
+	}
+
+	/**
+	 * Cenário do catálogo: tabela de chegadas, parâmetros do simulador e
+	 * controles a comparar
+	 */
+	public static class Cenario {
+
+		private final String nome;
+		private final Supplier<PessoaTable> tabela;
+		private final Consumer<Simulador> configuracao;
+		private final List<Supplier<ElevadorControle>> controles;
+
+		public Cenario(String nome, Supplier<PessoaTable> tabela, Consumer<Simulador> configuracao,
+				List<Supplier<ElevadorControle>> controles) {
+			super();
+			this.nome = nome;
+			this.tabela = tabela;
+			this.configuracao = configuracao;
+			this.controles = controles;
+		}
+
+		public String getNome() {
+			return nome;
+		}
+
+		public Supplier<PessoaTable> getTabela() {
+			return tabela;
+		}
+
+		public Consumer<Simulador> getConfiguracao() {
+			return configuracao;
+		}
+
+		public List<Supplier<ElevadorControle>> getControles() {
+			return controles;
+		}
+
+	}
+
+	/**
+	 * Uma linha do relatório
+	 */
+	public static class Medicao {
+
+		private final String cenario;
+		private final String controle;
+		private final int pessoas;
+		private final long simulado;
+		private final long execucao;
+		private final double simuladoPorSegundo;
+		private final double pessoasPorSegundo;
+		private final long picoHeap;
+		private final double alocacaoPorSegundo;
+		private final double alocacaoPorPessoa;
+		private final long mediaTotalPercurso;
+		private final long p99TotalPercurso;
+
+		public Medicao(String cenario, String controle, int pessoas, long simulado, long execucao,
+				double simuladoPorSegundo, double pessoasPorSegundo, long picoHeap, double alocacaoPorSegundo,
+				double alocacaoPorPessoa, long mediaTotalPercurso, long p99TotalPercurso) {
+			super();
+			this.cenario = cenario;
+			this.controle = controle;
+			this.pessoas = pessoas;
+			this.simulado = simulado;
+			this.execucao = execucao;
+			this.simuladoPorSegundo = simuladoPorSegundo;
+			this.pessoasPorSegundo = pessoasPorSegundo;
+			this.picoHeap = picoHeap;
+			this.alocacaoPorSegundo = alocacaoPorSegundo;
+			this.alocacaoPorPessoa = alocacaoPorPessoa;
+			this.mediaTotalPercurso = mediaTotalPercurso;
+			this.p99TotalPercurso = p99TotalPercurso;
+		}
+
+		public String paraCsv() {
+			return String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.1f,%.1f,%d,%.1f,%.1f,%d,%d", cenario, controle,
+					pessoas, simulado, execucao, simuladoPorSegundo, pessoasPorSegundo, picoHeap, alocacaoPorSegundo,
+					alocacaoPorPessoa, mediaTotalPercurso, p99TotalPercurso);
+		}
+
+		public static Medicao deCsv(String linha) {
+			String[] c = linha.split(",");
+			if (c.length != 12) {
+				throw new RuntimeException("Linha de relatório inválida: " + linha);
+			}
+			return new Medicao(c[0], c[1], Integer.parseInt(c[2]), Long.parseLong(c[3]), Long.parseLong(c[4]),
+					Double.parseDouble(c[5]), Double.parseDouble(c[6]), Long.parseLong(c[7]),
+					Double.parseDouble(c[8]), Double.parseDouble(c[9]), Long.parseLong(c[10]), Long.parseLong(c[11]));
+		}
+
+		/**
+		 * Cenário e controle, identificam a medição no baseline
+		 *
+		 * @return
+		 */
+		public String getChave() {
+			return cenario + "/" + controle;
+		}
+
+		public String getCenario() {
+			return cenario;
+		}
+
+		public String getControle() {
+			return controle;
+		}
+
+		public int getPessoas() {
+			return pessoas;
+		}
+
+		public long getSimulado() {
+			return simulado;
+		}
+
+		public long getExecucao() {
+			return execucao;
+		}
+
+		public double getSimuladoPorSegundo() {
+			return simuladoPorSegundo;
+		}
+
+		public double getPessoasPorSegundo() {
+			return pessoasPorSegundo;
+		}
+
+		public long getPicoHeap() {
+			return picoHeap;
+		}
+
+		public double getAlocacaoPorSegundo() {
+			return alocacaoPorSegundo;
+		}
+
+		public double getAlocacaoPorPessoa() {
+			return alocacaoPorPessoa;
+		}
+
+		public long getMediaTotalPercurso() {
+			return mediaTotalPercurso;
+		}
+
+		public long getP99TotalPercurso() {
+			return p99TotalPercurso;
+		}
+
+		@Override
+		public String toString() {
+			return "Medicao [" + paraCsv() + "]";
+		}
+
+	}
+
+}
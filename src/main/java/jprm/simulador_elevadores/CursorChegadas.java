@@ -0,0 +1,87 @@
+package jprm.simulador_elevadores;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Cursor sobre chegadas de pessoas, ordenadas pelo instante de chegada. Cada
+ * chamada de {@link #avancar()} posiciona o cursor na próxima pessoa, cujos
+ * dados ficam disponíveis nos getters até a próxima chamada, sem exigir um
+ * objeto por pessoa
+ */
+public interface CursorChegadas extends Closeable {
+
+	/**
+	 * Posiciona o cursor na próxima pessoa
+	 * 
+	 * @return false se não há mais pessoas
+	 */
+	public boolean avancar();
+
+	/**
+	 * Identificação da pessoa na origem (posição na tabela ou no arquivo)
+	 * 
+	 * @return
+	 */
+	public int getId();
+
+	public String getNome();
+
+	public int getAndar();
+
+	/**
+	 * Instante de chegada em milissegundos (UTC)
+	 * 
+	 * @return
+	 */
+	public long getChegada();
+
+	@Override
+	public default void close() {
+		// nenhum recurso a liberar
+	}
+
+	/**
+	 * Adapta um iterador de pessoas, que devem estar ordenadas pelo instante de
+	 * chegada
+	 * 
+	 * @param pessoas
+	 * @return
+	 */
+	public static CursorChegadas de(Iterator<Pessoa> pessoas) {
+		return new CursorChegadas() {
+			private Pessoa atual;
+			private int id = -1;
+
+			@Override
+			public boolean avancar() {
+				if (!pessoas.hasNext()) {
+					return false;
+				}
+				this.atual = pessoas.next();
+				this.id += 1;
+				return true;
+			}
+
+			@Override
+			public int getId() {
+				return this.id;
+			}
+
+			@Override
+			public String getNome() {
+				return this.atual.getNome();
+			}
+
+			@Override
+			public int getAndar() {
+				return this.atual.getAndar();
+			}
+
+			@Override
+			public long getChegada() {
+				return this.atual.getTabela().getChegada(this.atual.getId());
+			}
+		};
+	}
+}
@@ -1,15 +1,11 @@
 package jprm.simulador_elevadores;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
-import com.google.common.collect.Lists;
+import java.util.function.UnaryOperator;
 
 public class Elevador {
 
@@ -17,23 +13,58 @@ public class Elevador {
 	// LoggerFactory.getLogger(Elevador.class);
 
 	private Integer identificacao;
-	private Integer andarAtual;
-	private Integer andarMinimo;
-	private Integer andarMaximo;
-	private List<Pessoa> lotacao;
+	private int andarAtual;
+	private int andarMinimo;
+	private int andarMaximo;
 	private Integer lotacaoMaxima;
-	private List<Pessoa> filaTerreo;
+	private FilaTerreo filaTerreo;
 	private ElevadorStatus status;
-	private LocalDateTime marcadorTemporal;
-	private Duration periodoEntreAndares;
-	private Duration periodoParada;
+
+	/**
+	 * Instante e períodos em ticks da escala de tempo da simulação
+	 */
+	private long marcadorTemporal;
+	private long periodoEntreAndares;
+	private long periodoParada;
+
+	/**
+	 * Lotação organizada por andar de destino: cada pessoa ocupa uma posição,
+	 * e as posições das pessoas de um mesmo andar formam uma lista encadeada
+	 * (proximaPosicao) na ordem de embarque. As posições livres formam outra
+	 * lista encadeada, reaproveitada no embarque
+	 */
+	private Pessoa[] ocupantes;
+	private int[] proximaPosicao;
+	private int primeiraPosicaoLivre;
+	private int quantidadeOcupantes;
+
+	/**
+	 * Índice das paradas da lotação, atualizado no embarque e no desembarque:
+	 * quantidade de pessoas por andar, primeira e última posição da lista de
+	 * cada andar e conjunto de bits dos andares com pessoas, indexados por
+	 * andar - andarBaseParadas. Os vetores cobrem de andarMinimo até
+	 * andarMaximo e só são realocados se uma pessoa tiver andar fora desse
+	 * intervalo
+	 */
+	private int andarBaseParadas;
+	private int[] pessoasPorAndar;
+	private long[] andaresParada;
+	private int[] primeiraPosicaoAndar;
+	private int[] ultimaPosicaoAndar;
+
+	private static final int SEM_POSICAO = -1;
+
+	/**
+	 * Indica que o elevador não tem evento futuro previsto
+	 */
+	public static final long SEM_EVENTO = -1l;
 
 	/**
 	 * Atualiza posição e status do elevador
 	 * 
 	 * @param instanteAtual
 	 */
-	public void atualizar(LocalDateTime instanteAtual) {
+	public void atualizar(long instanteAtual) {
 		switch (this.status) {
 		case PARADO_SUBIR:
 			if (periodoFinalizado(instanteAtual, this.periodoParada)) {
@@ -85,19 +116,18 @@ public class Elevador {
 	 * @param periodoComparacao
 	 * @return
 	 */
-	private Boolean periodoFinalizado(LocalDateTime instanteAtual, Duration periodoComparacao) {
-		Boolean finalizado = Duration.between(this.marcadorTemporal, instanteAtual).compareTo(periodoComparacao) >= 0;
+	private boolean periodoFinalizado(long instanteAtual, long periodoComparacao) {
+		boolean finalizado = instanteAtual - this.marcadorTemporal >= periodoComparacao;
 		if (finalizado) {
-			this.marcadorTemporal = LocalDateTime.from(instanteAtual);
+			this.marcadorTemporal = instanteAtual;
 		}
 		return finalizado;
 	}
 
 	private void atualizarStatusSubindo() {
-		List<Integer> paradas = getParadasLotacao();
-		if (paradas.contains(this.andarAtual)) {
+		if (possuiParada(this.andarAtual)) {
 			// o andar atual é uma parada programada
-			if (paradas.stream().distinct().count() == 1) {
+			if (contarParadas(this.andarAtual, this.andarMaximo) == 1) {
 				// o andar atual é a última parada
 				this.status = ElevadorStatus.PARADO_DESCER;
 			} else {
@@ -113,19 +143,49 @@ public class Elevador {
 		}
 	}
 
+	/**
+	 * Calcula o instante do próximo evento do elevador a partir do status e do
+	 * marcador temporal atuais, SEM_EVENTO se o elevador estiver em espera no
+	 * térreo (neste caso o próximo evento depende da chegada de pessoas)
+	 * 
+	 * @param instanteMinimo
+	 *            instante mínimo do evento, o elevador muda de status ou de
+	 *            andar no máximo uma vez por instante processado
+	 * @return
+	 */
+	public long calcularInstanteProximoEvento(long instanteMinimo) {
+		long instante;
+		switch (this.status) {
+		case PARADO_SUBIR:
+		case PARADO_DESCER:
+			instante = this.marcadorTemporal + this.periodoParada;
+			break;
+
+		case SUBINDO:
+		case DESCENDO:
+			instante = this.marcadorTemporal + this.periodoEntreAndares;
+			break;
+
+		case ESPERA_TERREO:
+		default:
+			return SEM_EVENTO;
+		}
+		return Math.max(instante, instanteMinimo);
+	}
+
 	/**
 	 * Calcula o tempo restante para o elevador chegar ao Andar Mínimo
 	 * 
 	 * @param instanteAtual
 	 * @return
 	 */
-	public Duration calcularTempoRestanteTerreo(LocalDateTime instanteAtual) {
+	public long calcularTempoRestanteTerreo(long instanteAtual) {
 		if (status == ElevadorStatus.DESCENDO || status == ElevadorStatus.PARADO_DESCER) {
 			return calcularTempoRestanteTerreoDescendo(instanteAtual);
 		} else if (status == ElevadorStatus.SUBINDO || status == ElevadorStatus.PARADO_SUBIR) {
-			return calcularTempoRestanteUltimoAndarSubindo(instanteAtual).plus(calcularTempoDescida());
+			return calcularTempoRestanteUltimoAndarSubindo(instanteAtual) + calcularTempoDescida();
 		} else {
-			return Duration.ZERO;
+			return 0l;
 		}
 	}
 
@@ -135,18 +195,22 @@ public class Elevador {
 	 * @param instanteAtual
 	 * @return
 	 */
-	private Duration calcularTempoRestanteUltimoAndarSubindo(LocalDateTime instanteAtual) {
-		// pegar lista de paradas, removendo andar atual se estiver presente
-		List<Integer> paradas = getParadasLotacao();
-		paradas.remove(this.andarAtual);
-		Integer ultimaParada = getUltimaParadaLotacao().orElse(andarAtual);
-		Duration tempoParado = periodoParada.multipliedBy(paradas.stream().distinct().count());
-		Integer multiplicador = ultimaParada - andarAtual;
+	private long calcularTempoRestanteUltimoAndarSubindo(long instanteAtual) {
+		// paradas distintas entre o andar atual e o andar máximo, removendo uma
+		// ocorrência do andar atual (se houver mais de uma pessoa para o andar
+		// atual, o andar continua sendo contado)
+		long paradas = contarParadas(this.andarAtual, this.andarMaximo);
+		if (pessoasNoAndar(this.andarAtual) == 1) {
+			paradas -= 1;
+		}
+		int ultimaParada = calcularUltimaParada(andarAtual);
+		long tempoParado = periodoParada * paradas;
+		int multiplicador = ultimaParada - andarAtual;
 		if (status == ElevadorStatus.SUBINDO) {
 			multiplicador -= 1;
 		}
-		Duration tempoSubindo = periodoEntreAndares.multipliedBy(multiplicador);
-		return tempoParado.plus(tempoSubindo).plus(calcularTempoRestanteMudancaStatusAndar(instanteAtual));
+		long tempoSubindo = periodoEntreAndares * multiplicador;
+		return tempoParado + tempoSubindo + calcularTempoRestanteMudancaStatusAndar(instanteAtual);
 	}
 
 	/**
@@ -156,13 +220,13 @@ public class Elevador {
 	 * 
 	 * @return
 	 */
-	private Duration calcularTempoDescida() {
+	private long calcularTempoDescida() {
 		if (status == ElevadorStatus.DESCENDO || status == ElevadorStatus.PARADO_DESCER) {
 			throw new RuntimeException(
 					"Status Incorreto, não é possível calcular o tempo de descida: Status=" + status);
 		}
-		Integer ultimaParada = getUltimaParadaLotacao().orElse(andarAtual);
-		return periodoEntreAndares.multipliedBy(ultimaParada - andarMinimo);
+		int ultimaParada = calcularUltimaParada(andarAtual);
+		return periodoEntreAndares * (ultimaParada - andarMinimo);
 	}
 
 	/**
@@ -172,18 +236,17 @@ public class Elevador {
 	 * @param instanteAtual
 	 * @return
 	 */
-	private Duration calcularTempoRestanteTerreoDescendo(LocalDateTime instanteAtual) {
+	private long calcularTempoRestanteTerreoDescendo(long instanteAtual) {
 		if (status == ElevadorStatus.SUBINDO || status == ElevadorStatus.PARADO_SUBIR
 				|| status == ElevadorStatus.ESPERA_TERREO) {
 			throw new RuntimeException(
 					"Status Incorreto, não é possível calcular o tempo restante de descida: Status=" + status);
 		}
-		Integer multiplicador = andarAtual - andarMinimo;
+		int multiplicador = andarAtual - andarMinimo;
 		if (status == ElevadorStatus.DESCENDO) {
 			multiplicador -= 1;
 		}
-		return periodoEntreAndares.multipliedBy(multiplicador)
-				.plus(calcularTempoRestanteMudancaStatusAndar(instanteAtual));
+		return periodoEntreAndares * multiplicador + calcularTempoRestanteMudancaStatusAndar(instanteAtual);
 	}
 
 	/**
@@ -193,14 +256,202 @@ public class Elevador {
 	 * @param instanteAtual
 	 * @return
 	 */
-	public Duration calcularTempoRestanteMudancaStatusAndar(LocalDateTime instanteAtual) {
+	public long calcularTempoRestanteMudancaStatusAndar(long instanteAtual) {
 		if (status == ElevadorStatus.SUBINDO || status == ElevadorStatus.DESCENDO) {
-			return Duration.between(marcadorTemporal, instanteAtual).minus(periodoEntreAndares);
+			return instanteAtual - marcadorTemporal - periodoEntreAndares;
 		} else if (status == ElevadorStatus.PARADO_SUBIR || status == ElevadorStatus.PARADO_DESCER) {
-			return Duration.between(marcadorTemporal, instanteAtual).minus(periodoParada);
+			return instanteAtual - marcadorTemporal - periodoParada;
+		} else {
+			return 0l;
+		}
+	}
+
+	/**
+	 * Adiciona a pessoa na lotação, no final da lista do seu andar de destino
+	 * 
+	 * @param p
+	 */
+	public void embarcar(Pessoa p) {
+		int andar = p.getAndar();
+		garantirAndarParadas(andar);
+		if (this.primeiraPosicaoLivre == SEM_POSICAO) {
+			expandirPosicoes();
+		}
+		int posicao = this.primeiraPosicaoLivre;
+		this.primeiraPosicaoLivre = this.proximaPosicao[posicao];
+		this.ocupantes[posicao] = p;
+		this.proximaPosicao[posicao] = SEM_POSICAO;
+		this.quantidadeOcupantes += 1;
+
+		int i = andar - this.andarBaseParadas;
+		if (this.pessoasPorAndar[i] == 0) {
+			this.primeiraPosicaoAndar[i] = posicao;
+			this.andaresParada[i >>> 6] |= 1l << i;
 		} else {
-			return Duration.ZERO;
+			this.proximaPosicao[this.ultimaPosicaoAndar[i]] = posicao;
+		}
+		this.ultimaPosicaoAndar[i] = posicao;
+		this.pessoasPorAndar[i] += 1;
+	}
+
+	/**
+	 * Remove da lotação as pessoas cujo andar é o andar atual, na ordem de
+	 * embarque, percorrendo somente a lista do andar atual
+	 * 
+	 * @return pessoas que desembarcaram
+	 */
+	public List<Pessoa> desembarcar() {
+		int quantidade = pessoasNoAndar(this.andarAtual);
+		if (quantidade == 0) {
+			return Collections.emptyList();
+		}
+		int i = this.andarAtual - this.andarBaseParadas;
+		List<Pessoa> desembarque = new ArrayList<>(quantidade);
+		int posicao = this.primeiraPosicaoAndar[i];
+		while (posicao != SEM_POSICAO) {
+			int proxima = this.proximaPosicao[posicao];
+			desembarque.add(this.ocupantes[posicao]);
+			this.ocupantes[posicao] = null;
+			this.proximaPosicao[posicao] = this.primeiraPosicaoLivre;
+			this.primeiraPosicaoLivre = posicao;
+			posicao = proxima;
+		}
+		this.quantidadeOcupantes -= quantidade;
+		this.pessoasPorAndar[i] = 0;
+		this.andaresParada[i >>> 6] &= ~(1l << i);
+		return desembarque;
+	}
+
+	/**
+	 * Dobra a quantidade de posições da lotação, encadeando as novas posições
+	 * na lista de posições livres
+	 */
+	private void expandirPosicoes() {
+		int anterior = this.ocupantes.length;
+		int capacidade = Math.max(anterior * 2, 1);
+		this.ocupantes = Arrays.copyOf(this.ocupantes, capacidade);
+		this.proximaPosicao = Arrays.copyOf(this.proximaPosicao, capacidade);
+		for (int posicao = capacidade - 1; posicao >= anterior; posicao--) {
+			this.proximaPosicao[posicao] = this.primeiraPosicaoLivre;
+			this.primeiraPosicaoLivre = posicao;
+		}
+	}
+
+	private void inicializarLotacao(int capacidade) {
+		this.ocupantes = new Pessoa[0];
+		this.proximaPosicao = new int[0];
+		this.primeiraPosicaoLivre = SEM_POSICAO;
+		this.quantidadeOcupantes = 0;
+		this.pessoasPorAndar = null;
+		this.andaresParada = null;
+		this.primeiraPosicaoAndar = null;
+		this.ultimaPosicaoAndar = null;
+		while (this.ocupantes.length < capacidade) {
+			expandirPosicoes();
+		}
+	}
+
+	private void garantirAndarParadas(int andar) {
+		if (this.pessoasPorAndar != null && andar >= this.andarBaseParadas
+				&& andar - this.andarBaseParadas < this.pessoasPorAndar.length) {
+			return;
+		}
+		int base = Math.min(andar, this.andarMinimo);
+		int topo = Math.max(andar, this.andarMaximo);
+		if (this.pessoasPorAndar != null) {
+			base = Math.min(base, this.andarBaseParadas);
+			topo = Math.max(topo, this.andarBaseParadas + this.pessoasPorAndar.length - 1);
+		}
+		int[] pessoas = new int[topo - base + 1];
+		long[] paradas = new long[(pessoas.length + 63) >>> 6];
+		int[] primeiras = new int[pessoas.length];
+		int[] ultimas = new int[pessoas.length];
+		if (this.pessoasPorAndar != null) {
+			int deslocamento = this.andarBaseParadas - base;
+			System.arraycopy(this.pessoasPorAndar, 0, pessoas, deslocamento, this.pessoasPorAndar.length);
+			System.arraycopy(this.primeiraPosicaoAndar, 0, primeiras, deslocamento, this.pessoasPorAndar.length);
+			System.arraycopy(this.ultimaPosicaoAndar, 0, ultimas, deslocamento, this.pessoasPorAndar.length);
+			for (int j = 0; j < pessoas.length; j++) {
+				if (pessoas[j] > 0) {
+					paradas[j >>> 6] |= 1l << j;
+				}
+			}
+		}
+		this.andarBaseParadas = base;
+		this.pessoasPorAndar = pessoas;
+		this.andaresParada = paradas;
+		this.primeiraPosicaoAndar = primeiras;
+		this.ultimaPosicaoAndar = ultimas;
+	}
+
+	/**
+	 * Quantidade de pessoas na lotação com destino ao andar
+	 * 
+	 * @param andar
+	 * @return
+	 */
+	public int pessoasNoAndar(int andar) {
+		int i = andar - this.andarBaseParadas;
+		if (this.pessoasPorAndar == null || i < 0 || i >= this.pessoasPorAndar.length) {
+			return 0;
 		}
+		return this.pessoasPorAndar[i];
+	}
+
+	/**
+	 * retorna true se há pessoas na lotação com destino ao andar
+	 * 
+	 * @param andar
+	 * @return
+	 */
+	public boolean possuiParada(int andar) {
+		return pessoasNoAndar(andar) > 0;
+	}
+
+	/**
+	 * Quantidade de paradas distintas programadas entre os andares de e ate
+	 * (inclusive)
+	 * 
+	 * @param de
+	 * @param ate
+	 * @return
+	 */
+	public int contarParadas(int de, int ate) {
+		if (this.pessoasPorAndar == null) {
+			return 0;
+		}
+		int inicio = Math.max(de - this.andarBaseParadas, 0);
+		int fim = Math.min(ate - this.andarBaseParadas, this.pessoasPorAndar.length - 1);
+		if (inicio > fim) {
+			return 0;
+		}
+		int palavraInicio = inicio >>> 6;
+		int palavraFim = fim >>> 6;
+		long mascaraInicio = -1l << inicio;
+		long mascaraFim = -1l >>> (63 - (fim & 63));
+		if (palavraInicio == palavraFim) {
+			return Long.bitCount(this.andaresParada[palavraInicio] & mascaraInicio & mascaraFim);
+		}
+		int quantidade = Long.bitCount(this.andaresParada[palavraInicio] & mascaraInicio);
+		for (int w = palavraInicio + 1; w < palavraFim; w++) {
+			quantidade += Long.bitCount(this.andaresParada[w]);
+		}
+		return quantidade + Long.bitCount(this.andaresParada[palavraFim] & mascaraFim);
+	}
+
+	/**
+	 * Maior andar com pessoas na lotação, ou padrao se a lotação estiver vazia
+	 */
+	private int calcularUltimaParada(int padrao) {
+		if (this.andaresParada == null) {
+			return padrao;
+		}
+		for (int w = this.andaresParada.length - 1; w >= 0; w--) {
+			if (this.andaresParada[w] != 0) {
+				return this.andarBaseParadas + w * 64 + 63 - Long.numberOfLeadingZeros(this.andaresParada[w]);
+			}
+		}
+		return padrao;
 	}
 
 	/**
@@ -209,8 +460,13 @@ public class Elevador {
 	 * @return
 	 */
 	public List<Integer> getParadasLotacao() {
-		return lotacao.stream().filter(Objects::nonNull).map(p -> p.getAndar())
-				.filter(a -> a >= this.andarAtual && a <= this.andarMaximo).collect(Collectors.toList());
+		List<Integer> paradas = new ArrayList<>(this.quantidadeOcupantes);
+		for (int andar = this.andarAtual; andar <= this.andarMaximo; andar++) {
+			for (int i = pessoasNoAndar(andar); i > 0; i--) {
+				paradas.add(andar);
+			}
+		}
+		return paradas;
 	}
 
 	/**
@@ -219,7 +475,7 @@ public class Elevador {
 	 * @return
 	 */
 	public Optional<Integer> getUltimaParadaLotacao() {
-		return lotacao.stream().filter(Objects::nonNull).map(Pessoa::getAndar).max(Integer::compare);
+		return this.quantidadeOcupantes == 0 ? Optional.empty() : Optional.of(calcularUltimaParada(this.andarAtual));
 	}
 
 	/**
@@ -229,7 +485,14 @@ public class Elevador {
 	 * @return
 	 */
 	public Optional<Integer> getUltimaParadaFilaTerreo() {
-		return filaTerreo.stream().filter(Objects::nonNull).map(Pessoa::getAndar).max(Integer::compare);
+		if (filaTerreo.isEmpty()) {
+			return Optional.empty();
+		}
+		int ultimaParada = Integer.MIN_VALUE;
+		for (int i = 0; i < filaTerreo.tamanho(); i++) {
+			ultimaParada = Math.max(ultimaParada, filaTerreo.getAndar(i));
+		}
+		return Optional.of(ultimaParada);
 	}
 
 	/**
@@ -239,34 +502,64 @@ public class Elevador {
 	 * @return
 	 */
 	public List<Integer> getParadasFilaTerreo() {
-		return filaTerreo.stream().filter(Objects::nonNull).map(p -> p.getAndar()).filter(a -> a <= this.andarMaximo)
-				.collect(Collectors.toList());
+		List<Integer> paradas = new ArrayList<>(filaTerreo.tamanho() + 1);
+		for (int i = 0; i < filaTerreo.tamanho(); i++) {
+			int andar = filaTerreo.getAndar(i);
+			if (andar <= this.andarMaximo) {
+				paradas.add(andar);
+			}
+		}
+		return paradas;
 	}
 
-	public Duration simularTempoFilaEspera(Pessoa p) {
-		List<Integer> listaParadas = getParadasFilaTerreo();
-		listaParadas.add(p.getAndar());
-		
-		List<Duration> temposEspera = new ArrayList<>();
-		for (List<Integer> particao : Lists.partition(listaParadas, this.lotacaoMaxima)) {
-			temposEspera.add((simularTempoSubida(particao)).plus(simularTempoDescida(particao)));
-		}
-		return temposEspera.stream().reduce(Duration::plus).orElse(Duration.ZERO);
+	/**
+	 * Tempo estimado para esvaziar a fila do térreo com a pessoa acrescentada no
+	 * final, em blocos do tamanho da lotação máxima. O resumo dos blocos é mantido
+	 * pela {@link FilaTerreo} e só muda quando a fila muda, então o custo por
+	 * chamada não cresce com o tamanho da fila
+	 * 
+	 * @param p
+	 * @return
+	 */
+	public long simularTempoFilaEspera(Pessoa p) {
+		return filaTerreo.simularTempoEsvaziamento(p.getAndar(), this.lotacaoMaxima, this.andarMinimo, this.andarMaximo,
+				this.periodoEntreAndares, this.periodoParada);
 	}
 
-	private Duration simularTempoDescida(List<Integer> paradas) {
-		Integer ultimaParada = paradas.stream().max(Integer::compare).get();
-		Integer multiplicador = ultimaParada - this.andarMinimo;
-		return periodoEntreAndares.multipliedBy(multiplicador);
+	/**
+	 * Tempo estimado para esvaziar a fila do térreo com um grupo de pessoas
+	 * para o andar acrescentado no final, inclusive os blocos a mais quando o
+	 * grupo não cabe no último bloco
+	 * 
+	 * @param andar
+	 * @param quantidade
+	 * @return
+	 */
+	public long simularTempoFilaEspera(int andar, int quantidade) {
+		return filaTerreo.simularTempoEsvaziamento(andar, quantidade, this.lotacaoMaxima, this.andarMinimo,
+				this.andarMaximo, this.periodoEntreAndares, this.periodoParada);
 	}
 
-	private Duration simularTempoSubida(List<Integer> paradas) {
-		// pegar lista de paradas, removendo andar atual se estiver presente
-		// cuidado get() pode soltar exception
-		Integer ultimaParada = paradas.stream().max(Integer::compare).get();
-		Duration tempoParado = periodoParada.multipliedBy(paradas.stream().distinct().count());
-		Integer multiplicador = ultimaParada - this.andarMinimo;
-		return periodoEntreAndares.multipliedBy(multiplicador).plus(tempoParado);
+	/**
+	 * Verifica se uma pessoa para o andar, acrescentada na fila do térreo,
+	 * viajaria com alguém que já vai para o mesmo andar (sem nova parada)
+	 * 
+	 * @param andar
+	 * @return
+	 */
+	public boolean filaTerreoPossuiParada(int andar) {
+		return filaTerreo.ultimoBlocoPossuiAndar(andar, this.lotacaoMaxima, this.andarMaximo);
+	}
+
+	/**
+	 * Quantidade de pessoas da última viagem formada na fila do térreo que
+	 * seriam atrasadas por uma nova parada no andar
+	 * 
+	 * @param andar
+	 * @return
+	 */
+	public int contarFilaTerreoAcima(int andar) {
+		return filaTerreo.contarUltimoBlocoAcima(andar, this.lotacaoMaxima, this.andarMaximo);
 	}
 
 	/**
@@ -279,9 +572,8 @@ public class Elevador {
 	 * @param status
 	 * @param marcadorTemporal
 	 */
-	public Elevador(Integer andarAtual, Integer andarMinimo, Integer andarMaximo, Integer lotacaoMaxima,
-			ElevadorStatus status, LocalDateTime marcadorTemporal, Duration periodoEntreAndares,
-			Duration periodoParada) {
+	public Elevador(int andarAtual, int andarMinimo, int andarMaximo, Integer lotacaoMaxima,
+			ElevadorStatus status, long marcadorTemporal, long periodoEntreAndares, long periodoParada) {
 		super();
 		this.andarAtual = andarAtual;
 		this.andarMinimo = andarMinimo;
@@ -291,8 +583,8 @@ public class Elevador {
 		this.marcadorTemporal = marcadorTemporal;
 		this.periodoEntreAndares = periodoEntreAndares;
 		this.periodoParada = periodoParada;
-		this.lotacao = new ArrayList<>(this.lotacaoMaxima);
-		this.filaTerreo = new LinkedList<>();
+		inicializarLotacao(this.lotacaoMaxima);
+		this.filaTerreo = new FilaTerreo();
 	}
 
 	/**
@@ -303,8 +595,29 @@ public class Elevador {
 	public Elevador(Integer lotacaoMaxima) {
 		super();
 		this.lotacaoMaxima = lotacaoMaxima;
-		this.lotacao = new ArrayList<>(this.lotacaoMaxima);
-		this.filaTerreo = new LinkedList<>();
+		inicializarLotacao(this.lotacaoMaxima);
+		this.filaTerreo = new FilaTerreo();
+	}
+
+	/**
+	 * Cópia independente do elevador, com a lotação e a fila do térreo
+	 * recriadas pela função de cópia de pessoas, que deve devolver pessoas de
+	 * uma mesma tabela e resultado
+	 * 
+	 * @param copiaPessoa
+	 * @return
+	 */
+	public Elevador copiar(UnaryOperator<Pessoa> copiaPessoa) {
+		Elevador copia = new Elevador(this.andarAtual, this.andarMinimo, this.andarMaximo, this.lotacaoMaxima,
+				this.status, this.marcadorTemporal, this.periodoEntreAndares, this.periodoParada);
+		copia.identificacao = this.identificacao;
+		for (Pessoa p : getLotacao()) {
+			copia.embarcar(copiaPessoa.apply(p));
+		}
+		for (int i = 0; i < this.filaTerreo.tamanho(); i++) {
+			copia.filaTerreo.adicionar(copiaPessoa.apply(this.filaTerreo.getPessoa(i)));
+		}
+		return copia;
 	}
 
 	/**
@@ -319,36 +632,63 @@ public class Elevador {
 		this.identificacao = identificacao;
 	}
 
-	public Integer getAndarAtual() {
+	public int getAndarAtual() {
 		return andarAtual;
 	}
 
-	public void setAndarAtual(Integer andarAtual) {
+	public void setAndarAtual(int andarAtual) {
 		this.andarAtual = andarAtual;
 	}
 
-	public Integer getAndarMinimo() {
+	public int getAndarMinimo() {
 		return andarMinimo;
 	}
 
-	public void setAndarMinimo(Integer andarMinimo) {
+	public void setAndarMinimo(int andarMinimo) {
 		this.andarMinimo = andarMinimo;
 	}
 
-	public Integer getAndarMaximo() {
+	public int getAndarMaximo() {
 		return andarMaximo;
 	}
 
-	public void setAndarMaximo(Integer andarMaximo) {
+	public void setAndarMaximo(int andarMaximo) {
 		this.andarMaximo = andarMaximo;
 	}
 
+	/**
+	 * Cópia da lotação ordenada por andar de destino (e por ordem de embarque
+	 * dentro do andar), ver {@link #embarcar(Pessoa)} e {@link #desembarcar()}
+	 * 
+	 * @return
+	 */
 	public List<Pessoa> getLotacao() {
-		return lotacao;
+		List<Pessoa> lotacao = new ArrayList<>(this.quantidadeOcupantes);
+		for (int i = 0; this.pessoasPorAndar != null && i < this.pessoasPorAndar.length; i++) {
+			if (this.pessoasPorAndar[i] == 0) {
+				continue;
+			}
+			int posicao = this.primeiraPosicaoAndar[i];
+			while (posicao != SEM_POSICAO) {
+				lotacao.add(this.ocupantes[posicao]);
+				posicao = this.proximaPosicao[posicao];
+			}
+		}
+		return Collections.unmodifiableList(lotacao);
 	}
 
 	public void setLotacao(List<Pessoa> lotacao) {
-		this.lotacao = lotacao;
+		inicializarLotacao(this.lotacaoMaxima);
+		lotacao.forEach(this::embarcar);
+	}
+
+	/**
+	 * Quantidade de pessoas na lotação
+	 * 
+	 * @return
+	 */
+	public int getQuantidadeLotacao() {
+		return quantidadeOcupantes;
 	}
 
 	public Integer getLotacaoMaxima() {
@@ -359,11 +699,11 @@ public class Elevador {
 		this.lotacaoMaxima = lotacaoMaxima;
 	}
 
-	public List<Pessoa> getFilaTerreo() {
+	public FilaTerreo getFilaTerreo() {
 		return filaTerreo;
 	}
 
-	public void setFilaTerreo(List<Pessoa> filaTerreo) {
+	public void setFilaTerreo(FilaTerreo filaTerreo) {
 		this.filaTerreo = filaTerreo;
 	}
 
@@ -375,27 +715,27 @@ public class Elevador {
 		this.status = status;
 	}
 
-	public LocalDateTime getMarcadorTemporal() {
+	public long getMarcadorTemporal() {
 		return marcadorTemporal;
 	}
 
-	public void setMarcadorTemporal(LocalDateTime marcadorTemporal) {
+	public void setMarcadorTemporal(long marcadorTemporal) {
 		this.marcadorTemporal = marcadorTemporal;
 	}
 
-	public Duration getPeriodoEntreAndares() {
+	public long getPeriodoEntreAndares() {
 		return periodoEntreAndares;
 	}
 
-	public void setPeriodoEntreAndares(Duration periodoEntreAndares) {
+	public void setPeriodoEntreAndares(long periodoEntreAndares) {
 		this.periodoEntreAndares = periodoEntreAndares;
 	}
 
-	public Duration getPeriodoParada() {
+	public long getPeriodoParada() {
 		return periodoParada;
 	}
 
-	public void setPeriodoParada(Duration periodoParada) {
+	public void setPeriodoParada(long periodoParada) {
 		this.periodoParada = periodoParada;
 	}
 
@@ -427,7 +767,7 @@ public class Elevador {
 	@Override
 	public String toString() {
 		return "\n Elevador [identificacao=" + identificacao + ", andarAtual=" + andarAtual + ", andarMinimo="
-				+ andarMinimo + ", andarMaximo=" + andarMaximo + ", lotacao=" + lotacao + ", lotacaoMaxima="
+				+ andarMinimo + ", andarMaximo=" + andarMaximo + ", lotacao=" + getLotacao() + ", lotacaoMaxima="
 				+ lotacaoMaxima + ", filaTerreo=" + filaTerreo + ", status=" + status + ", marcadorTemporal="
 				+ marcadorTemporal + "]";
 	}
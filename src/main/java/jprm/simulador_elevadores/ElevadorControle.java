@@ -1,12 +1,77 @@
 package jprm.simulador_elevadores;
 
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.BiConsumer;
 
 public interface ElevadorControle {
 	public void inicializar(List<Elevador> elevadores);
 
-	public Elevador decisao(Pessoa p, LocalDateTime instanteAtual);
-	
+	public Elevador decisao(Pessoa p, long instanteAtual);
+
+	/**
+	 * Decide o elevador de todas as pessoas que chegaram no mesmo instante. Cada
+	 * decisão é entregue ao simulador por despacho, que coloca a pessoa na fila
+	 * do elevador imediatamente, de forma que decisões seguintes já enxergam a
+	 * fila atualizada. O padrão decide uma pessoa de cada vez, na ordem do lote
+	 * 
+	 * @param lote
+	 *            pessoas na ordem de chegada
+	 * @param instanteAtual
+	 * @param despacho
+	 */
+	public default void decidirLote(List<Pessoa> lote, long instanteAtual, BiConsumer<Pessoa, Elevador> despacho) {
+		for (int i = 0; i < lote.size(); i++) {
+			Pessoa p = lote.get(i);
+			despacho.accept(p, decisao(p, instanteAtual));
+		}
+	}
+
 	public String getNome();
+
+	/**
+	 * Chamado pelo simulador na inicialização, antes de
+	 * {@link #inicializar(List)}, para controles que precisam do estado
+	 * completo da simulação (por exemplo para projetar o futuro com
+	 * {@link Simulador#bifurcar()}). O padrão ignora o simulador
+	 * 
+	 * @param simulador
+	 */
+	public default void vincular(Simulador simulador) {
+	}
+
+	/**
+	 * Gerador de números aleatórios usado pelo controle, para que a simulação
+	 * possa ser reproduzida. Controles determinísticos ignoram o gerador
+	 * 
+	 * @param aleatorio
+	 */
+	public default void setAleatorio(SplittableRandom aleatorio) {
+	}
+
+	/**
+	 * Cria o controle pelo nome da classe sem o prefixo ElevadorControle, por
+	 * exemplo "MenorTempoImediato", como nas opções de linha de comando
+	 * 
+	 * @param nome
+	 * @return nova instância do controle
+	 */
+	public static ElevadorControle criar(String nome) {
+		switch (nome) {
+		case "Sequencial":
+			return new ElevadorControleSequencial();
+		case "Aleatorio":
+			return new ElevadorControleAleatorio();
+		case "MenorTempoImediato":
+			return new ElevadorControleMenorTempoImediato();
+		case "AtribuicaoLote":
+			return new ElevadorControleAtribuicaoLote();
+		case "Destino":
+			return new ElevadorControleDestino();
+		case "Projecao":
+			return new ElevadorControleProjecao();
+		default:
+			throw new RuntimeException("Controle desconhecido: " + nome);
+		}
+	}
 }
@@ -1,24 +1,40 @@
 package jprm.simulador_elevadores;
 
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class ElevadorControleAleatorio implements ElevadorControle {
 
 	private List<Elevador> elevadores;
-	
+
+	// sem gerador informado usa ThreadLocalRandom, sem reprodutibilidade
+	private SplittableRandom aleatorio;
+
+	public ElevadorControleAleatorio() {
+	}
+
+	public ElevadorControleAleatorio(long semente) {
+		this.aleatorio = new SplittableRandom(semente);
+	}
+
 	@Override
 	public void inicializar(List<Elevador> elevadores) {
 		this.elevadores = elevadores;
 	}
 
 	@Override
-	public Elevador decisao(Pessoa p, LocalDateTime instanteAtual) {
-		Integer index = ThreadLocalRandom.current().nextInt(0, this.elevadores.size());
+	public Elevador decisao(Pessoa p, long instanteAtual) {
+		Integer index = this.aleatorio == null ? ThreadLocalRandom.current().nextInt(0, this.elevadores.size())
+				: this.aleatorio.nextInt(0, this.elevadores.size());
 		return this.elevadores.get(index);
 	}
 
+	@Override
+	public void setAleatorio(SplittableRandom aleatorio) {
+		this.aleatorio = aleatorio;
+	}
+
 	@Override
 	public String getNome() {
 		return "Controle Aleatório";
@@ -0,0 +1,191 @@
+package jprm.simulador_elevadores;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Controle que resolve as chegadas de um mesmo instante como um problema de
+ * atribuição (método húngaro). As pessoas do lote são agrupadas por andar de
+ * destino, já que pessoas do mesmo andar dividem uma única parada, e os grupos
+ * são atribuídos em rodadas de no máximo um grupo por elevador. O custo de
+ * colocar o grupo no elevador é o tempo estimado do elevador (chegada ao térreo
+ * mais esvaziamento da fila com o grupo inteiro incluso, inclusive os blocos a
+ * mais quando o grupo não cabe no último bloco) multiplicado pela quantidade de
+ * pessoas do grupo. Os grupos de cada rodada são despachados antes da rodada
+ * seguinte, que é calculada sobre as filas já atualizadas
+ */
+public class ElevadorControleAtribuicaoLote implements ElevadorControle {
+
+	private final ElevadorControleMenorTempoImediato menorTempo = new ElevadorControleMenorTempoImediato();
+
+	private List<Elevador> elevadores;
+
+	@Override
+	public void inicializar(List<Elevador> elevadores) {
+		this.elevadores = elevadores;
+		this.menorTempo.inicializar(elevadores);
+	}
+
+	/**
+	 * Decisão individual, a mesma do {@link ElevadorControleMenorTempoImediato}
+	 */
+	@Override
+	public Elevador decisao(Pessoa p, long instanteAtual) {
+		return this.menorTempo.decisao(p, instanteAtual);
+	}
+
+	@Override
+	public void decidirLote(List<Pessoa> lote, long instanteAtual, BiConsumer<Pessoa, Elevador> despacho) {
+		if (lote.size() == 1) {
+			despacho.accept(lote.get(0), decisao(lote.get(0), instanteAtual));
+			return;
+		}
+
+		// agrupar por andar de destino, na ordem da primeira chegada de cada andar
+		Map<Integer, List<Pessoa>> grupoPorAndar = new LinkedHashMap<>();
+		for (int i = 0; i < lote.size(); i++) {
+			Pessoa p = lote.get(i);
+			grupoPorAndar.computeIfAbsent(p.getAndar(), a -> new ArrayList<>()).add(p);
+		}
+		List<List<Pessoa>> pendentes = new ArrayList<>(grupoPorAndar.values());
+
+		int quantidadeElevadores = this.elevadores.size();
+		long[] tempoChegada = new long[quantidadeElevadores];
+		for (int j = 0; j < quantidadeElevadores; j++) {
+			tempoChegada[j] = this.elevadores.get(j).calcularTempoRestanteTerreo(instanteAtual);
+		}
+		while (!pendentes.isEmpty()) {
+			int grupos = pendentes.size();
+			long[][] custos = new long[grupos][quantidadeElevadores];
+			for (int g = 0; g < grupos; g++) {
+				List<Pessoa> grupo = pendentes.get(g);
+				int andar = grupo.get(0).getAndar();
+				for (int j = 0; j < quantidadeElevadores; j++) {
+					Elevador e = this.elevadores.get(j);
+					custos[g][j] = grupo.size() * (tempoChegada[j] + e.simularTempoFilaEspera(andar, grupo.size()));
+				}
+			}
+
+			// com mais grupos que elevadores, cada elevador escolhe um grupo
+			// para esta rodada e os demais ficam para as próximas
+			boolean[] atribuido = new boolean[grupos];
+			int[] elevadorDoGrupo = new int[grupos];
+			if (grupos <= quantidadeElevadores) {
+				elevadorDoGrupo = atribuir(custos);
+				Arrays.fill(atribuido, true);
+			} else {
+				int[] grupoDoElevador = atribuir(transpor(custos));
+				for (int j = 0; j < quantidadeElevadores; j++) {
+					atribuido[grupoDoElevador[j]] = true;
+					elevadorDoGrupo[grupoDoElevador[j]] = j;
+				}
+			}
+
+			List<List<Pessoa>> proximaRodada = new ArrayList<>();
+			for (int g = 0; g < grupos; g++) {
+				if (!atribuido[g]) {
+					proximaRodada.add(pendentes.get(g));
+					continue;
+				}
+				Elevador e = this.elevadores.get(elevadorDoGrupo[g]);
+				for (Pessoa p : pendentes.get(g)) {
+					despacho.accept(p, e);
+				}
+			}
+			pendentes = proximaRodada;
+		}
+	}
+
+	private static long[][] transpor(long[][] matriz) {
+		long[][] transposta = new long[matriz[0].length][matriz.length];
+		for (int i = 0; i < matriz.length; i++) {
+			for (int j = 0; j < matriz[i].length; j++) {
+				transposta[j][i] = matriz[i][j];
+			}
+		}
+		return transposta;
+	}
+
+	/**
+	 * Atribuição de custo mínimo (método húngaro com potenciais, O(n²m)). Cada
+	 * linha recebe uma coluna distinta; exige linhas <= colunas
+	 *
+	 * @param custos
+	 *            matriz linhas x colunas
+	 * @return coluna atribuída a cada linha
+	 */
+	static int[] atribuir(long[][] custos) {
+		int n = custos.length;
+		if (n == 0) {
+			return new int[0];
+		}
+		int m = custos[0].length;
+		if (n > m) {
+			throw new RuntimeException("Atribuição exige linhas <= colunas: " + n + " x " + m);
+		}
+		final long infinito = Long.MAX_VALUE / 4;
+		// índices a partir de 1; linha/coluna 0 são sentinelas
+		long[] u = new long[n + 1];
+		long[] v = new long[m + 1];
+		int[] linhaDaColuna = new int[m + 1];
+		int[] anterior = new int[m + 1];
+		long[] minimo = new long[m + 1];
+		boolean[] usada = new boolean[m + 1];
+		for (int i = 1; i <= n; i++) {
+			linhaDaColuna[0] = i;
+			int j0 = 0;
+			Arrays.fill(minimo, infinito);
+			Arrays.fill(usada, false);
+			do {
+				usada[j0] = true;
+				int i0 = linhaDaColuna[j0];
+				long delta = infinito;
+				int j1 = 0;
+				for (int j = 1; j <= m; j++) {
+					if (!usada[j]) {
+						long atual = custos[i0 - 1][j - 1] - u[i0] - v[j];
+						if (atual < minimo[j]) {
+							minimo[j] = atual;
+							anterior[j] = j0;
+						}
+						if (minimo[j] < delta) {
+							delta = minimo[j];
+							j1 = j;
+						}
+					}
+				}
+				for (int j = 0; j <= m; j++) {
+					if (usada[j]) {
+						u[linhaDaColuna[j]] += delta;
+						v[j] -= delta;
+					} else {
+						minimo[j] -= delta;
+					}
+				}
+				j0 = j1;
+			} while (linhaDaColuna[j0] != 0);
+			do {
+				int j1 = anterior[j0];
+				linhaDaColuna[j0] = linhaDaColuna[j1];
+				j0 = j1;
+			} while (j0 != 0);
+		}
+		int[] resultado = new int[n];
+		for (int j = 1; j <= m; j++) {
+			if (linhaDaColuna[j] != 0) {
+				resultado[linhaDaColuna[j] - 1] = j - 1;
+			}
+		}
+		return resultado;
+	}
+
+	@Override
+	public String getNome() {
+		return "Controle Atribuição em Lote";
+	}
+
+}
@@ -0,0 +1,54 @@
+package jprm.simulador_elevadores;
+
+import java.util.List;
+
+/**
+ * Controle por destino: agrupa na mesma viagem as pessoas que vão para o mesmo
+ * andar, para que cada elevador faça o menor número possível de paradas. O
+ * custo de colocar a pessoa em um elevador é o tempo estimado da própria pessoa
+ * (chegada do elevador ao térreo mais esvaziamento da fila com ela inclusa)
+ * somado ao atraso que uma nova parada causa nas pessoas da mesma viagem que
+ * vão para andares acima. Se a viagem já tem alguém para o mesmo andar, não há
+ * atraso para os demais
+ */
+public class ElevadorControleDestino implements ElevadorControle {
+
+	private List<Elevador> elevadores;
+
+	@Override
+	public void inicializar(List<Elevador> elevadores) {
+		this.elevadores = elevadores;
+	}
+
+	/**
+	 * Em caso de empate vence o último elevador da lista, mesmo critério do
+	 * {@link ElevadorControleMenorTempoImediato}
+	 */
+	@Override
+	public Elevador decisao(Pessoa p, long instanteAtual) {
+		int andar = p.getAndar();
+		Elevador escolhido = null;
+		long custoMinimo = Long.MAX_VALUE;
+		for (int i = 0; i < this.elevadores.size(); i++) {
+			Elevador e = this.elevadores.get(i);
+			long custo = e.calcularTempoRestanteTerreo(instanteAtual) + e.simularTempoFilaEspera(p);
+			if (!e.filaTerreoPossuiParada(andar)) {
+				custo += e.getPeriodoParada() * e.contarFilaTerreoAcima(andar);
+			}
+			if (custo <= custoMinimo) {
+				custoMinimo = custo;
+				escolhido = e;
+			}
+		}
+		if (escolhido == null) {
+			throw new RuntimeException("Nenhum elevador disponível para a decisão");
+		}
+		return escolhido;
+	}
+
+	@Override
+	public String getNome() {
+		return "Controle por Destino";
+	}
+
+}
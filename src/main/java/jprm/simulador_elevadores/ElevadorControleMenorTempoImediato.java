@@ -1,10 +1,6 @@
 package jprm.simulador_elevadores;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class ElevadorControleMenorTempoImediato implements ElevadorControle {
 
@@ -15,17 +11,28 @@ public class ElevadorControleMenorTempoImediato implements ElevadorControle {
 		this.elevadores = elevadores;
 	}
 
+	/**
+	 * Escolhe o elevador com menor tempo restante para chegar ao térreo somado ao
+	 * tempo simulado da fila com a pessoa inclusa. Em caso de empate vence o
+	 * último elevador da lista, que é o critério que a versão anterior (com mapa
+	 * de tempo para elevador) aplicava na prática, preservando os resultados
+	 */
 	@Override
-	public Elevador decisao(Pessoa p, LocalDateTime instanteAtual) {
-		// calcula tempo restante para elevador chegar, e calcula tempo simulado com a pessoa inclusa na fila
-		Map<Duration, Elevador> mapa = new HashMap<>();
-		for (Elevador e : this.elevadores) {
-			mapa.put(e.calcularTempoRestanteTerreo(instanteAtual).plus(e.simularTempoFilaEspera(p)), e);
+	public Elevador decisao(Pessoa p, long instanteAtual) {
+		Elevador escolhido = null;
+		long tempoMinimo = Long.MAX_VALUE;
+		for (int i = 0; i < this.elevadores.size(); i++) {
+			Elevador e = this.elevadores.get(i);
+			long tempo = e.calcularTempoRestanteTerreo(instanteAtual) + e.simularTempoFilaEspera(p);
+			if (tempo <= tempoMinimo) {
+				tempoMinimo = tempo;
+				escolhido = e;
+			}
 		}
-		// cuidado get() pode soltar exception
-		Duration tempoMinimo = mapa.keySet().stream().min(Duration::compareTo).get();
-		
-		return mapa.get(tempoMinimo);
+		if (escolhido == null) {
+			throw new RuntimeException("Nenhum elevador disponível para a decisão");
+		}
+		return escolhido;
 	}
 
 	@Override
@@ -0,0 +1,193 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Controle por projeção: para cada elevador candidato, bifurca a simulação
+ * ({@link Simulador#bifurcar()}), coloca a pessoa na fila do candidato e
+ * projeta a simulação sem novas chegadas, até todos desembarcarem ou até o
+ * horizonte. O custo do candidato é a soma do tempo de percurso das pessoas em
+ * fila ou em transito (até o desembarque, ou até o horizonte para quem não
+ * desembarcou). As projeções rodam em paralelo no pool e somente as concluídas
+ * dentro do orçamento de tempo da decisão são consideradas; as demais param
+ * sozinhas no prazo, sem continuar ocupando o pool. Se nenhuma concluir, a
+ * decisão é a do menor tempo imediato. Com orçamento curto o resultado depende
+ * da carga da máquina; sem orçamento as projeções são limitadas somente pelo
+ * horizonte e o resultado é determinístico
+ */
+public class ElevadorControleProjecao implements ElevadorControle {
+
+	private final ElevadorControleMenorTempoImediato menorTempo = new ElevadorControleMenorTempoImediato();
+
+	private Simulador simulador;
+	private List<Elevador> elevadores;
+	private Duration horizonte = horizonteDefault;
+	private Duration orcamento = orcamentoDefault;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	private static final Duration orcamentoDefault = Duration.ofMillis(50l);
+
+	// maior que o tempo de esvaziamento das filas em elevadores.csv
+	private static final Duration horizonteDefault = Duration.ofHours(1l);
+
+	@Override
+	public void vincular(Simulador simulador) {
+		this.simulador = simulador;
+	}
+
+	@Override
+	public void inicializar(List<Elevador> elevadores) {
+		this.elevadores = elevadores;
+		this.menorTempo.inicializar(elevadores);
+	}
+
+	/**
+	 * Em caso de empate vence o último elevador da lista, mesmo critério do
+	 * {@link ElevadorControleMenorTempoImediato}, que também decide quando
+	 * nenhuma projeção conclui no prazo
+	 */
+	@Override
+	public Elevador decisao(Pessoa p, long instanteAtual) {
+		if (this.simulador == null) {
+			throw new RuntimeException("O controle por projeção deve ser vinculado a um simulador");
+		}
+		// sem orçamento o prazo não é verificado
+		boolean comPrazo = this.orcamento != null;
+		long prazo = comPrazo ? System.nanoTime() + this.orcamento.toNanos() : 0l;
+		long instanteLimite = this.horizonte == null ? Long.MAX_VALUE
+				: instanteAtual + this.simulador.getEscalaTempo().paraTicks(this.horizonte);
+
+		// as cópias são feitas neste thread, as projeções só alteram a própria cópia
+		List<ForkJoinTask<Long>> projecoes = new ArrayList<>(this.elevadores.size());
+		for (int i = 0; i < this.elevadores.size(); i++) {
+			Simulador copia = this.simulador.bifurcar();
+			copia.adicionarNaFila(i, p);
+			projecoes.add(this.pool.submit(() -> projetar(copia, instanteLimite, comPrazo, prazo)));
+		}
+
+		Elevador escolhido = null;
+		long custoMinimo = Long.MAX_VALUE;
+		for (int i = 0; i < projecoes.size(); i++) {
+			Long custo = aguardar(projecoes.get(i), comPrazo, prazo);
+			if (custo != null && custo <= custoMinimo) {
+				custoMinimo = custo;
+				escolhido = this.elevadores.get(i);
+			}
+		}
+		return escolhido != null ? escolhido : this.menorTempo.decisao(p, instanteAtual);
+	}
+
+	/**
+	 * Projeta a cópia até o instante limite, desistindo no prazo
+	 *
+	 * @param copia
+	 * @param instanteLimite
+	 * @param comPrazo
+	 *            false para projetar até o instante limite sem verificar o
+	 *            prazo
+	 * @param prazo
+	 *            em {@link System#nanoTime()}
+	 * @return soma dos tempos de percurso em milissegundos, nulo se o prazo
+	 *         acabou antes do fim da projeção
+	 */
+	private static Long projetar(Simulador copia, long instanteLimite, boolean comPrazo, long prazo) {
+		SimulacaoStatus status = comPrazo ? copia.executarAte(instanteLimite, prazo)
+				: copia.executarAte(instanteLimite);
+		if (status == SimulacaoStatus.FINALIZADA) {
+			instanteLimite = copia.getInstanteAtualTicks();
+		} else if (copia.getInstanteAtualTicks() <= instanteLimite) {
+			return null;
+		}
+		long limite = copia.getEscalaTempo().paraMilis(instanteLimite);
+		PessoaTable tabela = copia.getTabelaPessoas();
+		ResultadoSimulacao resultado = copia.getResultado();
+		long custo = 0l;
+		for (int id = 0; id < tabela.tamanho(); id++) {
+			long desembarque = resultado.getDesembarque(id);
+			custo += (desembarque == PessoaTable.SEM_INSTANTE ? limite : desembarque) - tabela.getChegada(id);
+		}
+		return custo;
+	}
+
+	/**
+	 * Resultado da projeção, nulo se não concluiu no prazo. O cancelamento só
+	 * evita projeções ainda não iniciadas; as que estão em execução param
+	 * sozinhas no prazo, ver {@link Simulador#executarAte(long, long)}
+	 */
+	private static Long aguardar(ForkJoinTask<Long> projecao, boolean comPrazo, long prazo) {
+		try {
+			if (!comPrazo) {
+				return projecao.get();
+			}
+			long restante = prazo - System.nanoTime();
+			if (restante <= 0) {
+				if (projecao.isDone()) {
+					return projecao.get();
+				}
+				projecao.cancel(false);
+				return null;
+			}
+			return projecao.get(restante, TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			projecao.cancel(false);
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			projecao.cancel(false);
+			return null;
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Erro na projeção da simulação", e.getCause());
+		}
+	}
+
+	@Override
+	public String getNome() {
+		return "Controle por Projeção";
+	}
+
+	public Duration getHorizonte() {
+		return horizonte;
+	}
+
+	/**
+	 * Limite da projeção a partir do instante da decisão, o padrão é 1h; nulo
+	 * projeta até todas as pessoas desembarcarem. Horizontes menores que o
+	 * tempo de fila tornam os candidatos indistinguíveis
+	 *
+	 * @param horizonte
+	 */
+	public void setHorizonte(Duration horizonte) {
+		this.horizonte = horizonte;
+	}
+
+	public Duration getOrcamento() {
+		return orcamento;
+	}
+
+	/**
+	 * Tempo máximo de cada decisão, o padrão é 50ms; projeções não concluídas
+	 * no prazo são interrompidas e descartadas. Nulo aguarda todas as
+	 * projeções, cujo custo fica limitado pelo horizonte
+	 *
+	 * @param orcamento
+	 */
+	public void setOrcamento(Duration orcamento) {
+		this.orcamento = orcamento;
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+}
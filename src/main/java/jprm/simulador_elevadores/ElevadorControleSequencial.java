@@ -1,6 +1,5 @@
 package jprm.simulador_elevadores;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 public class ElevadorControleSequencial implements ElevadorControle {
@@ -15,7 +14,7 @@ public class ElevadorControleSequencial implements ElevadorControle {
 	}
 
 	@Override
-	public Elevador decisao(Pessoa p, LocalDateTime instanteAtual) {
+	public Elevador decisao(Pessoa p, long instanteAtual) {
 		index += 1;
 		return this.elevadores.get((index) % this.elevadores.size());
 	}
@@ -0,0 +1,115 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Base de tempo da simulação: instantes e períodos são representados
+ * internamente como quantidade de ticks (long) a partir do instante inicial,
+ * com resolução configurável. A conversão para LocalDateTime e Duration é
+ * feita somente nas bordas (Pessoa, PessoaLoader e relatórios)
+ */
+public class EscalaTempo {
+
+	private final LocalDateTime instanteInicial;
+	private final long inicioMilis;
+	private final long resolucaoMilis;
+
+	/**
+	 * Construtor
+	 * 
+	 * @param instanteInicial
+	 *            instante correspondente ao tick zero
+	 * @param resolucao
+	 *            duração de um tick, múltiplo de 1ms
+	 */
+	public EscalaTempo(LocalDateTime instanteInicial, Duration resolucao) {
+		super();
+		if (resolucao.toMillis() < 1 || !resolucao.equals(Duration.ofMillis(resolucao.toMillis()))) {
+			throw new RuntimeException("A resolução deve ser um múltiplo positivo de 1ms: " + resolucao);
+		}
+		this.instanteInicial = instanteInicial;
+		this.inicioMilis = paraMilis(instanteInicial);
+		this.resolucaoMilis = resolucao.toMillis();
+	}
+
+	/**
+	 * Converte um instante em ticks, arredondando para cima quando o instante
+	 * não coincide com um tick
+	 * 
+	 * @param instante
+	 * @return
+	 */
+	public long paraTicks(LocalDateTime instante) {
+		return milisParaTicks(paraMilis(instante));
+	}
+
+	/**
+	 * Converte um instante em milissegundos (UTC) em ticks, arredondando para
+	 * cima
+	 * 
+	 * @param milis
+	 * @return
+	 */
+	public long milisParaTicks(long milis) {
+		return Math.floorDiv(milis - this.inicioMilis + this.resolucaoMilis - 1, this.resolucaoMilis);
+	}
+
+	/**
+	 * Converte um período em ticks, arredondando para cima
+	 * 
+	 * @param periodo
+	 * @return
+	 */
+	public long paraTicks(Duration periodo) {
+		return Math.floorDiv(periodo.toMillis() + this.resolucaoMilis - 1, this.resolucaoMilis);
+	}
+
+	public LocalDateTime paraInstante(long ticks) {
+		return deMilis(paraMilis(ticks));
+	}
+
+	public long paraMilis(long ticks) {
+		return this.inicioMilis + ticks * this.resolucaoMilis;
+	}
+
+	public Duration paraDuracao(long ticks) {
+		return Duration.ofMillis(ticks * this.resolucaoMilis);
+	}
+
+	/**
+	 * Converte um instante para milissegundos, considerando o instante em UTC
+	 * 
+	 * @param instante
+	 * @return
+	 */
+	public static long paraMilis(LocalDateTime instante) {
+		return instante.toEpochSecond(ZoneOffset.UTC) * 1000l + instante.getNano() / 1000000;
+	}
+
+	/**
+	 * Converte milissegundos (UTC) para instante
+	 * 
+	 * @param milis
+	 * @return
+	 */
+	public static LocalDateTime deMilis(long milis) {
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(milis, 1000l), (int) Math.floorMod(milis, 1000l) * 1000000,
+				ZoneOffset.UTC);
+	}
+
+	public LocalDateTime getInstanteInicial() {
+		return instanteInicial;
+	}
+
+	public long getResolucaoMilis() {
+		return resolucaoMilis;
+	}
+
+	@Override
+	public String toString() {
+		return "EscalaTempo [instanteInicial=" + instanteInicial + ", resolucaoMilis=" + resolucaoMilis + "]";
+	}
+
+}
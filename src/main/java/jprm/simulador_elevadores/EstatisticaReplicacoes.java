@@ -0,0 +1,78 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+
+/**
+ * Média, desvio padrão e intervalo de 95% de confiança de uma métrica ao longo
+ * das replicações, acumulados de forma incremental (Welford)
+ * 
+ * Valores em milissegundos
+ */
+public class EstatisticaReplicacoes {
+
+	/**
+	 * Valores críticos da distribuição t de Student (bicaudal, 95%) para 1 a
+	 * 30 graus de liberdade, acima disso usa-se a distribuição normal
+	 */
+	private static final double[] valoresCriticosT = { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+			2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064,
+			2.060, 2.056, 2.052, 2.048, 2.045, 2.042 };
+	private static final double valorCriticoNormal = 1.960;
+
+	private long quantidade;
+	private double media;
+	private double somaQuadrados;
+
+	public void adicionar(double valor) {
+		this.quantidade += 1;
+		double diferenca = valor - this.media;
+		this.media += diferenca / this.quantidade;
+		this.somaQuadrados += diferenca * (valor - this.media);
+	}
+
+	public long getQuantidade() {
+		return quantidade;
+	}
+
+	public double getMedia() {
+		return media;
+	}
+
+	/**
+	 * Desvio padrão amostral, zero com menos de duas replicações
+	 * 
+	 * @return
+	 */
+	public double getDesvioPadrao() {
+		return this.quantidade < 2 ? 0d : Math.sqrt(this.somaQuadrados / (this.quantidade - 1));
+	}
+
+	/**
+	 * Metade da largura do intervalo de 95% de confiança da média, infinita
+	 * com menos de duas replicações
+	 * 
+	 * @return
+	 */
+	public double getMeiaLarguraIntervalo() {
+		if (this.quantidade < 2) {
+			return Double.POSITIVE_INFINITY;
+		}
+		long grausLiberdade = this.quantidade - 1;
+		double critico = grausLiberdade <= valoresCriticosT.length ? valoresCriticosT[(int) grausLiberdade - 1]
+				: valorCriticoNormal;
+		return critico * getDesvioPadrao() / Math.sqrt(this.quantidade);
+	}
+
+	public Duration getMediaDuracao() {
+		return Duration.ofMillis(Math.round(this.media));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("media=%s, desvioPadrao=%s, ic95=[%s, %s]", getMediaDuracao(),
+				Duration.ofMillis(Math.round(getDesvioPadrao())),
+				Duration.ofMillis(Math.round(this.media - getMeiaLarguraIntervalo())),
+				Duration.ofMillis(Math.round(this.media + getMeiaLarguraIntervalo())));
+	}
+
+}
@@ -0,0 +1,161 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Estatísticas acumuladas durante a simulação, atualizadas no embarque e no
+ * desembarque de cada pessoa, sem manter os tempos individuais. Os percentis
+ * são calculados por histogramas de memória fixa, ver {@link HistogramaTempo}
+ * 
+ * Tempos em milissegundos
+ */
+public class EstatisticasSimulacao {
+
+	private long quantidadeChegadas;
+	private long quantidadeEmbarques;
+	private long quantidadeDesembarques;
+	private long somaEsperaFila;
+	private long maiorEsperaFila;
+	private long somaChegadaAndar;
+	private long maiorChegadaAndar;
+	private long somaTotalPercurso;
+	private long maiorTotalPercurso;
+	private final HistogramaTempo histogramaEsperaFila = new HistogramaTempo();
+	private final HistogramaTempo histogramaChegadaAndar = new HistogramaTempo();
+	private final HistogramaTempo histogramaTotalPercurso = new HistogramaTempo();
+
+	public void registrarChegada() {
+		this.quantidadeChegadas += 1;
+	}
+
+	/**
+	 * @param esperaFila
+	 *            tempo entre chegada e embarque
+	 */
+	public void registrarEmbarque(long esperaFila) {
+		this.quantidadeEmbarques += 1;
+		this.somaEsperaFila += esperaFila;
+		this.maiorEsperaFila = Math.max(this.maiorEsperaFila, esperaFila);
+		this.histogramaEsperaFila.registrar(esperaFila);
+	}
+
+	/**
+	 * @param esperaFila
+	 *            tempo entre chegada e embarque
+	 * @param chegadaAndar
+	 *            tempo entre embarque e desembarque
+	 */
+	public void registrarDesembarque(long esperaFila, long chegadaAndar) {
+		this.quantidadeDesembarques += 1;
+		this.somaChegadaAndar += chegadaAndar;
+		this.maiorChegadaAndar = Math.max(this.maiorChegadaAndar, chegadaAndar);
+		this.somaTotalPercurso += esperaFila + chegadaAndar;
+		this.maiorTotalPercurso = Math.max(this.maiorTotalPercurso, esperaFila + chegadaAndar);
+		this.histogramaChegadaAndar.registrar(chegadaAndar);
+		this.histogramaTotalPercurso.registrar(esperaFila + chegadaAndar);
+	}
+
+	/**
+	 * Acumula as estatísticas de outra simulação, por exemplo de outro prédio,
+	 * como se as pessoas tivessem sido registradas nesta
+	 * 
+	 * @param outra
+	 */
+	public void adicionar(EstatisticasSimulacao outra) {
+		this.quantidadeChegadas += outra.quantidadeChegadas;
+		this.quantidadeEmbarques += outra.quantidadeEmbarques;
+		this.quantidadeDesembarques += outra.quantidadeDesembarques;
+		this.somaEsperaFila += outra.somaEsperaFila;
+		this.maiorEsperaFila = Math.max(this.maiorEsperaFila, outra.maiorEsperaFila);
+		this.somaChegadaAndar += outra.somaChegadaAndar;
+		this.maiorChegadaAndar = Math.max(this.maiorChegadaAndar, outra.maiorChegadaAndar);
+		this.somaTotalPercurso += outra.somaTotalPercurso;
+		this.maiorTotalPercurso = Math.max(this.maiorTotalPercurso, outra.maiorTotalPercurso);
+		this.histogramaEsperaFila.adicionar(outra.histogramaEsperaFila);
+		this.histogramaChegadaAndar.adicionar(outra.histogramaChegadaAndar);
+		this.histogramaTotalPercurso.adicionar(outra.histogramaTotalPercurso);
+	}
+
+	public Optional<Duration> getTempoMedioEsperaFila() {
+		return media(this.somaEsperaFila, this.quantidadeEmbarques);
+	}
+
+	public Optional<Duration> getTempoMedioChegadaAndar() {
+		return media(this.somaChegadaAndar, this.quantidadeDesembarques);
+	}
+
+	public Optional<Duration> getTempoMedioTotalPercurso() {
+		return media(this.somaTotalPercurso, this.quantidadeDesembarques);
+	}
+
+	public Optional<Duration> getMaiorTempoEsperaFila() {
+		return maximo(this.maiorEsperaFila, this.quantidadeEmbarques);
+	}
+
+	public Optional<Duration> getMaiorTempoChegadaAndar() {
+		return maximo(this.maiorChegadaAndar, this.quantidadeDesembarques);
+	}
+
+	public Optional<Duration> getMaiorTempoTotalPercurso() {
+		return maximo(this.maiorTotalPercurso, this.quantidadeDesembarques);
+	}
+
+	/**
+	 * @param percentil
+	 *            entre 0 e 100, por exemplo 95 para o p95
+	 * @return
+	 */
+	public Optional<Duration> getPercentilEsperaFila(double percentil) {
+		return this.histogramaEsperaFila.getPercentil(percentil);
+	}
+
+	public Optional<Duration> getPercentilChegadaAndar(double percentil) {
+		return this.histogramaChegadaAndar.getPercentil(percentil);
+	}
+
+	public Optional<Duration> getPercentilTotalPercurso(double percentil) {
+		return this.histogramaTotalPercurso.getPercentil(percentil);
+	}
+
+	public HistogramaTempo getHistogramaEsperaFila() {
+		return histogramaEsperaFila;
+	}
+
+	public HistogramaTempo getHistogramaChegadaAndar() {
+		return histogramaChegadaAndar;
+	}
+
+	public HistogramaTempo getHistogramaTotalPercurso() {
+		return histogramaTotalPercurso;
+	}
+
+	private static Optional<Duration> media(long soma, long quantidade) {
+		return quantidade == 0 ? Optional.empty() : Optional.of(Duration.ofMillis(soma).dividedBy(quantidade));
+	}
+
+	private static Optional<Duration> maximo(long maior, long quantidade) {
+		return quantidade == 0 ? Optional.empty() : Optional.of(Duration.ofMillis(maior));
+	}
+
+	public long getQuantidadeChegadas() {
+		return quantidadeChegadas;
+	}
+
+	public long getQuantidadeEmbarques() {
+		return quantidadeEmbarques;
+	}
+
+	public long getQuantidadeDesembarques() {
+		return quantidadeDesembarques;
+	}
+
+	@Override
+	public String toString() {
+		return "EstatisticasSimulacao [quantidadeChegadas=" + quantidadeChegadas + ", quantidadeEmbarques="
+				+ quantidadeEmbarques + ", quantidadeDesembarques=" + quantidadeDesembarques
+				+ ", tempoMedioEsperaFila=" + getTempoMedioEsperaFila() + ", tempoMedioChegadaAndar="
+				+ getTempoMedioChegadaAndar() + ", tempoMedioTotalPercurso=" + getTempoMedioTotalPercurso() + "]";
+	}
+
+}
@@ -0,0 +1,39 @@
+package jprm.simulador_elevadores;
+
+/**
+ * Evento futuro da simulação, ordenado pelo instante em que ocorre
+ * 
+ * O evento apenas marca um instante em que algo muda na simulação, o
+ * processamento do instante continua sendo feito por
+ * {@link Simulador#processarInstante()} para todos os elevadores
+ */
+public class Evento implements Comparable<Evento> {
+
+	private long instante;
+
+	/**
+	 * Construtor
+	 * 
+	 * @param instante
+	 *            instante em ticks da escala de tempo da simulação
+	 */
+	public Evento(long instante) {
+		super();
+		this.instante = instante;
+	}
+
+	@Override
+	public int compareTo(Evento o) {
+		return Long.compare(this.instante, o.instante);
+	}
+
+	public long getInstante() {
+		return instante;
+	}
+
+	@Override
+	public String toString() {
+		return "Evento [instante=" + instante + "]";
+	}
+
+}
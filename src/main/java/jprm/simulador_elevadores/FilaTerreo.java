@@ -0,0 +1,392 @@
+package jprm.simulador_elevadores;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fila de espera no térreo de um elevador, em buffer circular que cresce
+ * quando cheio. Guarda somente a identificação e o andar de cada pessoa; as
+ * visões ({@link Pessoa}) são recriadas a partir da tabela e do resultado da
+ * primeira pessoa adicionada, portanto todas as pessoas da fila devem ser da
+ * mesma tabela e do mesmo resultado
+ * 
+ * Mantém também um resumo por bloco de embarque (maior andar e quantidade de
+ * andares distintos de cada grupo de {@code tamanhoBloco} pessoas, a partir do
+ * início da fila), atualizado a cada adição e drenagem, para estimar o tempo de
+ * esvaziamento da fila sem percorrê-la
+ */
+public class FilaTerreo {
+
+	private int[] ids;
+	private int[] andares;
+	private int inicio;
+	private int tamanho;
+	private PessoaTable tabela;
+	private ResultadoSimulacao resultado;
+
+	private static final int capacidadeInicialDefault = 16;
+
+	// resumo dos blocos de embarque, considerando somente andares <= andarMaximoBlocos
+	private int tamanhoBloco;
+	private int andarMaximoBlocos;
+	private boolean resumoValido;
+	private int[] maioresBlocos = new int[capacidadeInicialDefault];
+	private int[] distintosBlocos = new int[capacidadeInicialDefault];
+	private int inicioBlocos;
+	private int quantidadeBlocos;
+	private long somaMaiores;
+	private long somaDistintos;
+	// pessoas no último bloco (o único que pode não estar completo)
+	private int ocupacaoUltimoBloco;
+	// andares do último bloco: marcas[andar - andarBaseMarcas] == numeroUltimoBloco
+	private int[] marcas = new int[0];
+	private int andarBaseMarcas;
+	private int numeroUltimoBloco;
+
+	public FilaTerreo() {
+		this.ids = new int[capacidadeInicialDefault];
+		this.andares = new int[capacidadeInicialDefault];
+	}
+
+	/**
+	 * Adiciona a pessoa no final da fila
+	 * 
+	 * @param p
+	 */
+	public void adicionar(Pessoa p) {
+		if (this.tabela == null) {
+			this.tabela = p.getTabela();
+			this.resultado = p.getResultado();
+		} else if (this.tabela != p.getTabela() || this.resultado != p.getResultado()) {
+			throw new RuntimeException("A fila do térreo aceita somente pessoas da mesma tabela e resultado: " + p);
+		}
+		if (this.tamanho == this.ids.length) {
+			expandir();
+		}
+		int i = posicao(this.tamanho);
+		this.ids[i] = p.getId();
+		this.andares[i] = p.getAndar();
+		this.tamanho += 1;
+		if (this.resumoValido && p.getAndar() <= this.andarMaximoBlocos) {
+			acrescentarResumo(p.getAndar());
+		}
+	}
+
+	/**
+	 * Embarca as pessoas do início da fila no elevador, até a lotação do
+	 * elevador atingir a capacidade
+	 * 
+	 * @param elevador
+	 * @param capacidade
+	 * @return pessoas embarcadas, na ordem da fila
+	 */
+	public List<Pessoa> drenarPara(Elevador elevador, int capacidade) {
+		int quantidade = Math.min(this.tamanho, capacidade - elevador.getQuantidadeLotacao());
+		if (quantidade <= 0) {
+			return Collections.emptyList();
+		}
+		List<Pessoa> embarcadas = new ArrayList<>(quantidade);
+		int consideradas = 0;
+		for (int k = 0; k < quantidade; k++) {
+			Pessoa p = this.tabela.getPessoa(this.resultado, this.ids[this.inicio]);
+			if (this.andares[this.inicio] <= this.andarMaximoBlocos) {
+				consideradas += 1;
+			}
+			elevador.embarcar(p);
+			embarcadas.add(p);
+			this.inicio = (this.inicio + 1) & (this.ids.length - 1);
+		}
+		this.tamanho -= quantidade;
+		removerResumo(consideradas);
+		return embarcadas;
+	}
+
+	/**
+	 * Estima o tempo para esvaziar a fila com uma pessoa de destino andar
+	 * acrescentada no final: a fila é dividida em blocos de tamanhoBloco pessoas
+	 * (ignorando as de andar acima de andarMaximo) e cada bloco custa a subida
+	 * até o maior andar, uma parada por andar distinto e a descida de volta.
+	 * Custo constante enquanto os parâmetros não mudarem; se mudarem, o resumo é
+	 * refeito percorrendo a fila uma vez
+	 * 
+	 * @param andar
+	 * @param tamanhoBloco
+	 * @param andarMinimo
+	 * @param andarMaximo
+	 * @param periodoEntreAndares
+	 * @param periodoParada
+	 * @return
+	 */
+	public long simularTempoEsvaziamento(int andar, int tamanhoBloco, int andarMinimo, int andarMaximo,
+			long periodoEntreAndares, long periodoParada) {
+		return simularTempoEsvaziamento(andar, 1, tamanhoBloco, andarMinimo, andarMaximo, periodoEntreAndares,
+				periodoParada);
+	}
+
+	/**
+	 * Como {@link #simularTempoEsvaziamento(int, int, int, int, long, long)},
+	 * com um grupo de pessoas para o mesmo andar acrescentado no final: o grupo
+	 * completa o último bloco e as pessoas que sobram formam blocos novos
+	 * 
+	 * @param andar
+	 * @param quantidade
+	 *            pessoas do grupo, ao menos 1
+	 * @param tamanhoBloco
+	 * @param andarMinimo
+	 * @param andarMaximo
+	 * @param periodoEntreAndares
+	 * @param periodoParada
+	 * @return
+	 */
+	public long simularTempoEsvaziamento(int andar, int quantidade, int tamanhoBloco, int andarMinimo,
+			int andarMaximo, long periodoEntreAndares, long periodoParada) {
+		garantirResumo(tamanhoBloco, andarMaximo);
+		long maiores = this.somaMaiores;
+		long distintos = this.somaDistintos;
+		long blocos = this.quantidadeBlocos;
+		int restantes = quantidade;
+		if (this.quantidadeBlocos > 0 && this.ocupacaoUltimoBloco < this.tamanhoBloco) {
+			int maiorUltimo = this.maioresBlocos[posicaoBloco(this.quantidadeBlocos - 1)];
+			if (andar > maiorUltimo) {
+				maiores += andar - maiorUltimo;
+			}
+			if (!marcado(andar)) {
+				distintos += 1;
+			}
+			restantes -= Math.min(restantes, this.tamanhoBloco - this.ocupacaoUltimoBloco);
+		}
+		// blocos novos, cada um com uma única parada no andar
+		long novos = (restantes + this.tamanhoBloco - 1) / this.tamanhoBloco;
+		blocos += novos;
+		maiores += novos * andar;
+		distintos += novos;
+		return 2 * periodoEntreAndares * (maiores - blocos * andarMinimo) + periodoParada * distintos;
+	}
+
+	/**
+	 * Verifica se o último bloco de embarque ainda tem vaga e já possui uma
+	 * pessoa para o andar, ou seja, se uma pessoa para o andar acrescentada no
+	 * final da fila não criaria uma nova parada
+	 * 
+	 * @param andar
+	 * @param tamanhoBloco
+	 * @param andarMaximo
+	 * @return
+	 */
+	public boolean ultimoBlocoPossuiAndar(int andar, int tamanhoBloco, int andarMaximo) {
+		garantirResumo(tamanhoBloco, andarMaximo);
+		return this.quantidadeBlocos > 0 && this.ocupacaoUltimoBloco < this.tamanhoBloco && marcado(andar);
+	}
+
+	/**
+	 * Quantidade de pessoas do último bloco de embarque, se ainda tiver vaga, com
+	 * destino acima do andar: são as pessoas atrasadas por uma nova parada no
+	 * andar
+	 * 
+	 * @param andar
+	 * @param tamanhoBloco
+	 * @param andarMaximo
+	 * @return
+	 */
+	public int contarUltimoBlocoAcima(int andar, int tamanhoBloco, int andarMaximo) {
+		garantirResumo(tamanhoBloco, andarMaximo);
+		if (this.quantidadeBlocos == 0 || this.ocupacaoUltimoBloco == this.tamanhoBloco
+				|| andar >= this.maioresBlocos[posicaoBloco(this.quantidadeBlocos - 1)]) {
+			return 0;
+		}
+		int acima = 0;
+		int restantes = this.ocupacaoUltimoBloco;
+		for (int k = this.tamanho - 1; k >= 0 && restantes > 0; k--) {
+			int a = this.andares[posicao(k)];
+			if (a <= this.andarMaximoBlocos) {
+				restantes -= 1;
+				if (a > andar) {
+					acima += 1;
+				}
+			}
+		}
+		return acima;
+	}
+
+	private void garantirResumo(int tamanhoBloco, int andarMaximo) {
+		if (tamanhoBloco <= 0) {
+			throw new RuntimeException("Tamanho de bloco inválido: " + tamanhoBloco);
+		}
+		if (!this.resumoValido || this.tamanhoBloco != tamanhoBloco || this.andarMaximoBlocos != andarMaximo) {
+			this.tamanhoBloco = tamanhoBloco;
+			this.andarMaximoBlocos = andarMaximo;
+			reconstruirResumo();
+		}
+	}
+
+	private void reconstruirResumo() {
+		this.inicioBlocos = 0;
+		this.quantidadeBlocos = 0;
+		this.somaMaiores = 0;
+		this.somaDistintos = 0;
+		this.ocupacaoUltimoBloco = 0;
+		this.resumoValido = true;
+		for (int k = 0; k < this.tamanho; k++) {
+			int andar = this.andares[posicao(k)];
+			if (andar <= this.andarMaximoBlocos) {
+				acrescentarResumo(andar);
+			}
+		}
+	}
+
+	private void acrescentarResumo(int andar) {
+		if (this.quantidadeBlocos == 0 || this.ocupacaoUltimoBloco == this.tamanhoBloco) {
+			if (this.quantidadeBlocos == this.maioresBlocos.length) {
+				expandirBlocos();
+			}
+			int b = posicaoBloco(this.quantidadeBlocos);
+			this.maioresBlocos[b] = andar;
+			this.distintosBlocos[b] = 1;
+			this.quantidadeBlocos += 1;
+			this.somaMaiores += andar;
+			this.somaDistintos += 1;
+			this.ocupacaoUltimoBloco = 1;
+			novoUltimoBloco();
+			marcar(andar);
+			return;
+		}
+		int b = posicaoBloco(this.quantidadeBlocos - 1);
+		if (andar > this.maioresBlocos[b]) {
+			this.somaMaiores += andar - this.maioresBlocos[b];
+			this.maioresBlocos[b] = andar;
+		}
+		if (!marcado(andar)) {
+			this.distintosBlocos[b] += 1;
+			this.somaDistintos += 1;
+			marcar(andar);
+		}
+		this.ocupacaoUltimoBloco += 1;
+	}
+
+	// retira do resumo as pessoas consideradas que saíram do início da fila
+	private void removerResumo(int consideradas) {
+		if (!this.resumoValido || consideradas == 0) {
+			return;
+		}
+		int ocupacaoPrimeiro = this.quantidadeBlocos == 1 ? this.ocupacaoUltimoBloco : this.tamanhoBloco;
+		if (this.quantidadeBlocos > 0 && consideradas == ocupacaoPrimeiro) {
+			// caso comum: o elevador vazio leva exatamente o primeiro bloco
+			this.somaMaiores -= this.maioresBlocos[this.inicioBlocos];
+			this.somaDistintos -= this.distintosBlocos[this.inicioBlocos];
+			this.inicioBlocos = (this.inicioBlocos + 1) & (this.maioresBlocos.length - 1);
+			this.quantidadeBlocos -= 1;
+			if (this.quantidadeBlocos == 0) {
+				this.ocupacaoUltimoBloco = 0;
+			}
+		} else {
+			// os blocos deixaram de estar alinhados com o início da fila
+			this.resumoValido = false;
+		}
+	}
+
+	private void expandirBlocos() {
+		int capacidade = this.maioresBlocos.length * 2;
+		int[] novosMaiores = new int[capacidade];
+		int[] novosDistintos = new int[capacidade];
+		for (int k = 0; k < this.quantidadeBlocos; k++) {
+			novosMaiores[k] = this.maioresBlocos[posicaoBloco(k)];
+			novosDistintos[k] = this.distintosBlocos[posicaoBloco(k)];
+		}
+		this.maioresBlocos = novosMaiores;
+		this.distintosBlocos = novosDistintos;
+		this.inicioBlocos = 0;
+	}
+
+	private int posicaoBloco(int indice) {
+		return (this.inicioBlocos + indice) & (this.maioresBlocos.length - 1);
+	}
+
+	private void novoUltimoBloco() {
+		if (this.numeroUltimoBloco == Integer.MAX_VALUE) {
+			Arrays.fill(this.marcas, 0);
+			this.numeroUltimoBloco = 0;
+		}
+		this.numeroUltimoBloco += 1;
+	}
+
+	private boolean marcado(int andar) {
+		int i = andar - this.andarBaseMarcas;
+		return i >= 0 && i < this.marcas.length && this.marcas[i] == this.numeroUltimoBloco;
+	}
+
+	private void marcar(int andar) {
+		if (this.marcas.length == 0) {
+			this.andarBaseMarcas = andar;
+			this.marcas = new int[16];
+		} else if (andar < this.andarBaseMarcas) {
+			int deslocamento = this.andarBaseMarcas - andar;
+			int[] novas = new int[this.marcas.length + deslocamento];
+			System.arraycopy(this.marcas, 0, novas, deslocamento, this.marcas.length);
+			this.marcas = novas;
+			this.andarBaseMarcas = andar;
+		} else if (andar - this.andarBaseMarcas >= this.marcas.length) {
+			this.marcas = Arrays.copyOf(this.marcas, Math.max(this.marcas.length * 2, andar - this.andarBaseMarcas + 1));
+		}
+		this.marcas[andar - this.andarBaseMarcas] = this.numeroUltimoBloco;
+	}
+
+	private void expandir() {
+		int capacidade = this.ids.length * 2;
+		int[] novosIds = new int[capacidade];
+		int[] novosAndares = new int[capacidade];
+		int primeiraParte = Math.min(this.tamanho, this.ids.length - this.inicio);
+		System.arraycopy(this.ids, this.inicio, novosIds, 0, primeiraParte);
+		System.arraycopy(this.andares, this.inicio, novosAndares, 0, primeiraParte);
+		System.arraycopy(this.ids, 0, novosIds, primeiraParte, this.tamanho - primeiraParte);
+		System.arraycopy(this.andares, 0, novosAndares, primeiraParte, this.tamanho - primeiraParte);
+		this.ids = novosIds;
+		this.andares = novosAndares;
+		this.inicio = 0;
+	}
+
+	// a capacidade é sempre potência de 2
+	private int posicao(int indice) {
+		return (this.inicio + indice) & (this.ids.length - 1);
+	}
+
+	public int tamanho() {
+		return tamanho;
+	}
+
+	public boolean isEmpty() {
+		return tamanho == 0;
+	}
+
+	/**
+	 * Andar da pessoa na posição indice da fila (0 é o início)
+	 * 
+	 * @param indice
+	 * @return
+	 */
+	public int getAndar(int indice) {
+		verificarIndice(indice);
+		return this.andares[posicao(indice)];
+	}
+
+	public Pessoa getPessoa(int indice) {
+		verificarIndice(indice);
+		return this.tabela.getPessoa(this.resultado, this.ids[posicao(indice)]);
+	}
+
+	private void verificarIndice(int indice) {
+		if (indice < 0 || indice >= this.tamanho) {
+			throw new IndexOutOfBoundsException("Índice: " + indice + ", tamanho: " + this.tamanho);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("FilaTerreo [tamanho=").append(tamanho).append(", andares=");
+		int[] a = new int[tamanho];
+		Arrays.setAll(a, this::getAndar);
+		return sb.append(Arrays.toString(a)).append("]").toString();
+	}
+
+}
@@ -0,0 +1,342 @@
+package jprm.simulador_elevadores;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Gerador de chegadas sintéticas, lidas pelo simulador como qualquer outro
+ * {@link CursorChegadas}, sem arquivo intermediário e sem guardar as chegadas
+ * já geradas: a memória depende somente da quantidade de andares, então o
+ * trajeto pode ter dezenas de milhões de pessoas
+ *
+ * As chegadas são um processo de Poisson com a taxa do {@link PerfilChegadas}
+ * variando ao longo do dia, gerado por rejeição: candidatos são gerados com a
+ * taxa máxima do perfil e aceitos com probabilidade taxa / taxa máxima. O
+ * andar de destino é sorteado com peso proporcional à população de cada andar,
+ * por uma tabela de alias. A mesma semente gera sempre as mesmas chegadas
+ *
+ * uso: GeradorChegadas destino.csv|destino.bin [populacao=1000] [andares=25]
+ * [dias=1] [semente=1]
+ */
+public class GeradorChegadas implements CursorChegadas {
+
+	private static final Logger logger = LoggerFactory.getLogger(GeradorChegadas.class);
+
+	public static final String NOME = "pessoa";
+
+	private static final Duration resolucaoDefault = Duration.ofSeconds(1l);
+
+	// andar mínimo de destino, o térreo é o andar 1
+	private static final int andarMinimoDefault = 2;
+
+	private static final int andarMaximoDefault = 25;
+
+	private static final DateTimeFormatter formatoCsv = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private final PerfilChegadas perfil;
+	private final long semente;
+	private final long inicio;
+	private final long fim;
+
+	private long quantidadeMaxima;
+	private long resolucao;
+
+	// tabela de alias dos andares de destino
+	private int andarMinimo;
+	private double[] probabilidades;
+	private int[] alias;
+
+	private SplittableRandom aleatorio;
+	private double instante;
+	private long gerados;
+	private int andar;
+	private long chegada;
+
+	/**
+	 * Construtor, com andares de destino uniformes entre 2 e 25 e resolução de
+	 * 1s
+	 *
+	 * @param perfil
+	 * @param inicio
+	 *            instante da primeira chegada possível
+	 * @param duracao
+	 *            não há chegadas a partir de inicio + duracao
+	 * @param semente
+	 */
+	public GeradorChegadas(PerfilChegadas perfil, LocalDateTime inicio, Duration duracao, long semente) {
+		super();
+		this.perfil = perfil;
+		this.semente = semente;
+		this.inicio = EscalaTempo.paraMilis(inicio);
+		this.fim = this.inicio + duracao.toMillis();
+		this.quantidadeMaxima = Long.MAX_VALUE;
+		this.resolucao = resolucaoDefault.toMillis();
+		setAndares(andarMinimoDefault, andarMaximoDefault);
+		reiniciar();
+	}
+
+	/**
+	 * Volta ao início do trajeto, as mesmas chegadas são geradas novamente
+	 */
+	public void reiniciar() {
+		this.aleatorio = new SplittableRandom(this.semente);
+		this.instante = this.inicio;
+		this.gerados = 0l;
+	}
+
+	@Override
+	public boolean avancar() {
+		if (this.gerados >= this.quantidadeMaxima) {
+			return false;
+		}
+		double taxaMaxima = this.perfil.getTaxaMaxima();
+		if (taxaMaxima <= 0d) {
+			return false;
+		}
+		double taxaMaximaMilis = this.perfil.getTaxaMaximaMilis();
+		do {
+			this.instante += -Math.log(1d - this.aleatorio.nextDouble()) / taxaMaximaMilis;
+			if (this.instante >= this.fim) {
+				return false;
+			}
+		} while (this.aleatorio.nextDouble() * taxaMaxima >= this.perfil.taxa((long) this.instante));
+
+		// arredondar para baixo mantém as chegadas ordenadas
+		this.chegada = Math.floorDiv((long) this.instante, this.resolucao) * this.resolucao;
+		int i = this.aleatorio.nextInt(this.probabilidades.length);
+		this.andar = this.andarMinimo
+				+ (this.aleatorio.nextDouble() < this.probabilidades[i] ? i : this.alias[i]);
+		this.gerados += 1;
+		return true;
+	}
+
+	/**
+	 * Identificação sequencial, limitada a Integer.MAX_VALUE pessoas
+	 */
+	@Override
+	public int getId() {
+		return (int) (this.gerados - 1);
+	}
+
+	@Override
+	public String getNome() {
+		return NOME;
+	}
+
+	@Override
+	public int getAndar() {
+		return this.andar;
+	}
+
+	@Override
+	public long getChegada() {
+		return this.chegada;
+	}
+
+	/**
+	 * Andares de destino uniformes
+	 *
+	 * @param andarMinimo
+	 * @param andarMaximo
+	 * @return o próprio gerador
+	 */
+	public GeradorChegadas setAndares(int andarMinimo, int andarMaximo) {
+		if (andarMaximo < andarMinimo) {
+			throw new RuntimeException("Andar máximo menor que o mínimo: " + andarMaximo + " < " + andarMinimo);
+		}
+		int[] populacao = new int[andarMaximo - andarMinimo + 1];
+		Arrays.fill(populacao, 1);
+		return setPopulacaoAndares(andarMinimo, populacao);
+	}
+
+	/**
+	 * Andares de destino com peso proporcional à população de cada andar
+	 *
+	 * @param andarMinimo
+	 *            andar de populacao[0]
+	 * @param populacao
+	 *            população de cada andar a partir de andarMinimo, andares sem
+	 *            população nunca são sorteados
+	 * @return o próprio gerador
+	 */
+	public GeradorChegadas setPopulacaoAndares(int andarMinimo, int[] populacao) {
+		int n = populacao.length;
+		long total = 0l;
+		for (int p : populacao) {
+			if (p < 0) {
+				throw new RuntimeException("População negativa: " + p);
+			}
+			total += p;
+		}
+		if (total == 0l) {
+			throw new RuntimeException("Nenhum andar com população");
+		}
+
+		// método de Vose: cada posição guarda a probabilidade do próprio andar
+		// e o andar que completa a posição
+		double[] probabilidades = new double[n];
+		int[] alias = new int[n];
+		int[] pequenos = new int[n];
+		int[] grandes = new int[n];
+		int quantidadePequenos = 0;
+		int quantidadeGrandes = 0;
+		for (int i = 0; i < n; i++) {
+			probabilidades[i] = (double) populacao[i] * n / total;
+			if (probabilidades[i] < 1d) {
+				pequenos[quantidadePequenos++] = i;
+			} else {
+				grandes[quantidadeGrandes++] = i;
+			}
+		}
+		while (quantidadePequenos > 0 && quantidadeGrandes > 0) {
+			int p = pequenos[--quantidadePequenos];
+			int g = grandes[quantidadeGrandes - 1];
+			alias[p] = g;
+			probabilidades[g] -= 1d - probabilidades[p];
+			if (probabilidades[g] < 1d) {
+				quantidadeGrandes -= 1;
+				pequenos[quantidadePequenos++] = g;
+			}
+		}
+		// restos por arredondamento
+		while (quantidadeGrandes > 0) {
+			probabilidades[grandes[--quantidadeGrandes]] = 1d;
+		}
+		while (quantidadePequenos > 0) {
+			probabilidades[pequenos[--quantidadePequenos]] = 1d;
+		}
+
+		this.andarMinimo = andarMinimo;
+		this.probabilidades = probabilidades;
+		this.alias = alias;
+		return this;
+	}
+
+	public long getQuantidadeMaxima() {
+		return quantidadeMaxima;
+	}
+
+	/**
+	 * Encerra o trajeto após a quantidade de pessoas, mesmo antes do fim da
+	 * duração
+	 *
+	 * @param quantidadeMaxima
+	 * @return o próprio gerador
+	 */
+	public GeradorChegadas setQuantidadeMaxima(long quantidadeMaxima) {
+		this.quantidadeMaxima = quantidadeMaxima;
+		return this;
+	}
+
+	public Duration getResolucao() {
+		return Duration.ofMillis(resolucao);
+	}
+
+	/**
+	 * Resolução dos instantes de chegada, o padrão é 1s como no elevadores.csv
+	 *
+	 * @param resolucao
+	 *            múltiplo positivo de 1ms
+	 * @return o próprio gerador
+	 */
+	public GeradorChegadas setResolucao(Duration resolucao) {
+		if (resolucao.toMillis() < 1) {
+			throw new RuntimeException("A resolução deve ser um múltiplo positivo de 1ms: " + resolucao);
+		}
+		this.resolucao = resolucao.toMillis();
+		return this;
+	}
+
+	public PerfilChegadas getPerfil() {
+		return perfil;
+	}
+
+	public long getSemente() {
+		return semente;
+	}
+
+	/**
+	 * Escreve as chegadas do cursor no formato do elevadores.csv (nome, instante
+	 * e andar), uma linha por vez, e fecha o cursor ao final. Para o formato
+	 * binário ver {@link TrajetoBinario#escrever(CursorChegadas, Path, boolean)}
+	 *
+	 * @param cursor
+	 * @param destino
+	 * @return quantidade de pessoas escritas
+	 * @throws IOException
+	 */
+	public static long escreverCsv(CursorChegadas cursor, Path destino) throws IOException {
+		long quantidade = 0l;
+		try (CursorChegadas c = cursor; BufferedWriter w = Files.newBufferedWriter(destino)) {
+			while (c.avancar()) {
+				String nome = c.getNome() == null ? "" : c.getNome().replace("\"", "\"\"");
+				w.write('"');
+				w.write(nome);
+				w.write("\",\"");
+				w.write(formatoCsv.format(EscalaTempo.deMilis(c.getChegada())));
+				w.write("\",");
+				w.write(Integer.toString(c.getAndar()));
+				w.newLine();
+				quantidade += 1;
+			}
+		}
+		return quantidade;
+	}
+
+	/**
+	 * Gera um dia útil ({@link PerfilChegadas#diaUtil(int)}) a partir de 31/08/2016,
+	 * o mesmo dia do elevadores.csv, em CSV ou no formato binário pela extensão
+	 * do destino
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			logger.error("uso: GeradorChegadas destino.csv|destino.bin [populacao=1000] [andares=25] [dias=1] "
+					+ "[semente=1]");
+			return;
+		}
+		Map<String, String> opcoes = new HashMap<>();
+		for (int i = 1; i < args.length; i++) {
+			int j = args[i].indexOf('=');
+			if (j > 0) {
+				opcoes.put(args[i].substring(0, j), args[i].substring(j + 1));
+			}
+		}
+		int populacao = Integer.parseInt(opcoes.getOrDefault("populacao", "1000"));
+		int andares = Integer.parseInt(opcoes.getOrDefault("andares", String.valueOf(andarMaximoDefault)));
+		int dias = Integer.parseInt(opcoes.getOrDefault("dias", "1"));
+		long semente = Long.parseLong(opcoes.getOrDefault("semente", "1"));
+
+		GeradorChegadas gerador = new GeradorChegadas(PerfilChegadas.diaUtil(populacao),
+				LocalDateTime.of(2016, 8, 31, 0, 0), Duration.ofDays(dias), semente)
+						.setAndares(andarMinimoDefault, andares);
+		Path destino = Paths.get(args[0]);
+		try {
+			long quantidade = destino.toString().endsWith(".bin") ? TrajetoBinario.escrever(gerador, destino, false)
+					: escreverCsv(gerador, destino);
+			logger.info(String.format("Geradas %d pessoas em %s", quantidade, destino));
+		} catch (IOException e) {
+			logger.error(String.format("Erro ao escrever %s", destino), e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "GeradorChegadas [perfil=" + perfil + ", semente=" + semente + ", gerados=" + gerados + "]";
+	}
+
+}
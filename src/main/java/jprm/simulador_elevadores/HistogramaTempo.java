@@ -0,0 +1,145 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histograma de tempos com baldes logarítmicos de memória fixa, no estilo do
+ * HdrHistogram: valores menores que 128 unidades são exatos, e cada potência
+ * de 2 acima disso é dividida em 64 baldes lineares, com erro relativo máximo
+ * de 1/64 nos percentis
+ * 
+ * Os tempos são registrados na unidade do histograma, milissegundos por padrão
+ */
+public class HistogramaTempo {
+
+	// baldes lineares por potência de 2
+	private static final int bitsSubBaldes = 6;
+	private static final int subBaldes = 1 << bitsSubBaldes;
+
+	// valores exatos até 2 * subBaldes, depois um grupo de subBaldes por
+	// potência de 2 até 2^62
+	private static final int quantidadeBaldes = (64 - bitsSubBaldes) * subBaldes;
+
+	private final TimeUnit unidade;
+	private final long[] contagens;
+	private long quantidade;
+	private long maior;
+
+	public HistogramaTempo() {
+		this(TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Construtor
+	 * 
+	 * @param unidade
+	 *            unidade dos valores registrados, que também é a resolução
+	 *            exata dos menores valores
+	 */
+	public HistogramaTempo(TimeUnit unidade) {
+		this.unidade = unidade;
+		this.contagens = new long[quantidadeBaldes];
+	}
+
+	/**
+	 * @param valor
+	 *            tempo na unidade do histograma, valores negativos contam como
+	 *            zero
+	 */
+	public void registrar(long valor) {
+		long v = Math.max(0l, valor);
+		this.contagens[indice(v)] += 1;
+		this.quantidade += 1;
+		this.maior = Math.max(this.maior, v);
+	}
+
+	/**
+	 * Soma as contagens do outro histograma
+	 * 
+	 * @param outro
+	 */
+	public void adicionar(HistogramaTempo outro) {
+		if (outro.unidade != this.unidade) {
+			throw new RuntimeException("Histogramas com unidades diferentes: " + this.unidade + ", " + outro.unidade);
+		}
+		for (int i = 0; i < quantidadeBaldes; i++) {
+			this.contagens[i] += outro.contagens[i];
+		}
+		this.quantidade += outro.quantidade;
+		this.maior = Math.max(this.maior, outro.maior);
+	}
+
+	private static int indice(long v) {
+		if (v < 2 * subBaldes) {
+			return (int) v;
+		}
+		// deslocamento que leva v para o intervalo [subBaldes, 2 * subBaldes)
+		int deslocamento = 63 - Long.numberOfLeadingZeros(v) - bitsSubBaldes;
+		return deslocamento * subBaldes + (int) (v >>> deslocamento);
+	}
+
+	/**
+	 * Maior valor que pertence ao balde
+	 */
+	private static long maiorValor(int indice) {
+		if (indice < 2 * subBaldes) {
+			return indice;
+		}
+		int deslocamento = indice / subBaldes - 1;
+		long menor = (long) (indice - deslocamento * subBaldes) << deslocamento;
+		return menor + (1l << deslocamento) - 1;
+	}
+
+	/**
+	 * Valor abaixo do qual (inclusive) estão ao menos percentil% dos valores
+	 * registrados
+	 * 
+	 * @param percentil
+	 *            entre 0 e 100
+	 * @return vazio se não houver valores registrados
+	 */
+	public Optional<Duration> getPercentil(double percentil) {
+		long valor = getPercentilValor(percentil);
+		return valor < 0 ? Optional.empty() : Optional.of(Duration.ofNanos(this.unidade.toNanos(valor)));
+	}
+
+	/**
+	 * Como {@link #getPercentil(double)}, na unidade do histograma
+	 * 
+	 * @param percentil
+	 *            entre 0 e 100
+	 * @return -1 se não houver valores registrados
+	 */
+	public long getPercentilValor(double percentil) {
+		if (this.quantidade == 0) {
+			return -1l;
+		}
+		long alvo = Math.max(1l, (long) Math.ceil(Math.min(100d, percentil) / 100d * this.quantidade));
+		long acumulado = 0;
+		for (int i = 0; i < quantidadeBaldes; i++) {
+			acumulado += this.contagens[i];
+			if (acumulado >= alvo) {
+				return Math.min(maiorValor(i), this.maior);
+			}
+		}
+		return this.maior;
+	}
+
+	public long getQuantidade() {
+		return quantidade;
+	}
+
+	public TimeUnit getUnidade() {
+		return unidade;
+	}
+
+	@Override
+	public String toString() {
+		return "p50=" + Utilitarios.formatar(getPercentil(50d)) + ", p90=" + Utilitarios.formatar(getPercentil(90d)) + ", p95="
+				+ Utilitarios.formatar(getPercentil(95d)) + ", p99=" + Utilitarios.formatar(getPercentil(99d)) + ", p99.9="
+				+ Utilitarios.formatar(getPercentil(99.9d));
+	}
+
+}
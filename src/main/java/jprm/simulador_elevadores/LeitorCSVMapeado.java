@@ -0,0 +1,323 @@
+package jprm.simulador_elevadores;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.supercsv.io.CsvListReader;
+import org.supercsv.io.ICsvListReader;
+import org.supercsv.prefs.CsvPreference;
+
+/**
+ * Leitor de CSV de pessoas que mapeia o arquivo em memória e o divide em
+ * blocos alinhados em quebras de linha, lidos em paralelo em um ForkJoinPool
+ * 
+ * Linhas simples (campos sem aspas internas) são interpretadas diretamente
+ * dos bytes, incluindo o instante no formato "yyyy-MM-dd HH:mm:ss" e o
+ * andar, as demais linhas são interpretadas pelo SuperCSV. O resultado é
+ * idêntico à leitura sequencial de {@link PessoaLoader}
+ */
+public class LeitorCSVMapeado {
+
+	private final Path arquivo;
+	private final DateTimeFormatter dateTimeFormat;
+	private final boolean formatoPadrao;
+	private final Charset charset;
+	private final int tamanhoMinimoBloco;
+
+	private static final byte ASPAS = '"';
+	private static final byte VIRGULA = ',';
+	private static final byte QUEBRA_LINHA = '\n';
+	private static final byte RETORNO = '\r';
+
+	/**
+	 * Construtor
+	 * 
+	 * @param arquivo
+	 * @param dateTimeFormat
+	 * @param formatoPadrao
+	 *            true se dateTimeFormat for o padrão "yyyy-MM-dd HH:mm:ss",
+	 *            habilitando a interpretação direta dos bytes
+	 * @param tamanhoMinimoBloco
+	 */
+	public LeitorCSVMapeado(Path arquivo, DateTimeFormatter dateTimeFormat, boolean formatoPadrao,
+			int tamanhoMinimoBloco) {
+		super();
+		this.arquivo = arquivo;
+		this.dateTimeFormat = dateTimeFormat;
+		this.formatoPadrao = formatoPadrao;
+		// mesmo charset do InputStreamReader usado na leitura sequencial
+		this.charset = Charset.defaultCharset();
+		this.tamanhoMinimoBloco = Math.max(tamanhoMinimoBloco, 1);
+	}
+
+	/**
+	 * Lê o arquivo em paralelo
+	 * 
+	 * @param pool
+	 * @return tabela de pessoas, ou nulo se o arquivo tiver campos com quebra
+	 *         de linha entre aspas (a divisão em blocos não é possível)
+	 * @throws IOException
+	 */
+	public PessoaTable ler(ForkJoinPool pool) throws IOException {
+		try (FileChannel canal = FileChannel.open(this.arquivo, StandardOpenOption.READ)) {
+			List<long[]> blocos = dividirBlocos(canal, pool.getParallelism());
+			List<ForkJoinTask<PessoaTable>> tarefas = new ArrayList<>(blocos.size());
+			for (long[] bloco : blocos) {
+				tarefas.add(pool.submit(() -> lerBloco(canal, bloco[0], bloco[1])));
+			}
+			List<PessoaTable> tabelas = new ArrayList<>(tarefas.size());
+			for (ForkJoinTask<PessoaTable> tarefa : tarefas) {
+				PessoaTable tabela = tarefa.join();
+				if (tabela == null) {
+					return null;
+				}
+				tabelas.add(tabela);
+			}
+			return PessoaTable.concatenar(tabelas);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Divide o arquivo em blocos [inicio, fim) terminados em quebra de linha
+	 * 
+	 * @param canal
+	 * @param paralelismo
+	 * @return
+	 * @throws IOException
+	 */
+	private List<long[]> dividirBlocos(FileChannel canal, int paralelismo) throws IOException {
+		long tamanho = canal.size();
+		// blocos menores que 2GB, limite de um MappedByteBuffer
+		long tamanhoBloco = Math.min(Math.max(this.tamanhoMinimoBloco, tamanho / (4l * paralelismo)),
+				Integer.MAX_VALUE / 2);
+		List<long[]> blocos = new ArrayList<>();
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long inicio = 0;
+		while (inicio < tamanho) {
+			long fim = Math.min(inicio + tamanhoBloco, tamanho);
+			// avançar até a próxima quebra de linha
+			while (fim < tamanho) {
+				buffer.clear();
+				int lidos = canal.read(buffer, fim);
+				int quebra = -1;
+				for (int i = 0; i < lidos && quebra < 0; i++) {
+					if (buffer.get(i) == QUEBRA_LINHA) {
+						quebra = i;
+					}
+				}
+				if (quebra >= 0) {
+					fim += quebra + 1;
+					break;
+				}
+				fim += lidos;
+			}
+			blocos.add(new long[] { inicio, fim });
+			inicio = fim;
+		}
+		return blocos;
+	}
+
+	private PessoaTable lerBloco(FileChannel canal, long inicio, long fim) {
+		MappedByteBuffer buffer;
+		try {
+			buffer = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		PessoaTable tabela = new PessoaTable(Math.max(16, (int) ((fim - inicio) / 48)));
+		int[] campos = new int[6];
+		int limite = buffer.limit();
+		int inicioLinha = 0;
+		while (inicioLinha < limite) {
+			int fimLinha = inicioLinha;
+			int quantidadeAspas = 0;
+			while (fimLinha < limite && buffer.get(fimLinha) != QUEBRA_LINHA) {
+				if (buffer.get(fimLinha) == ASPAS) {
+					quantidadeAspas += 1;
+				}
+				fimLinha += 1;
+			}
+			int proximaLinha = fimLinha + 1;
+			if (fimLinha > inicioLinha && buffer.get(fimLinha - 1) == RETORNO) {
+				fimLinha -= 1;
+			}
+			if (quantidadeAspas % 2 != 0) {
+				// campo com quebra de linha entre aspas
+				return null;
+			}
+			if (fimLinha > inicioLinha && !lerLinhaSimples(buffer, inicioLinha, fimLinha, campos, tabela)) {
+				lerLinhaSuperCSV(buffer, inicioLinha, fimLinha, tabela);
+			}
+			inicioLinha = proximaLinha;
+		}
+		return tabela;
+	}
+
+	/**
+	 * Interpreta a linha diretamente dos bytes se os três primeiros campos
+	 * forem simples: não vazios, sem aspas ou inteiramente entre aspas sem
+	 * aspas internas
+	 * 
+	 * @return false se a linha deve ser interpretada pelo SuperCSV
+	 */
+	private boolean lerLinhaSimples(ByteBuffer buffer, int inicio, int fim, int[] campos, PessoaTable tabela) {
+		int posicao = inicio;
+		for (int campo = 0; campo < 3; campo++) {
+			if (posicao >= fim) {
+				return false;
+			}
+			int inicioCampo = posicao;
+			int fimCampo;
+			if (buffer.get(posicao) == ASPAS) {
+				inicioCampo += 1;
+				fimCampo = inicioCampo;
+				while (fimCampo < fim && buffer.get(fimCampo) != ASPAS) {
+					fimCampo += 1;
+				}
+				posicao = fimCampo + 1;
+				if (fimCampo >= fim || (posicao < fim && buffer.get(posicao) != VIRGULA)) {
+					return false;
+				}
+			} else {
+				fimCampo = inicioCampo;
+				while (fimCampo < fim && buffer.get(fimCampo) != VIRGULA) {
+					if (buffer.get(fimCampo) == ASPAS) {
+						return false;
+					}
+					fimCampo += 1;
+				}
+				posicao = fimCampo;
+			}
+			if (fimCampo == inicioCampo) {
+				return false;
+			}
+			campos[campo * 2] = inicioCampo;
+			campos[campo * 2 + 1] = fimCampo;
+			// pular a vírgula
+			posicao += 1;
+		}
+
+		int andar = lerInteiro(buffer, campos[4], campos[5]);
+		if (andar < 0) {
+			return false;
+		}
+		long chegada = this.formatoPadrao ? lerInstantePadrao(buffer, campos[2], campos[3]) : Long.MIN_VALUE;
+		if (chegada == Long.MIN_VALUE) {
+			return false;
+		}
+		tabela.adicionar(lerTexto(buffer, campos[0], campos[1]), andar, chegada);
+		return true;
+	}
+
+	private void lerLinhaSuperCSV(ByteBuffer buffer, int inicio, int fim, PessoaTable tabela) {
+		try (ICsvListReader listReader = new CsvListReader(new StringReader(lerTexto(buffer, inicio, fim)),
+				CsvPreference.STANDARD_PREFERENCE)) {
+			List<String> tokens = listReader.read();
+			if (tokens != null && tokens.size() >= 3) {
+				// nome, instante, andar
+				int andar = Integer.parseInt(tokens.get(2));
+				LocalDateTime instante = LocalDateTime.parse(tokens.get(1), this.dateTimeFormat);
+				tabela.adicionar(tokens.get(0), andar, instante);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private String lerTexto(ByteBuffer buffer, int inicio, int fim) {
+		byte[] bytes = new byte[fim - inicio];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(inicio + i);
+		}
+		return new String(bytes, this.charset);
+	}
+
+	/**
+	 * Lê um inteiro não negativo de até 9 dígitos
+	 * 
+	 * @return -1 se o campo não for um inteiro simples
+	 */
+	private static int lerInteiro(ByteBuffer buffer, int inicio, int fim) {
+		if (fim - inicio > 9) {
+			return -1;
+		}
+		int valor = 0;
+		for (int i = inicio; i < fim; i++) {
+			int digito = buffer.get(i) - '0';
+			if (digito < 0 || digito > 9) {
+				return -1;
+			}
+			valor = valor * 10 + digito;
+		}
+		return valor;
+	}
+
+	/**
+	 * Lê um instante no formato "yyyy-MM-dd HH:mm:ss", retornando
+	 * milissegundos (UTC)
+	 * 
+	 * @return Long.MIN_VALUE se o campo não estiver no formato ou não for uma
+	 *         data válida
+	 */
+	private static long lerInstantePadrao(ByteBuffer buffer, int inicio, int fim) {
+		if (fim - inicio != 19 || buffer.get(inicio + 4) != '-' || buffer.get(inicio + 7) != '-'
+				|| buffer.get(inicio + 10) != ' ' || buffer.get(inicio + 13) != ':'
+				|| buffer.get(inicio + 16) != ':') {
+			return Long.MIN_VALUE;
+		}
+		int ano = lerInteiro(buffer, inicio, inicio + 4);
+		int mes = lerInteiro(buffer, inicio + 5, inicio + 7);
+		int dia = lerInteiro(buffer, inicio + 8, inicio + 10);
+		int hora = lerInteiro(buffer, inicio + 11, inicio + 13);
+		int minuto = lerInteiro(buffer, inicio + 14, inicio + 16);
+		int segundo = lerInteiro(buffer, inicio + 17, inicio + 19);
+		if (ano < 1 || mes < 1 || mes > 12 || dia < 1 || dia > diasNoMes(ano, mes) || hora < 0 || hora > 23
+				|| minuto < 0 || minuto > 59 || segundo < 0 || segundo > 59) {
+			return Long.MIN_VALUE;
+		}
+		return ((diasDesdeEpoca(ano, mes, dia) * 24 + hora) * 60 + minuto) * 60000l + segundo * 1000l;
+	}
+
+	private static int diasNoMes(int ano, int mes) {
+		switch (mes) {
+		case 2:
+			return (ano % 4 == 0 && (ano % 100 != 0 || ano % 400 == 0)) ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+
+	/**
+	 * Dias desde 1970-01-01 no calendário gregoriano proléptico, mesmo
+	 * resultado de LocalDate.toEpochDay() sem criar objetos
+	 */
+	private static long diasDesdeEpoca(int ano, int mes, int dia) {
+		long a = mes <= 2 ? ano - 1 : ano;
+		long era = Math.floorDiv(a, 400);
+		long anoDaEra = a - era * 400;
+		long diaDoAno = (153 * (mes > 2 ? mes - 3 : mes + 9) + 2) / 5 + dia - 1;
+		long diaDaEra = anoDaEra * 365 + anoDaEra / 4 - anoDaEra / 100 + diaDoAno;
+		return era * 146097 + diaDaEra - 719468;
+	}
+
+}
@@ -0,0 +1,154 @@
+package jprm.simulador_elevadores;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cursor sobre um arquivo no formato {@link TrajetoBinario}, mapeado em
+ * memória. As chegadas e andares são lidos diretamente do arquivo a cada
+ * avanço, sem criar objetos por pessoa
+ */
+public class LeitorTrajetoBinario implements CursorChegadas {
+
+	private final int quantidade;
+	private final int larguraAndar;
+	private final long unidade;
+	private final ByteBuffer andares;
+	private final ByteBuffer chegadas;
+	private final ByteBuffer indicesNomes;
+	private final String[] dicionarioNomes;
+
+	private int id;
+	private long chegada;
+	private String nome;
+
+	/**
+	 * Abre o arquivo, o canal pode ser fechado logo após o mapeamento
+	 * 
+	 * @param arquivo
+	 * @throws IOException
+	 */
+	public LeitorTrajetoBinario(Path arquivo) throws IOException {
+		try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+			ByteBuffer cabecalho = mapear(canal, 0, TrajetoBinario.TAMANHO_CABECALHO);
+			if (cabecalho.getInt() != TrajetoBinario.ASSINATURA) {
+				throw new IOException("Arquivo não está no formato binário de chegadas: " + arquivo);
+			}
+			byte versao = cabecalho.get();
+			if (versao != TrajetoBinario.VERSAO) {
+				throw new IOException("Versão do formato binário não suportada: " + versao);
+			}
+			this.larguraAndar = cabecalho.get();
+			boolean possuiNomes = (cabecalho.get() & TrajetoBinario.FLAG_NOMES) != 0;
+			cabecalho.get();
+			this.quantidade = cabecalho.getInt();
+			this.unidade = cabecalho.getInt();
+			this.chegada = cabecalho.getLong();
+			long posicaoChegadas = cabecalho.getLong();
+			long posicaoNomes = cabecalho.getLong();
+
+			long fimChegadas = possuiNomes ? posicaoNomes : canal.size();
+			this.andares = mapear(canal, TrajetoBinario.TAMANHO_CABECALHO,
+					posicaoChegadas - TrajetoBinario.TAMANHO_CABECALHO);
+			this.chegadas = mapear(canal, posicaoChegadas, fimChegadas - posicaoChegadas);
+			if (possuiNomes) {
+				ByteBuffer nomes = mapear(canal, posicaoNomes, canal.size() - posicaoNomes);
+				this.dicionarioNomes = new String[nomes.getInt() + 1];
+				for (int i = 1; i < this.dicionarioNomes.length; i++) {
+					byte[] bytes = new byte[(int) lerVarint(nomes)];
+					nomes.get(bytes);
+					this.dicionarioNomes[i] = new String(bytes, StandardCharsets.UTF_8);
+				}
+				this.indicesNomes = nomes.slice();
+			} else {
+				this.dicionarioNomes = null;
+				this.indicesNomes = null;
+			}
+		}
+		this.id = -1;
+	}
+
+	private static ByteBuffer mapear(FileChannel canal, long posicao, long tamanho) throws IOException {
+		if (tamanho > Integer.MAX_VALUE) {
+			throw new IOException("Bloco do arquivo binário maior que 2GB");
+		}
+		return canal.map(FileChannel.MapMode.READ_ONLY, posicao, tamanho);
+	}
+
+	/**
+	 * Lê todas as chegadas para uma tabela
+	 * 
+	 * @param arquivo
+	 * @return
+	 * @throws IOException
+	 */
+	public static PessoaTable lerTabela(Path arquivo) throws IOException {
+		try (LeitorTrajetoBinario leitor = new LeitorTrajetoBinario(arquivo)) {
+			PessoaTable tabela = new PessoaTable(leitor.quantidade);
+			while (leitor.avancar()) {
+				tabela.adicionar(leitor.getNome(), leitor.getAndar(), leitor.getChegada());
+			}
+			return tabela;
+		}
+	}
+
+	@Override
+	public boolean avancar() {
+		if (this.id + 1 >= this.quantidade) {
+			return false;
+		}
+		this.id += 1;
+		this.chegada += lerVarint(this.chegadas) * this.unidade;
+		if (this.indicesNomes != null) {
+			this.nome = this.dicionarioNomes[(int) lerVarint(this.indicesNomes)];
+		}
+		return true;
+	}
+
+	private static long lerVarint(ByteBuffer buffer) {
+		long valor = 0;
+		int deslocamento = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			valor |= (long) (b & 0x7F) << deslocamento;
+			deslocamento += 7;
+		} while ((b & 0x80) != 0);
+		return valor;
+	}
+
+	public int getQuantidade() {
+		return quantidade;
+	}
+
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public String getNome() {
+		return nome;
+	}
+
+	@Override
+	public int getAndar() {
+		if (this.larguraAndar == 1) {
+			return this.andares.get(this.id);
+		} else if (this.larguraAndar == 2) {
+			return this.andares.getShort(this.id * 2);
+		} else {
+			return this.andares.getInt(this.id * 4);
+		}
+	}
+
+	@Override
+	public long getChegada() {
+		return chegada;
+	}
+
+}
@@ -0,0 +1,5 @@
+package jprm.simulador_elevadores;
+
+public enum ModoSimulacao {
+	PASSO_FIXO, EVENTOS_DISCRETOS;
+}
@@ -0,0 +1,144 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Taxa de chegadas ao térreo ao longo do dia, em pessoas por hora, usada por
+ * {@link GeradorChegadas}. A taxa é uma base constante somada a picos com
+ * formato gaussiano, cada pico definido pelo horário central, desvio e taxa no
+ * centro. O perfil se repete a cada dia
+ */
+public class PerfilChegadas {
+
+	private static final double horaMilis = 3600000d;
+
+	private static final double diaMilis = 86400000d;
+
+	private final double taxaBase;
+	private final List<double[]> picos;
+
+	/**
+	 * Construtor
+	 *
+	 * @param taxaBase
+	 *            pessoas por hora fora dos picos
+	 */
+	public PerfilChegadas(double taxaBase) {
+		super();
+		if (taxaBase < 0) {
+			throw new RuntimeException("Taxa de chegadas negativa: " + taxaBase);
+		}
+		this.taxaBase = taxaBase;
+		this.picos = new ArrayList<>();
+	}
+
+	public static PerfilChegadas constante(double taxaPorHora) {
+		return new PerfilChegadas(taxaPorHora);
+	}
+
+	/**
+	 * Pico de subida da manhã, centrado às 8:30 com desvio de 20 minutos
+	 *
+	 * @param taxaPico
+	 *            pessoas por hora no centro do pico
+	 * @return
+	 */
+	public static PerfilChegadas picoSubida(double taxaPico) {
+		return new PerfilChegadas(0d).adicionarPico(LocalTime.of(8, 30), Duration.ofMinutes(20), taxaPico);
+	}
+
+	/**
+	 * Dia útil de um prédio com a população informada: cerca de 90% chega no
+	 * pico de subida da manhã, 60% volta do almoço entre 12:00 e 14:00 e há um
+	 * movimento de fundo de 2% da população por hora
+	 *
+	 * O almoço é um pico nos dois sentidos, mas o simulador modela somente
+	 * viagens a partir do térreo, então o perfil gera somente a volta
+	 *
+	 * @param populacao
+	 * @return
+	 */
+	public static PerfilChegadas diaUtil(int populacao) {
+		// pessoas no pico = taxa no centro * desvio (em horas) * raiz(2 pi)
+		double fatorPico20 = Math.sqrt(2d * Math.PI) / 3d;
+		double fatorPico30 = Math.sqrt(2d * Math.PI) / 2d;
+		return new PerfilChegadas(0.02d * populacao)
+				.adicionarPico(LocalTime.of(8, 30), Duration.ofMinutes(20), 0.9d * populacao / fatorPico20)
+				.adicionarPico(LocalTime.of(13, 0), Duration.ofMinutes(30), 0.6d * populacao / fatorPico30);
+	}
+
+	/**
+	 * Adiciona um pico gaussiano ao perfil
+	 *
+	 * @param centro
+	 *            horário do dia com a maior taxa
+	 * @param desvio
+	 *            desvio padrão do pico
+	 * @param taxaPico
+	 *            pessoas por hora no centro, somadas à taxa base
+	 * @return o próprio perfil
+	 */
+	public PerfilChegadas adicionarPico(LocalTime centro, Duration desvio, double taxaPico) {
+		if (taxaPico < 0 || desvio.isNegative() || desvio.isZero()) {
+			throw new RuntimeException("Pico inválido: taxa " + taxaPico + ", desvio " + desvio);
+		}
+		this.picos.add(new double[] { centro.toNanoOfDay() / 1e6, desvio.toMillis(), taxaPico });
+		return this;
+	}
+
+	/**
+	 * Taxa de chegadas no instante
+	 *
+	 * @param milis
+	 *            instante em milissegundos (UTC)
+	 * @return pessoas por hora
+	 */
+	public double taxa(long milis) {
+		double milisDia = Math.floorMod(milis, (long) diaMilis);
+		double taxa = this.taxaBase;
+		for (double[] pico : this.picos) {
+			// o pico das 23:50 também alcança 0:10 do dia seguinte
+			double distancia = Math.abs(milisDia - pico[0]);
+			distancia = Math.min(distancia, diaMilis - distancia);
+			double z = distancia / pico[1];
+			taxa += pico[2] * Math.exp(-0.5d * z * z);
+		}
+		return taxa;
+	}
+
+	/**
+	 * Limite superior da taxa em qualquer instante, a base somada ao centro de
+	 * todos os picos
+	 *
+	 * @return pessoas por hora
+	 */
+	public double getTaxaMaxima() {
+		double maxima = this.taxaBase;
+		for (double[] pico : this.picos) {
+			maxima += pico[2];
+		}
+		return maxima;
+	}
+
+	/**
+	 * Taxa máxima em pessoas por milissegundo
+	 *
+	 * @return
+	 */
+	double getTaxaMaximaMilis() {
+		return getTaxaMaxima() / horaMilis;
+	}
+
+	public double getTaxaBase() {
+		return taxaBase;
+	}
+
+	@Override
+	public String toString() {
+		return "PerfilChegadas [taxaBase=" + taxaBase + ", picos=" + picos.size() + "]";
+	}
+
+}
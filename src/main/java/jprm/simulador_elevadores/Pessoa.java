@@ -4,27 +4,35 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
+/**
+ * Visão de uma pessoa armazenada em uma {@link PessoaTable}. Os dados de
+ * chegada (nome, andar e instante de chegada) são somente leitura, pois a
+ * tabela pode ser compartilhada por simulações em paralelo; somente os
+ * instantes de embarque e desembarque, do {@link ResultadoSimulacao} da
+ * visão, podem ser alterados
+ */
 public class Pessoa {
 
-	private String nome;
-	private Integer andar;
-	private LocalDateTime instanteChegada;
-	private LocalDateTime instanteEmbarque;
-	private LocalDateTime instanteDesembarque;
+	private final PessoaTable tabela;
+	private final ResultadoSimulacao resultado;
+	private final int id;
 
 	public Optional<Duration> calculaTempoEsperaFila() {
-		if (this.instanteEmbarque == null) {
+		long embarque = this.resultado.getEmbarque(this.id);
+		if (embarque == PessoaTable.SEM_INSTANTE) {
 			return Optional.empty();
 		} else {
-			return Optional.of(Duration.between(this.instanteChegada, this.instanteEmbarque));
+			return Optional.of(Duration.ofMillis(embarque - this.tabela.getChegada(this.id)));
 		}
 	}
 
 	public Optional<Duration> calculaTempoChegadaAndar() {
-		if (this.instanteEmbarque == null || this.instanteDesembarque == null) {
+		long embarque = this.resultado.getEmbarque(this.id);
+		long desembarque = this.resultado.getDesembarque(this.id);
+		if (embarque == PessoaTable.SEM_INSTANTE || desembarque == PessoaTable.SEM_INSTANTE) {
 			return Optional.empty();
 		} else {
-			return Optional.of(Duration.between(this.instanteEmbarque, this.instanteDesembarque));
+			return Optional.of(Duration.ofMillis(desembarque - embarque));
 		}
 	}
 
@@ -32,62 +40,95 @@ public class Pessoa {
 		return calculaTempoEsperaFila().flatMap(tef -> calculaTempoChegadaAndar().map(tca -> tca.plus(tef)));
 	}
 
+	/**
+	 * Construtor de pessoa avulsa, armazenada em uma tabela própria
+	 * 
+	 * @param nome
+	 * @param andar
+	 * @param instanteChegada
+	 */
 	public Pessoa(String nome, Integer andar, LocalDateTime instanteChegada) {
 		super();
-		this.nome = nome;
-		this.andar = andar;
-		this.instanteChegada = instanteChegada;
+		this.tabela = new PessoaTable(1);
+		this.id = this.tabela.adicionar(nome, andar, instanteChegada);
+		this.resultado = this.tabela.getResultado();
+	}
+
+	/**
+	 * Construtor de visão
+	 * 
+	 * @param tabela
+	 *            dados de chegada
+	 * @param resultado
+	 *            instantes de embarque e desembarque
+	 * @param id
+	 */
+	public Pessoa(PessoaTable tabela, ResultadoSimulacao resultado, int id) {
+		super();
+		this.tabela = tabela;
+		this.resultado = resultado;
+		this.id = id;
 	}
 
-	public String getNome() {
-		return nome;
+	public PessoaTable getTabela() {
+		return tabela;
 	}
 
-	public void setNome(String nome) {
-		this.nome = nome;
+	public ResultadoSimulacao getResultado() {
+		return resultado;
 	}
 
-	public Integer getAndar() {
-		return andar;
+	public int getId() {
+		return id;
 	}
 
-	public void setAndar(Integer andar) {
-		this.andar = andar;
+	public String getNome() {
+		return tabela.getNome(id);
 	}
 
-	public LocalDateTime getInstanteChegada() {
-		return instanteChegada;
+	public int getAndar() {
+		return tabela.getAndar(id);
 	}
 
-	public void setInstanteChegada(LocalDateTime instanteChegada) {
-		this.instanteChegada = instanteChegada;
+	public LocalDateTime getInstanteChegada() {
+		return EscalaTempo.deMilis(tabela.getChegada(id));
 	}
 
 	public LocalDateTime getInstanteEmbarque() {
-		return instanteEmbarque;
+		return paraInstante(resultado.getEmbarque(id));
 	}
 
 	public void setInstanteEmbarque(LocalDateTime instanteEmbarque) {
-		this.instanteEmbarque = instanteEmbarque;
+		resultado.setEmbarque(id, paraMilis(instanteEmbarque));
 	}
 
 	public LocalDateTime getInstanteDesembarque() {
-		return instanteDesembarque;
+		return paraInstante(resultado.getDesembarque(id));
 	}
 
 	public void setInstanteDesembarque(LocalDateTime instanteDesembarque) {
-		this.instanteDesembarque = instanteDesembarque;
+		resultado.setDesembarque(id, paraMilis(instanteDesembarque));
+	}
+
+	private static LocalDateTime paraInstante(long milis) {
+		return milis == PessoaTable.SEM_INSTANTE ? null : EscalaTempo.deMilis(milis);
 	}
 
+	private static long paraMilis(LocalDateTime instante) {
+		return instante == null ? PessoaTable.SEM_INSTANTE : EscalaTempo.paraMilis(instante);
+	}
+
+	/**
+	 * Duas visões são iguais se apontam para a mesma linha da mesma tabela e
+	 * do mesmo resultado
+	 */
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((andar == null) ? 0 : andar.hashCode());
-		result = prime * result + ((instanteChegada == null) ? 0 : instanteChegada.hashCode());
-		result = prime * result + ((instanteDesembarque == null) ? 0 : instanteDesembarque.hashCode());
-		result = prime * result + ((instanteEmbarque == null) ? 0 : instanteEmbarque.hashCode());
-		result = prime * result + ((nome == null) ? 0 : nome.hashCode());
+		result = prime * result + System.identityHashCode(tabela);
+		result = prime * result + System.identityHashCode(resultado);
+		result = prime * result + id;
 		return result;
 	}
 
@@ -100,38 +141,13 @@ public class Pessoa {
 		if (getClass() != obj.getClass())
 			return false;
 		Pessoa other = (Pessoa) obj;
-		if (andar == null) {
-			if (other.andar != null)
-				return false;
-		} else if (!andar.equals(other.andar))
-			return false;
-		if (instanteChegada == null) {
-			if (other.instanteChegada != null)
-				return false;
-		} else if (!instanteChegada.equals(other.instanteChegada))
-			return false;
-		if (instanteDesembarque == null) {
-			if (other.instanteDesembarque != null)
-				return false;
-		} else if (!instanteDesembarque.equals(other.instanteDesembarque))
-			return false;
-		if (instanteEmbarque == null) {
-			if (other.instanteEmbarque != null)
-				return false;
-		} else if (!instanteEmbarque.equals(other.instanteEmbarque))
-			return false;
-		if (nome == null) {
-			if (other.nome != null)
-				return false;
-		} else if (!nome.equals(other.nome))
-			return false;
-		return true;
+		return tabela == other.tabela && resultado == other.resultado && id == other.id;
 	}
 
 	@Override
 	public String toString() {
-		return "\n Pessoa [nome=" + nome + ", andar=" + andar + ", instanteChegada=" + instanteChegada
-				+ ", instanteEmbarque=" + instanteEmbarque + ", instanteDesembarque=" + instanteDesembarque
+		return "\n Pessoa [nome=" + getNome() + ", andar=" + getAndar() + ", instanteChegada=" + getInstanteChegada()
+				+ ", instanteEmbarque=" + getInstanteEmbarque() + ", instanteDesembarque=" + getInstanteDesembarque()
 				+ ", tempoEsperaFila=" + calculaTempoEsperaFila() + ", tempoChegadaAndar=" + calculaTempoChegadaAndar()
 				+ ", tempoTotalPercurso=" + calculaTempoTotalPercurso() + "]";
 	}
@@ -1,17 +1,26 @@
 package jprm.simulador_elevadores;
 
+import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,77 +36,327 @@ public class PessoaLoader {
 
 	private DateTimeFormatter dateTimeFormat;
 
+	/**
+	 * true se o formato do instante é o padrão, permitindo a leitura direta
+	 * dos bytes na leitura paralela
+	 */
+	private boolean dateTimeFormatPadrao;
+
+	private int tamanhoMinimoBloco;
+
 	private static final Logger logger = LoggerFactory.getLogger(PessoaLoader.class);
 
 	private static final String filenameDefault = "elevadores.csv";
 
 	private static final String dateTimeFormatDefault = "yyyy-MM-dd HH:mm:ss";
 
+	// tamanho mínimo de cada bloco do arquivo na leitura paralela
+	private static final int tamanhoMinimoBlocoDefault = 1 << 20;
+
 	public PessoaLoader() {
 		this.filename = filenameDefault;
 		// https://docs.oracle.com/javase/8/docs/api/java/time/format/DateTimeFormatter.html
 		this.dateTimeFormat = DateTimeFormatter.ofPattern(dateTimeFormatDefault);
+		this.dateTimeFormatPadrao = true;
+		this.tamanhoMinimoBloco = tamanhoMinimoBlocoDefault;
 		this.classLoader = this.getClass().getClassLoader();
 	}
 
 	public PessoaLoader(String arquivo, DateTimeFormatter padrao) {
 		this.filename = arquivo;
 		this.dateTimeFormat = padrao;
+		this.dateTimeFormatPadrao = false;
+		this.tamanhoMinimoBloco = tamanhoMinimoBlocoDefault;
 		this.classLoader = this.getClass().getClassLoader();
 	}
 
 	public PessoaLoader(String arquivo) {
 		this.filename = arquivo;
 		this.dateTimeFormat = DateTimeFormatter.ofPattern(dateTimeFormatDefault);
+		this.dateTimeFormatPadrao = true;
+		this.tamanhoMinimoBloco = tamanhoMinimoBlocoDefault;
 		this.classLoader = this.getClass().getClassLoader();
 	}
 
 	public List<Pessoa> getListaPessoas() {
-		try (InputStream in = Files.newInputStream(Paths.get(this.filename))){
-		return getListaPessoas(in);
-		} catch (IOException e) {
-			logger.error(String.format("Erro ao carregar %s", this.filename), e);
-			return Collections.emptyList();
-		}
+		return getTabelaPessoas().getListaPessoas();
 	}
 
 	public List<Pessoa> getListaPessoasResource() {
-		try (InputStream in = this.classLoader.getResource(this.filename).openStream()){
-			return getListaPessoas(in);	
+		return getTabelaPessoasResource().getListaPessoas();
+	}
+
+	public PessoaTable getTabelaPessoas() {
+		return getTabelaPessoas(abrirCursor());
+	}
+
+	public PessoaTable getTabelaPessoasResource() {
+		return getTabelaPessoas(abrirCursorResource());
+	}
+
+	/**
+	 * Lê o arquivo mapeado em memória, dividido em blocos lidos em paralelo
+	 * no ForkJoinPool comum. O resultado é idêntico a
+	 * {@link #getTabelaPessoas()}, que é usado quando o arquivo está
+	 * compactado ou tem campos com quebra de linha. Arquivos no formato
+	 * {@link TrajetoBinario} são lidos diretamente
+	 * 
+	 * @return
+	 */
+	public PessoaTable getTabelaPessoasParalela() {
+		return getTabelaPessoasParalela(ForkJoinPool.commonPool());
+	}
+
+	public PessoaTable getTabelaPessoasParalela(ForkJoinPool pool) {
+		return getTabelaPessoasParalela(Paths.get(this.filename), pool);
+	}
+
+	/**
+	 * Leitura paralela do resource, somente se o resource for um arquivo (não
+	 * compactado em um jar)
+	 * 
+	 * @return
+	 */
+	public PessoaTable getTabelaPessoasParalelaResource() {
+		URL url = this.classLoader.getResource(this.filename);
+		if (url == null || !"file".equals(url.getProtocol())) {
+			return getTabelaPessoasResource();
+		}
+		try {
+			return getTabelaPessoasParalela(Paths.get(url.toURI()), ForkJoinPool.commonPool());
+		} catch (URISyntaxException e) {
+			return getTabelaPessoasResource();
+		}
+	}
+
+	private PessoaTable getTabelaPessoasParalela(Path arquivo, ForkJoinPool pool) {
+		PessoaTable tabela = null;
+		try {
+			if (TrajetoBinario.formatoBinario(arquivo)) {
+				return LeitorTrajetoBinario.lerTabela(arquivo);
+			}
+			if (!arquivoGzip(arquivo)) {
+				tabela = new LeitorCSVMapeado(arquivo, this.dateTimeFormat, this.dateTimeFormatPadrao,
+						this.tamanhoMinimoBloco).ler(pool);
+			}
 		} catch (IOException e) {
-			logger.error(String.format("Erro ao carregar %s", this.filename), e);
-			return Collections.emptyList();
+			logger.error(String.format("Erro ao carregar %s", arquivo), e);
+			return new PessoaTable();
 		}
-		
+		return tabela != null ? tabela : getTabelaPessoas(abrirCursor(arquivo));
 	}
 
-	private List<Pessoa> getListaPessoas(InputStream in) {
-		return lerCSV(in).stream().filter(Objects::nonNull).filter(l -> l.size() >= 3).map(this::mapper)
-				.collect(Collectors.toList());
+	private static boolean arquivoGzip(Path arquivo) throws IOException {
+		try (InputStream in = Files.newInputStream(arquivo)) {
+			return in.read() == (GZIPInputStream.GZIP_MAGIC & 0xff) && in.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+		}
 	}
 
-	private Pessoa mapper(List<String> tokens) {
-		// nome, instante, andar
-		String nome = tokens.get(0);
-		Integer andar = Integer.parseInt(tokens.get(2));
-		LocalDateTime instante = LocalDateTime.parse(tokens.get(1), this.dateTimeFormat);
-		return new Pessoa(nome, andar, instante);
+	private PessoaTable getTabelaPessoas(CursorChegadas cursor) {
+		PessoaTable tabela = new PessoaTable();
+		try (CursorChegadas c = cursor) {
+			while (c.avancar()) {
+				tabela.adicionar(c.getNome(), c.getAndar(), c.getChegada());
+			}
+		}
+		return tabela;
 	}
 
-	private List<List<String>> lerCSV(InputStream in) {
-		try (ICsvListReader listReader = new CsvListReader(new InputStreamReader(in),
-				CsvPreference.STANDARD_PREFERENCE)) {
+	/**
+	 * Abre um cursor que lê o arquivo sob demanda, uma linha por chamada de
+	 * {@link CursorChegadas#avancar()}. Arquivos gzip são descompactados
+	 * automaticamente e arquivos no formato {@link TrajetoBinario} são lidos
+	 * mapeados em memória. O cursor deve ser fechado após o uso
+	 * 
+	 * @return
+	 */
+	public CursorChegadas abrirCursor() {
+		return abrirCursor(Paths.get(this.filename));
+	}
 
-			List<List<String>> listaLinhasCSV = new LinkedList<>();
-			List<String> tokens;
-			while ((tokens = listReader.read()) != null) {
-				listaLinhasCSV.add(tokens);
+	private CursorChegadas abrirCursor(Path arquivo) {
+		try {
+			if (TrajetoBinario.formatoBinario(arquivo)) {
+				return new LeitorTrajetoBinario(arquivo);
 			}
-			return listaLinhasCSV;
+			return new CursorCSV(Files.newInputStream(arquivo));
+		} catch (IOException e) {
+			logger.error(String.format("Erro ao carregar %s", arquivo), e);
+			return new CursorCSV(null);
+		}
+	}
 
+	public CursorChegadas abrirCursorResource() {
+		try {
+			return new CursorCSV(this.classLoader.getResource(this.filename).openStream());
 		} catch (IOException e) {
 			logger.error(String.format("Erro ao carregar %s", this.filename), e);
-			return Collections.emptyList();
+			return new CursorCSV(null);
+		}
+	}
+
+	/**
+	 * Stream de pessoas lidas sob demanda, o stream deve ser fechado após o uso
+	 * 
+	 * Todas as pessoas do stream são linhas de uma única tabela, reaproveitada
+	 * a cada elemento: a visão de uma pessoa só é válida até o próximo elemento
+	 * ser lido. Para guardar as pessoas use {@link #getTabelaPessoas()}, e para
+	 * percorrer o arquivo sem criar visões use {@link #abrirCursor()}
+	 * 
+	 * @return
+	 */
+	public Stream<Pessoa> streamPessoas() {
+		return streamPessoas(abrirCursor());
+	}
+
+	public Stream<Pessoa> streamPessoasResource() {
+		return streamPessoas(abrirCursorResource());
+	}
+
+	private Stream<Pessoa> streamPessoas(CursorChegadas cursor) {
+		PessoaTable tabela = new PessoaTable(1);
+		Iterator<Pessoa> it = new Iterator<Pessoa>() {
+			private Boolean proxima;
+			private int id = -1;
+
+			@Override
+			public boolean hasNext() {
+				if (this.proxima == null) {
+					this.proxima = cursor.avancar();
+				}
+				return this.proxima;
+			}
+
+			@Override
+			public Pessoa next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				this.proxima = null;
+				// libera a linha da pessoa anterior, como no modo de reciclagem
+				// do simulador
+				if (this.id >= 0) {
+					tabela.liberar(this.id);
+				}
+				this.id = tabela.adicionar(cursor.getNome(), cursor.getAndar(), cursor.getChegada());
+				return tabela.getPessoa(this.id);
+			}
+		};
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(cursor::close);
+	}
+
+	public int getTamanhoMinimoBloco() {
+		return tamanhoMinimoBloco;
+	}
+
+	public void setTamanhoMinimoBloco(int tamanhoMinimoBloco) {
+		this.tamanhoMinimoBloco = tamanhoMinimoBloco;
+	}
+
+	/**
+	 * Retorna a entrada descompactada se o conteúdo estiver em formato gzip
+	 * 
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	private static InputStream descompactarSeGzip(InputStream in) throws IOException {
+		BufferedInputStream entrada = new BufferedInputStream(in);
+		entrada.mark(2);
+		int b1 = entrada.read();
+		int b2 = entrada.read();
+		entrada.reset();
+		if (b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+			return new GZIPInputStream(entrada);
+		}
+		return entrada;
+	}
+
+	/**
+	 * Cursor que lê uma linha do CSV por vez
+	 */
+	private class CursorCSV implements CursorChegadas {
+
+		private ICsvListReader listReader;
+		private int id;
+		private String nome;
+		private int andar;
+		private long chegada;
+
+		private CursorCSV(InputStream in) {
+			this.id = -1;
+			if (in == null) {
+				return;
+			}
+			try {
+				this.listReader = new CsvListReader(new InputStreamReader(descompactarSeGzip(in)),
+						CsvPreference.STANDARD_PREFERENCE);
+			} catch (IOException e) {
+				logger.error(String.format("Erro ao carregar %s", filename), e);
+				close(in);
+			}
+		}
+
+		@Override
+		public boolean avancar() {
+			if (this.listReader == null) {
+				return false;
+			}
+			try {
+				List<String> tokens;
+				while ((tokens = this.listReader.read()) != null) {
+					if (tokens.size() >= 3) {
+						// nome, instante, andar
+						this.id += 1;
+						this.nome = tokens.get(0);
+						this.andar = Integer.parseInt(tokens.get(2));
+						this.chegada = EscalaTempo.paraMilis(LocalDateTime.parse(tokens.get(1), dateTimeFormat));
+						return true;
+					}
+				}
+			} catch (IOException e) {
+				logger.error(String.format("Erro ao carregar %s", filename), e);
+			}
+			close();
+			return false;
+		}
+
+		@Override
+		public int getId() {
+			return id;
+		}
+
+		@Override
+		public String getNome() {
+			return nome;
+		}
+
+		@Override
+		public int getAndar() {
+			return andar;
+		}
+
+		@Override
+		public long getChegada() {
+			return chegada;
+		}
+
+		@Override
+		public void close() {
+			if (this.listReader != null) {
+				close(this.listReader);
+				this.listReader = null;
+			}
+		}
+
+		private void close(Closeable c) {
+			try {
+				c.close();
+			} catch (IOException e) {
+				logger.warn(String.format("Erro ao fechar %s", filename), e);
+			}
 		}
 	}
 
@@ -0,0 +1,364 @@
+package jprm.simulador_elevadores;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Armazenamento colunar de pessoas: cada atributo é uma coluna de tipo
+ * primitivo indexada pela identificação da pessoa (posição na tabela)
+ * 
+ * Instantes são armazenados em milissegundos (UTC), ver
+ * {@link EscalaTempo#paraMilis(LocalDateTime)}, {@link Pessoa} é apenas uma
+ * visão sobre uma linha da tabela
+ * 
+ * A tabela guarda somente os dados de chegada, que não são alterados após a
+ * inclusão da pessoa: cada {@link Simulador} escreve os instantes de embarque
+ * e desembarque no seu próprio {@link ResultadoSimulacao}, de modo que a
+ * mesma tabela pode ser compartilhada por várias simulações, inclusive em
+ * paralelo
+ */
+public class PessoaTable {
+
+	private String[] nomes;
+	private int[] andares;
+	private long[] chegadas;
+	private int tamanho;
+
+	/**
+	 * Resultado usado pelas visões de {@link #getPessoa(int)}, criado somente
+	 * quando necessário
+	 */
+	private ResultadoSimulacao resultado;
+
+	/**
+	 * Linhas liberadas, reaproveitadas por {@link #adicionar}
+	 */
+	private int[] livres;
+	private int quantidadeLivres;
+
+	/**
+	 * Indica instante não definido (pessoa ainda não embarcou ou desembarcou)
+	 */
+	public static final long SEM_INSTANTE = Long.MIN_VALUE;
+
+	private static final int capacidadeInicialDefault = 1024;
+
+	public PessoaTable() {
+		this(capacidadeInicialDefault);
+	}
+
+	public PessoaTable(int capacidadeInicial) {
+		int capacidade = Math.max(capacidadeInicial, 1);
+		this.nomes = new String[capacidade];
+		this.andares = new int[capacidade];
+		this.chegadas = new long[capacidade];
+		this.tamanho = 0;
+		this.livres = new int[0];
+		this.quantidadeLivres = 0;
+	}
+
+	/**
+	 * Cria uma tabela a partir de uma lista de pessoas. Se a lista for
+	 * exatamente a lista de visões de uma tabela, retorna a própria tabela,
+	 * caso contrário copia os dados de chegada para uma tabela nova
+	 * 
+	 * @param pessoas
+	 * @return
+	 */
+	public static PessoaTable de(List<Pessoa> pessoas) {
+		if (!pessoas.isEmpty() && pessoas.get(0) != null) {
+			PessoaTable tabela = pessoas.get(0).getTabela();
+			boolean mesmaTabela = tabela.tamanho == pessoas.size();
+			for (int i = 0; mesmaTabela && i < pessoas.size(); i++) {
+				Pessoa p = pessoas.get(i);
+				mesmaTabela = p != null && p.getTabela() == tabela && p.getId() == i;
+			}
+			if (mesmaTabela) {
+				return tabela;
+			}
+		}
+		PessoaTable tabela = new PessoaTable(pessoas.size());
+		pessoas.stream().filter(Objects::nonNull)
+				.forEach(p -> tabela.adicionar(p.getNome(), p.getAndar(), p.getTabela().getChegada(p.getId())));
+		return tabela;
+	}
+
+	/**
+	 * Concatena as tabelas na ordem da lista, as pessoas de cada tabela recebem
+	 * novas identificações na tabela resultante
+	 * 
+	 * @param tabelas
+	 * @return
+	 */
+	public static PessoaTable concatenar(List<PessoaTable> tabelas) {
+		int tamanhoTotal = tabelas.stream().mapToInt(PessoaTable::tamanho).sum();
+		PessoaTable resultado = new PessoaTable(tamanhoTotal);
+		for (PessoaTable t : tabelas) {
+			System.arraycopy(t.nomes, 0, resultado.nomes, resultado.tamanho, t.tamanho);
+			System.arraycopy(t.andares, 0, resultado.andares, resultado.tamanho, t.tamanho);
+			System.arraycopy(t.chegadas, 0, resultado.chegadas, resultado.tamanho, t.tamanho);
+			resultado.tamanho += t.tamanho;
+		}
+		return resultado;
+	}
+
+	/**
+	 * Adiciona uma pessoa, reaproveitando uma linha liberada se houver,
+	 * retornando sua identificação
+	 * 
+	 * @param nome
+	 * @param andar
+	 * @param chegada
+	 *            instante de chegada em milissegundos (UTC)
+	 * @return
+	 */
+	public int adicionar(String nome, int andar, long chegada) {
+		int id;
+		if (this.quantidadeLivres > 0) {
+			this.quantidadeLivres -= 1;
+			id = this.livres[this.quantidadeLivres];
+		} else {
+			if (this.tamanho == this.andares.length) {
+				expandir();
+			}
+			id = this.tamanho;
+			this.tamanho += 1;
+		}
+		this.nomes[id] = nome;
+		this.andares[id] = andar;
+		this.chegadas[id] = chegada;
+		if (this.resultado != null) {
+			this.resultado.garantirCapacidade(this.andares.length);
+			this.resultado.limpar(id);
+		}
+		return id;
+	}
+
+	public int adicionar(String nome, int andar, LocalDateTime chegada) {
+		return adicionar(nome, andar, EscalaTempo.paraMilis(chegada));
+	}
+
+	/**
+	 * Libera a linha para ser reaproveitada, visões da linha deixam de ser
+	 * válidas
+	 * 
+	 * @param id
+	 */
+	public void liberar(int id) {
+		if (this.quantidadeLivres == this.livres.length) {
+			this.livres = Arrays.copyOf(this.livres, Math.max(16, this.livres.length * 2));
+		}
+		this.nomes[id] = null;
+		this.livres[this.quantidadeLivres] = id;
+		this.quantidadeLivres += 1;
+	}
+
+	private void expandir() {
+		int capacidade = this.andares.length * 2;
+		this.nomes = Arrays.copyOf(this.nomes, capacidade);
+		this.andares = Arrays.copyOf(this.andares, capacidade);
+		this.chegadas = Arrays.copyOf(this.chegadas, capacidade);
+	}
+
+	/**
+	 * Retorna as identificações ordenadas pelo instante de chegada, pessoas
+	 * que chegam no mesmo instante mantêm a ordem da tabela
+	 * 
+	 * @return
+	 */
+	public int[] ordenarPorChegada() {
+		boolean ordenada = true;
+		for (int i = 1; ordenada && i < this.tamanho; i++) {
+			ordenada = this.chegadas[i - 1] <= this.chegadas[i];
+		}
+		if (ordenada) {
+			int[] ids = new int[this.tamanho];
+			Arrays.setAll(ids, i -> i);
+			return ids;
+		}
+		// merge sort das identificações, estável e sem boxing
+		int[] ids = new int[this.tamanho];
+		Arrays.setAll(ids, i -> i);
+		int[] auxiliar = new int[this.tamanho];
+		for (int largura = 1; largura < this.tamanho; largura *= 2) {
+			for (int inicio = 0; inicio < this.tamanho - largura; inicio += 2 * largura) {
+				intercalar(ids, auxiliar, inicio, inicio + largura, Math.min(inicio + 2 * largura, this.tamanho));
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Intercala as faixas ordenadas ids[inicio, meio) e ids[meio, fim) pelo
+	 * instante de chegada, em caso de empate a primeira faixa vem antes
+	 */
+	private void intercalar(int[] ids, int[] auxiliar, int inicio, int meio, int fim) {
+		if (this.chegadas[ids[meio - 1]] <= this.chegadas[ids[meio]]) {
+			return;
+		}
+		System.arraycopy(ids, inicio, auxiliar, inicio, fim - inicio);
+		int i = inicio;
+		int j = meio;
+		for (int k = inicio; k < fim; k++) {
+			if (j >= fim || (i < meio && this.chegadas[auxiliar[i]] <= this.chegadas[auxiliar[j]])) {
+				ids[k] = auxiliar[i++];
+			} else {
+				ids[k] = auxiliar[j++];
+			}
+		}
+	}
+
+	/**
+	 * Cursor sobre as pessoas da tabela na ordem de chegada
+	 * 
+	 * @return
+	 */
+	public CursorChegadas cursorPorChegada() {
+		int[] ids = ordenarPorChegada();
+		return new CursorChegadas() {
+			private int indice = -1;
+
+			@Override
+			public boolean avancar() {
+				if (this.indice + 1 >= ids.length) {
+					return false;
+				}
+				this.indice += 1;
+				return true;
+			}
+
+			@Override
+			public int getId() {
+				return ids[this.indice];
+			}
+
+			@Override
+			public String getNome() {
+				return nomes[getId()];
+			}
+
+			@Override
+			public int getAndar() {
+				return andares[getId()];
+			}
+
+			@Override
+			public long getChegada() {
+				return chegadas[getId()];
+			}
+		};
+	}
+
+	/**
+	 * Visão da pessoa armazenada na linha id, com o resultado próprio da
+	 * tabela (ver {@link #getResultado()})
+	 * 
+	 * @param id
+	 * @return
+	 */
+	public Pessoa getPessoa(int id) {
+		return new Pessoa(this, getResultado(), id);
+	}
+
+	/**
+	 * Visão da pessoa armazenada na linha id com os instantes de embarque e
+	 * desembarque do resultado informado
+	 * 
+	 * @param resultado
+	 * @param id
+	 * @return
+	 */
+	public Pessoa getPessoa(ResultadoSimulacao resultado, int id) {
+		return new Pessoa(this, resultado, id);
+	}
+
+	/**
+	 * Resultado próprio da tabela, usado por visões avulsas. Não é usado pela
+	 * simulação e não deve ser acessado concorrentemente
+	 * 
+	 * @return
+	 */
+	public ResultadoSimulacao getResultado() {
+		if (this.resultado == null) {
+			this.resultado = new ResultadoSimulacao(this.andares.length);
+		}
+		return resultado;
+	}
+
+	/**
+	 * Lista de visões de todas as pessoas da tabela, criadas sob demanda
+	 * 
+	 * @return
+	 */
+	public List<Pessoa> getListaPessoas() {
+		return getListaPessoas(getResultado());
+	}
+
+	/**
+	 * Lista de visões de todas as pessoas da tabela com os instantes de
+	 * embarque e desembarque do resultado informado
+	 * 
+	 * @param resultado
+	 * @return
+	 */
+	public List<Pessoa> getListaPessoas(ResultadoSimulacao resultado) {
+		return new AbstractList<Pessoa>() {
+			@Override
+			public Pessoa get(int index) {
+				if (index < 0 || index >= tamanho) {
+					throw new IndexOutOfBoundsException("Índice: " + index + ", tamanho: " + tamanho);
+				}
+				return getPessoa(resultado, index);
+			}
+
+			@Override
+			public int size() {
+				return tamanho;
+			}
+		};
+	}
+
+	/**
+	 * Quantidade de linhas da tabela, incluindo linhas liberadas
+	 * 
+	 * @return
+	 */
+	public int tamanho() {
+		return tamanho;
+	}
+
+	public String getNome(int id) {
+		return nomes[id];
+	}
+
+	public int getAndar(int id) {
+		return andares[id];
+	}
+
+	public long getChegada(int id) {
+		return chegadas[id];
+	}
+
+	/**
+	 * Redefine o instante de chegada de uma linha. Usado somente pelo
+	 * {@link Simulador} na tabela própria do modo serviço, em que a chamada
+	 * chega no instante em que é processada; tabelas compartilhadas entre
+	 * simulações nunca são alteradas
+	 * 
+	 * @param id
+	 * @param chegada
+	 *            instante de chegada em milissegundos (UTC)
+	 */
+	void redefinirChegada(int id, long chegada) {
+		this.chegadas[id] = chegada;
+	}
+
+	@Override
+	public String toString() {
+		return "PessoaTable [tamanho=" + tamanho + "]";
+	}
+
+}
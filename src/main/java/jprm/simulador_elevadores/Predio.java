@@ -0,0 +1,66 @@
+package jprm.simulador_elevadores;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Prédio de um campus, ver {@link SimulacaoCampus}: o trajeto de chegadas é
+ * aberto somente quando a simulação do prédio começa, e lido em modo streaming
+ */
+public class Predio {
+
+	private final String nome;
+	private final Supplier<CursorChegadas> fonteChegadas;
+	private final Supplier<ElevadorControle> fabricaControle;
+
+	/**
+	 * Aplicada ao simulador do prédio antes da inicialização, para alterar a
+	 * quantidade de elevadores, andares, etc
+	 */
+	private Consumer<Simulador> configuracao;
+
+	/**
+	 * Construtor
+	 *
+	 * @param nome
+	 * @param fonteChegadas
+	 *            abre o cursor de chegadas do prédio, por exemplo
+	 *            {@code () -> new PessoaLoader(arquivo).abrirCursor()}
+	 * @param fabricaControle
+	 */
+	public Predio(String nome, Supplier<CursorChegadas> fonteChegadas, Supplier<ElevadorControle> fabricaControle) {
+		super();
+		this.nome = nome;
+		this.fonteChegadas = fonteChegadas;
+		this.fabricaControle = fabricaControle;
+		this.configuracao = s -> {
+		};
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	public Supplier<CursorChegadas> getFonteChegadas() {
+		return fonteChegadas;
+	}
+
+	public Supplier<ElevadorControle> getFabricaControle() {
+		return fabricaControle;
+	}
+
+	public Consumer<Simulador> getConfiguracao() {
+		return configuracao;
+	}
+
+	public Predio setConfiguracao(Consumer<Simulador> configuracao) {
+		this.configuracao = configuracao;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "Predio [nome=" + nome + "]";
+	}
+
+}
@@ -0,0 +1,204 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replicações de Monte Carlo de um mesmo cenário: cada replicação usa um
+ * gerador aleatório próprio, obtido com {@link SplittableRandom#split()} a
+ * partir da semente, de modo que o resultado é reprodutível e as replicações
+ * são independentes
+ * 
+ * As replicações são executadas em lotes paralelos. Após cada lote as médias
+ * de espera na fila, tempo entre embarque e desembarque e tempo total de
+ * percurso das replicações são acumuladas, e a execução termina quando a
+ * largura do intervalo de 95% de confiança de todas as métricas for menor que
+ * a largura máxima, ou ao atingir a quantidade máxima de replicações
+ */
+public class ReplicacaoMonteCarlo {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReplicacaoMonteCarlo.class);
+
+	private final PessoaTable tabelaPessoas;
+	private final Supplier<ElevadorControle> fabricaControle;
+	private final long semente;
+	private int replicacoesMinimas;
+	private int replicacoesMaximas;
+	private int tamanhoLote;
+
+	/**
+	 * Largura máxima do intervalo de confiança, null para executar sempre a
+	 * quantidade máxima de replicações
+	 */
+	private Duration larguraMaximaIntervalo;
+	private ExecutorService executor;
+
+	private static final int replicacoesMinimasDefault = 10;
+	private static final int replicacoesMaximasDefault = 1000;
+
+	public ReplicacaoMonteCarlo(PessoaTable tabelaPessoas, Supplier<ElevadorControle> fabricaControle,
+			long semente) {
+		this.tabelaPessoas = tabelaPessoas;
+		this.fabricaControle = fabricaControle;
+		this.semente = semente;
+		this.replicacoesMinimas = replicacoesMinimasDefault;
+		this.replicacoesMaximas = replicacoesMaximasDefault;
+		this.executor = ForkJoinPool.commonPool();
+		this.tamanhoLote = ForkJoinPool.commonPool().getParallelism();
+	}
+
+	/**
+	 * Executa as replicações. O resultado depende somente da semente, da
+	 * quantidade de replicações e do tamanho do lote, não da ordem de término
+	 * 
+	 * @return
+	 */
+	public ResultadoReplicacoes executar() {
+		if (this.replicacoesMinimas < 2 || this.replicacoesMaximas < this.replicacoesMinimas) {
+			throw new RuntimeException("Quantidade de replicações inválida: mínimo " + this.replicacoesMinimas
+					+ ", máximo " + this.replicacoesMaximas);
+		}
+		SplittableRandom raiz = new SplittableRandom(this.semente);
+		ResultadoReplicacoes resultado = new ResultadoReplicacoes();
+		while (resultado.getQuantidadeReplicacoes() < this.replicacoesMaximas && !intervaloSuficiente(resultado)) {
+			int lote = Math.min(Math.max(1, this.tamanhoLote),
+					this.replicacoesMaximas - resultado.getQuantidadeReplicacoes());
+			List<Future<EstatisticasSimulacao>> futuros = new ArrayList<>(lote);
+			for (int i = 0; i < lote; i++) {
+				// split na thread que submete, na ordem das replicações
+				SplittableRandom aleatorio = raiz.split();
+				futuros.add(this.executor.submit(() -> simular(aleatorio)));
+			}
+			for (EstatisticasSimulacao e : Utilitarios.aguardarTodos(futuros, "replicação")) {
+				resultado.adicionar(e);
+			}
+		}
+		logger.info(String.format("%d replicações com %s: %s", resultado.getQuantidadeReplicacoes(),
+				resultado.getNome(), resultado));
+		return resultado;
+	}
+
+	private boolean intervaloSuficiente(ResultadoReplicacoes resultado) {
+		if (resultado.getQuantidadeReplicacoes() < this.replicacoesMinimas || this.larguraMaximaIntervalo == null) {
+			return false;
+		}
+		double larguraMaxima = this.larguraMaximaIntervalo.toMillis();
+		return 2 * resultado.getEsperaFila().getMeiaLarguraIntervalo() < larguraMaxima
+				&& 2 * resultado.getChegadaAndar().getMeiaLarguraIntervalo() < larguraMaxima
+				&& 2 * resultado.getTotalPercurso().getMeiaLarguraIntervalo() < larguraMaxima;
+	}
+
+	private EstatisticasSimulacao simular(SplittableRandom aleatorio) {
+		ElevadorControle controle = this.fabricaControle.get();
+		controle.setAleatorio(aleatorio);
+		Simulador sim = new Simulador(controle);
+		sim.inicializar(this.tabelaPessoas);
+		sim.executar();
+		return sim.getEstatisticas();
+	}
+
+	public long getSemente() {
+		return semente;
+	}
+
+	public int getReplicacoesMinimas() {
+		return replicacoesMinimas;
+	}
+
+	public void setReplicacoesMinimas(int replicacoesMinimas) {
+		this.replicacoesMinimas = replicacoesMinimas;
+	}
+
+	public int getReplicacoesMaximas() {
+		return replicacoesMaximas;
+	}
+
+	public void setReplicacoesMaximas(int replicacoesMaximas) {
+		this.replicacoesMaximas = replicacoesMaximas;
+	}
+
+	public int getTamanhoLote() {
+		return tamanhoLote;
+	}
+
+	/**
+	 * Quantidade de replicações executadas em paralelo antes de verificar o
+	 * intervalo de confiança, o padrão é o paralelismo do ForkJoinPool comum
+	 * 
+	 * @param tamanhoLote
+	 */
+	public void setTamanhoLote(int tamanhoLote) {
+		this.tamanhoLote = tamanhoLote;
+	}
+
+	public Duration getLarguraMaximaIntervalo() {
+		return larguraMaximaIntervalo;
+	}
+
+	public void setLarguraMaximaIntervalo(Duration larguraMaximaIntervalo) {
+		this.larguraMaximaIntervalo = larguraMaximaIntervalo;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Resultado acumulado das replicações
+	 */
+	public class ResultadoReplicacoes {
+
+		private final String nome = fabricaControle.get().getNome();
+		private final EstatisticaReplicacoes esperaFila = new EstatisticaReplicacoes();
+		private final EstatisticaReplicacoes chegadaAndar = new EstatisticaReplicacoes();
+		private final EstatisticaReplicacoes totalPercurso = new EstatisticaReplicacoes();
+		private int quantidadeReplicacoes;
+
+		private void adicionar(EstatisticasSimulacao e) {
+			this.quantidadeReplicacoes += 1;
+			e.getTempoMedioEsperaFila().ifPresent(d -> this.esperaFila.adicionar(d.toMillis()));
+			e.getTempoMedioChegadaAndar().ifPresent(d -> this.chegadaAndar.adicionar(d.toMillis()));
+			e.getTempoMedioTotalPercurso().ifPresent(d -> this.totalPercurso.adicionar(d.toMillis()));
+		}
+
+		public String getNome() {
+			return nome;
+		}
+
+		public int getQuantidadeReplicacoes() {
+			return quantidadeReplicacoes;
+		}
+
+		public EstatisticaReplicacoes getEsperaFila() {
+			return esperaFila;
+		}
+
+		public EstatisticaReplicacoes getChegadaAndar() {
+			return chegadaAndar;
+		}
+
+		public EstatisticaReplicacoes getTotalPercurso() {
+			return totalPercurso;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%n Tempo de espera na fila: %s %n Tempo entre embarque e desembarque: %s "
+					+ "%n Tempo total de percurso: %s", esperaFila, chegadaAndar, totalPercurso);
+		}
+	}
+
+}
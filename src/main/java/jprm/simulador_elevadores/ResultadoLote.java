@@ -0,0 +1,45 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+
+/**
+ * Resultado de uma simulação executada por {@link SimulacaoBatchRunner}
+ */
+public class ResultadoLote {
+
+	private final Simulador simulador;
+	private final Duration tempoExecucao;
+
+	public ResultadoLote(Simulador simulador, Duration tempoExecucao) {
+		super();
+		this.simulador = simulador;
+		this.tempoExecucao = tempoExecucao;
+	}
+
+	public String getNome() {
+		return simulador.getElevadorControle().getNome();
+	}
+
+	public Simulador getSimulador() {
+		return simulador;
+	}
+
+	public EstatisticasSimulacao getEstatisticas() {
+		return simulador.getEstatisticas();
+	}
+
+	/**
+	 * Tempo real gasto na inicialização e execução da simulação
+	 * 
+	 * @return
+	 */
+	public Duration getTempoExecucao() {
+		return tempoExecucao;
+	}
+
+	@Override
+	public String toString() {
+		return "ResultadoLote [nome=" + getNome() + ", tempoExecucao=" + tempoExecucao + "]";
+	}
+
+}
@@ -0,0 +1,53 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+
+/**
+ * Resultado da simulação de um prédio executada por {@link SimulacaoCampus}.
+ * Guarda somente as estatísticas, o simulador é descartado ao final da
+ * simulação
+ */
+public class ResultadoPredio {
+
+	private final String nome;
+	private final String nomeControle;
+	private final EstatisticasSimulacao estatisticas;
+	private final Duration tempoExecucao;
+
+	public ResultadoPredio(String nome, String nomeControle, EstatisticasSimulacao estatisticas,
+			Duration tempoExecucao) {
+		super();
+		this.nome = nome;
+		this.nomeControle = nomeControle;
+		this.estatisticas = estatisticas;
+		this.tempoExecucao = tempoExecucao;
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	public String getNomeControle() {
+		return nomeControle;
+	}
+
+	public EstatisticasSimulacao getEstatisticas() {
+		return estatisticas;
+	}
+
+	/**
+	 * Tempo real gasto na inicialização e execução da simulação do prédio
+	 *
+	 * @return
+	 */
+	public Duration getTempoExecucao() {
+		return tempoExecucao;
+	}
+
+	@Override
+	public String toString() {
+		return "ResultadoPredio [nome=" + nome + ", nomeControle=" + nomeControle + ", tempoExecucao="
+				+ tempoExecucao + "]";
+	}
+
+}
@@ -0,0 +1,77 @@
+package jprm.simulador_elevadores;
+
+import java.util.Arrays;
+
+/**
+ * Resultado de uma execução da simulação: instantes de embarque e
+ * desembarque, em milissegundos (UTC), indexados pela identificação da pessoa
+ * na {@link PessoaTable}. Cada simulação escreve somente no seu resultado,
+ * permitindo que várias simulações compartilhem a mesma tabela de chegadas
+ */
+public class ResultadoSimulacao {
+
+	private long[] embarques;
+	private long[] desembarques;
+
+	public ResultadoSimulacao(int capacidadeInicial) {
+		int capacidade = Math.max(capacidadeInicial, 1);
+		this.embarques = new long[capacidade];
+		this.desembarques = new long[capacidade];
+		Arrays.fill(this.embarques, PessoaTable.SEM_INSTANTE);
+		Arrays.fill(this.desembarques, PessoaTable.SEM_INSTANTE);
+	}
+
+	/**
+	 * Garante espaço para as identificações até capacidade - 1
+	 * 
+	 * @param capacidade
+	 */
+	public void garantirCapacidade(int capacidade) {
+		int anterior = this.embarques.length;
+		if (capacidade <= anterior) {
+			return;
+		}
+		int nova = Math.max(capacidade, anterior * 2);
+		this.embarques = Arrays.copyOf(this.embarques, nova);
+		this.desembarques = Arrays.copyOf(this.desembarques, nova);
+		Arrays.fill(this.embarques, anterior, nova, PessoaTable.SEM_INSTANTE);
+		Arrays.fill(this.desembarques, anterior, nova, PessoaTable.SEM_INSTANTE);
+	}
+
+	/**
+	 * Descarta o resultado da pessoa, usado quando a linha da tabela é
+	 * reaproveitada
+	 * 
+	 * @param id
+	 */
+	public void limpar(int id) {
+		this.embarques[id] = PessoaTable.SEM_INSTANTE;
+		this.desembarques[id] = PessoaTable.SEM_INSTANTE;
+	}
+
+	public int capacidade() {
+		return embarques.length;
+	}
+
+	public long getEmbarque(int id) {
+		return embarques[id];
+	}
+
+	public void setEmbarque(int id, long embarque) {
+		this.embarques[id] = embarque;
+	}
+
+	public long getDesembarque(int id) {
+		return desembarques[id];
+	}
+
+	public void setDesembarque(int id, long desembarque) {
+		this.desembarques[id] = desembarque;
+	}
+
+	@Override
+	public String toString() {
+		return "ResultadoSimulacao [capacidade=" + capacidade() + "]";
+	}
+
+}
@@ -0,0 +1,519 @@
+package jprm.simulador_elevadores;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Modo serviço do console do térreo descrito no enunciado: a pessoa informa o
+ * andar e recebe o elevador que deve pegar. Um simulador em modo serviço
+ * avança com o relógio (ou acelerado) e atende chamadas HTTP locais:
+ *
+ * <pre>
+ * GET /chamada?andar=12[&amp;nome=...]  responde "elevador=3"
+ * GET /estatisticas                   latência das chamadas e tempos da simulação
+ * </pre>
+ *
+ * O simulador e o controle não são thread-safe, então somente o thread da
+ * simulação os acessa: cada conexão é atendida por um thread do executor, que
+ * coloca a chamada em uma fila e aguarda a resposta; o thread da simulação
+ * retira as chamadas da fila, avança a simulação até o instante atual e
+ * decide todas as chamadas retiradas em um único lote. A latência de cada
+ * chamada, da leitura da requisição até o envio da resposta, é registrada em
+ * um histograma, inclusive a das chamadas recusadas
+ *
+ * uso: ServicoDespacho [porta=8080] [controle=MenorTempoImediato]
+ * [aceleracao=1] [elevadores=4] [andares=25]
+ */
+public class ServicoDespacho {
+
+	private static final Logger logger = LoggerFactory.getLogger(ServicoDespacho.class);
+
+	// tempo máximo de espera pela decisão do controle
+	private static final Duration tempoMaximoRespostaDefault = Duration.ofSeconds(5l);
+
+	private static final int portaDefault = 8080;
+
+	private final Simulador simulador;
+	private final BlockingQueue<Runnable> tarefas;
+
+	// pessoas aguardando a decisão, acessado somente pelo thread da simulação
+	private final Map<Integer, CompletableFuture<Integer>> despachosPendentes;
+
+	// latências em microssegundos de todas as respostas, protegido pelo
+	// próprio histograma
+	private final HistogramaTempo latencias;
+	private long somaLatencias;
+	private long chamadasRecusadas;
+
+	private double aceleracao;
+	private Duration tempoMaximoResposta;
+	private ExecutorService executor;
+	private boolean executorProprio;
+
+	private HttpServer servidor;
+	private Thread threadSimulacao;
+	private volatile boolean executando;
+	private long inicioNanos;
+
+	/**
+	 * Construtor
+	 *
+	 * @param simulador
+	 *            já configurado e ainda não inicializado, o listener do
+	 *            simulador é substituído pelo do serviço
+	 */
+	public ServicoDespacho(Simulador simulador) {
+		super();
+		this.simulador = simulador;
+		this.tarefas = new LinkedBlockingQueue<>();
+		this.despachosPendentes = new HashMap<>();
+		this.latencias = new HistogramaTempo(TimeUnit.MICROSECONDS);
+		this.aceleracao = 1d;
+		this.tempoMaximoResposta = tempoMaximoRespostaDefault;
+	}
+
+	/**
+	 * Inicializa a simulação no instante atual do relógio e começa a atender
+	 * na porta, 0 para uma porta livre qualquer
+	 *
+	 * @param porta
+	 * @throws IOException
+	 */
+	public void iniciar(int porta) throws IOException {
+		if (this.executando) {
+			throw new RuntimeException("O serviço já foi iniciado");
+		}
+		long agora = System.currentTimeMillis();
+		long resolucao = this.simulador.getResolucaoTempo().toMillis();
+		this.simulador.setListener(new SimulacaoListener() {
+			@Override
+			public void despacho(long instante, Pessoa p, Elevador e) {
+				CompletableFuture<Integer> resposta = despachosPendentes.remove(p.getId());
+				if (resposta != null) {
+					resposta.complete(e.getIdentificacao());
+				}
+			}
+		});
+		this.simulador.inicializarServico(EscalaTempo.deMilis(agora - agora % resolucao));
+		this.inicioNanos = System.nanoTime();
+
+		if (this.executor == null) {
+			// um thread por conexão simultânea
+			this.executor = Executors.newCachedThreadPool();
+			this.executorProprio = true;
+		}
+		this.servidor = HttpServer.create(new InetSocketAddress("localhost", porta), 0);
+		this.servidor.createContext("/chamada", this::atenderChamada);
+		this.servidor.createContext("/estatisticas", this::atenderEstatisticas);
+		this.servidor.setExecutor(this.executor);
+
+		this.executando = true;
+		this.threadSimulacao = new Thread(this::executarSimulacao, "simulacao-servico");
+		this.threadSimulacao.start();
+		this.servidor.start();
+		logger.info(String.format("Serviço de despacho em http://localhost:%d com %s", getPorta(),
+				this.simulador.getElevadorControle().getNome()));
+	}
+
+	/**
+	 * Para de atender, recusa as chamadas ainda não decididas e aguarda o fim
+	 * do thread da simulação. O executor informado em
+	 * {@link #setExecutor(ExecutorService)} não é encerrado
+	 */
+	public void encerrar() {
+		if (!this.executando) {
+			return;
+		}
+		this.servidor.stop(0);
+		this.executando = false;
+		this.threadSimulacao.interrupt();
+		try {
+			this.threadSimulacao.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (this.executorProprio) {
+			this.executor.shutdown();
+			this.executor = null;
+		}
+		logger.info("Serviço de despacho encerrado:" + formatarEstatisticas());
+	}
+
+	/**
+	 * Laço do thread da simulação, o único que acessa o simulador
+	 */
+	private void executarSimulacao() {
+		long resolucao = this.simulador.getResolucaoTempo().toNanos();
+		// acorda ao menos uma vez por tick para manter os elevadores em dia
+		long espera = Math.max(1000000l, (long) (resolucao / this.aceleracao));
+		List<Runnable> lote = new ArrayList<>();
+		try {
+			while (this.executando) {
+				Runnable tarefa = this.tarefas.poll(espera, TimeUnit.NANOSECONDS);
+				if (tarefa != null) {
+					lote.add(tarefa);
+					this.tarefas.drainTo(lote);
+				}
+				for (Runnable t : lote) {
+					t.run();
+				}
+				lote.clear();
+				// chamadas registradas pelas tarefas são decididas neste instante
+				long instante = Math.max(this.simulador.getInstanteAtualTicks(), instanteRelogio(resolucao));
+				if (tarefa != null || instante > this.simulador.getInstanteAtualTicks()) {
+					this.simulador.avancarPara(instante);
+				}
+			}
+		} catch (InterruptedException e) {
+			// encerrar
+		} catch (RuntimeException e) {
+			logger.error("Erro no thread da simulação", e);
+			this.executando = false;
+		}
+		// recusar as chamadas que não serão decididas
+		this.despachosPendentes.values().forEach(r -> r.completeExceptionally(
+				new RuntimeException("Serviço de despacho encerrado")));
+		this.despachosPendentes.clear();
+		List<Runnable> restantes = new ArrayList<>();
+		synchronized (this.tarefas) {
+			// executando já é false: nenhuma tarefa entra na fila depois desta
+			// retirada, ver enfileirar
+			this.tarefas.drainTo(restantes);
+		}
+		for (Runnable tarefa : restantes) {
+			if (tarefa instanceof Chamada) {
+				((Chamada) tarefa).resposta
+						.completeExceptionally(new RuntimeException("Serviço de despacho encerrado"));
+			} else {
+				// consultas de estatísticas ainda podem ser respondidas
+				tarefa.run();
+			}
+		}
+	}
+
+	/**
+	 * Coloca a tarefa na fila do thread da simulação se o serviço estiver em
+	 * execução. A verificação e a inclusão são atômicas em relação à retirada
+	 * final de {@link #executarSimulacao()}, então toda tarefa aceita é
+	 * executada ou recusada, e o thread que a colocou não espera até o tempo
+	 * máximo de resposta
+	 *
+	 * @param tarefa
+	 * @return false se o serviço não está em execução
+	 */
+	private boolean enfileirar(Runnable tarefa) {
+		synchronized (this.tarefas) {
+			if (!this.executando) {
+				return false;
+			}
+			this.tarefas.add(tarefa);
+			return true;
+		}
+	}
+
+	/**
+	 * Tick da simulação correspondente ao relógio, considerando a aceleração
+	 */
+	private long instanteRelogio(long resolucaoNanos) {
+		return (long) ((System.nanoTime() - this.inicioNanos) * this.aceleracao / resolucaoNanos);
+	}
+
+	/**
+	 * Chamada aguardando a decisão do controle, registrada no simulador pelo
+	 * thread da simulação
+	 */
+	private class Chamada implements Runnable {
+
+		private final String nome;
+		private final int andar;
+		private final CompletableFuture<Integer> resposta;
+
+		private Chamada(String nome, int andar) {
+			this.nome = nome;
+			this.andar = andar;
+			this.resposta = new CompletableFuture<>();
+		}
+
+		@Override
+		public void run() {
+			try {
+				Pessoa p = simulador.chamar(this.nome, this.andar);
+				despachosPendentes.put(p.getId(), this.resposta);
+			} catch (RuntimeException e) {
+				this.resposta.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * Pede o elevador para a pessoa, pelo thread da simulação. Pode ser
+	 * chamado de qualquer thread
+	 *
+	 * @param nome
+	 * @param andar
+	 * @return identificação do elevador escolhido pelo controle
+	 */
+	public CompletableFuture<Integer> chamar(String nome, int andar) {
+		Chamada chamada = new Chamada(nome, andar);
+		if (!enfileirar(chamada)) {
+			chamada.resposta.completeExceptionally(new RuntimeException("Serviço de despacho não iniciado"));
+		}
+		return chamada.resposta;
+	}
+
+	private void atenderChamada(HttpExchange troca) throws IOException {
+		long inicio = System.nanoTime();
+		boolean atendida = false;
+		try {
+			Map<String, String> parametros = parametros(troca.getRequestURI().getRawQuery());
+			int andar;
+			try {
+				andar = Integer.parseInt(parametros.getOrDefault("andar", ""));
+			} catch (NumberFormatException e) {
+				responder(troca, 400, "andar inválido");
+				return;
+			}
+			int elevador;
+			try {
+				elevador = chamar(parametros.getOrDefault("nome", "pessoa"), andar)
+						.get(this.tempoMaximoResposta.toMillis(), TimeUnit.MILLISECONDS);
+			} catch (ExecutionException e) {
+				responder(troca, this.executando ? 400 : 503, e.getCause().getMessage());
+				return;
+			} catch (TimeoutException e) {
+				responder(troca, 503, "tempo de resposta esgotado");
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				responder(troca, 503, "chamada interrompida");
+				return;
+			}
+			responder(troca, 200, "elevador=" + elevador);
+			atendida = true;
+		} finally {
+			// recusas e tempos esgotados também entram no histograma, senão o
+			// p99 omitiria justamente as chamadas mais lentas
+			registrarLatencia(System.nanoTime() - inicio, atendida);
+			troca.close();
+		}
+	}
+
+	private void atenderEstatisticas(HttpExchange troca) throws IOException {
+		CompletableFuture<String> estatisticas = new CompletableFuture<>();
+		if (!enfileirar(() -> estatisticas.complete(formatarEstatisticas()))) {
+			estatisticas.completeExceptionally(new RuntimeException("Serviço de despacho encerrado"));
+		}
+		try {
+			responder(troca, 200,
+					estatisticas.get(this.tempoMaximoResposta.toMillis(), TimeUnit.MILLISECONDS).trim());
+		} catch (ExecutionException | TimeoutException e) {
+			responder(troca, 503, "estatísticas indisponíveis");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			responder(troca, 503, "consulta interrompida");
+		} finally {
+			troca.close();
+		}
+	}
+
+	private static void responder(HttpExchange troca, int status, String texto) throws IOException {
+		byte[] corpo = (texto + "\n").getBytes(StandardCharsets.UTF_8);
+		troca.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		troca.sendResponseHeaders(status, corpo.length);
+		try (OutputStream out = troca.getResponseBody()) {
+			out.write(corpo);
+		}
+	}
+
+	private static Map<String, String> parametros(String consulta) throws IOException {
+		Map<String, String> parametros = new HashMap<>();
+		if (consulta == null) {
+			return parametros;
+		}
+		for (String par : consulta.split("&")) {
+			int i = par.indexOf('=');
+			if (i > 0) {
+				parametros.put(URLDecoder.decode(par.substring(0, i), "UTF-8"),
+						URLDecoder.decode(par.substring(i + 1), "UTF-8"));
+			}
+		}
+		return parametros;
+	}
+
+	private void registrarLatencia(long nanos, boolean atendida) {
+		synchronized (this.latencias) {
+			this.latencias.registrar(nanos / 1000l);
+			this.somaLatencias += nanos / 1000l;
+			if (!atendida) {
+				this.chamadasRecusadas += 1;
+			}
+		}
+	}
+
+	/**
+	 * Percentil da latência de todas as chamadas respondidas, inclusive as
+	 * recusadas
+	 *
+	 * @param percentil
+	 * @return
+	 */
+	public Optional<Duration> getPercentilLatencia(double percentil) {
+		synchronized (this.latencias) {
+			return this.latencias.getPercentil(percentil);
+		}
+	}
+
+	/**
+	 * Chamadas respondidas, inclusive as recusadas
+	 *
+	 * @return
+	 */
+	public long getQuantidadeChamadas() {
+		synchronized (this.latencias) {
+			return this.latencias.getQuantidade();
+		}
+	}
+
+	/**
+	 * Chamadas respondidas com erro: andar inválido, tempo de resposta
+	 * esgotado ou serviço encerrado
+	 *
+	 * @return
+	 */
+	public long getQuantidadeRecusadas() {
+		synchronized (this.latencias) {
+			return this.chamadasRecusadas;
+		}
+	}
+
+	/**
+	 * Latência das chamadas e tempos das pessoas já desembarcadas. Os tempos
+	 * da simulação devem ser lidos pelo thread da simulação ou após o
+	 * encerramento
+	 *
+	 * @return
+	 */
+	public String formatarEstatisticas() {
+		long quantidade;
+		long recusadas;
+		long soma;
+		synchronized (this.latencias) {
+			quantidade = this.latencias.getQuantidade();
+			recusadas = this.chamadasRecusadas;
+			soma = this.somaLatencias;
+		}
+		EstatisticasSimulacao e = this.simulador.getEstatisticas();
+		return String.format("%nChamadas atendidas = %d%nChamadas recusadas = %d%nLatência média = %s%n"
+				+ "Latência p50 = %s%nLatência p99 = %s%nTempo médio de espera na fila = %s%n"
+				+ "Tempo médio total de percurso = %s%n",
+				quantidade - recusadas, recusadas, quantidade == 0 ? "-" : Duration.ofNanos(soma * 1000l / quantidade),
+				Utilitarios.formatar(getPercentilLatencia(50)), Utilitarios.formatar(getPercentilLatencia(99)),
+				e == null ? "-" : Utilitarios.formatar(e.getTempoMedioEsperaFila()),
+				e == null ? "-" : Utilitarios.formatar(e.getTempoMedioTotalPercurso()));
+	}
+
+	public int getPorta() {
+		return this.servidor == null ? -1 : this.servidor.getAddress().getPort();
+	}
+
+	public Simulador getSimulador() {
+		return simulador;
+	}
+
+	public double getAceleracao() {
+		return aceleracao;
+	}
+
+	/**
+	 * Segundos simulados por segundo do relógio, o padrão é 1 (tempo real)
+	 *
+	 * @param aceleracao
+	 */
+	public void setAceleracao(double aceleracao) {
+		if (aceleracao <= 0d) {
+			throw new RuntimeException("A aceleração deve ser positiva: " + aceleracao);
+		}
+		this.aceleracao = aceleracao;
+	}
+
+	public Duration getTempoMaximoResposta() {
+		return tempoMaximoResposta;
+	}
+
+	public void setTempoMaximoResposta(Duration tempoMaximoResposta) {
+		this.tempoMaximoResposta = tempoMaximoResposta;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Executor que atende as conexões, o padrão é um pool com um thread por
+	 * conexão simultânea. O executor não é encerrado pelo serviço
+	 *
+	 * @param executor
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+		this.executorProprio = false;
+	}
+
+	/**
+	 * Inicia o serviço e atende até o processo ser interrompido
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		Map<String, String> opcoes = new HashMap<>();
+		for (String a : args) {
+			int i = a.indexOf('=');
+			if (i <= 0) {
+				logger.error("uso: ServicoDespacho [porta=8080] [controle=MenorTempoImediato] [aceleracao=1] "
+						+ "[elevadores=4] [andares=25]");
+				return;
+			}
+			opcoes.put(a.substring(0, i), a.substring(i + 1));
+		}
+		Simulador sim = new Simulador(ElevadorControle.criar(opcoes.getOrDefault("controle", "MenorTempoImediato")));
+		if (opcoes.containsKey("elevadores")) {
+			sim.setQuantidadeElevadores(Integer.parseInt(opcoes.get("elevadores")));
+		}
+		if (opcoes.containsKey("andares")) {
+			sim.setAndarMaximoElevador(Integer.parseInt(opcoes.get("andares")));
+		}
+		ServicoDespacho servico = new ServicoDespacho(sim);
+		servico.setAceleracao(Double.parseDouble(opcoes.getOrDefault("aceleracao", "1")));
+		try {
+			servico.iniciar(Integer.parseInt(opcoes.getOrDefault("porta", String.valueOf(portaDefault))));
+		} catch (IOException e) {
+			logger.error("Erro ao iniciar o serviço de despacho", e);
+			return;
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(servico::encerrar));
+	}
+
+}
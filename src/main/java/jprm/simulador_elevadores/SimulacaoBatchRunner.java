@@ -0,0 +1,124 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executa uma simulação para cada controle sobre a mesma tabela de chegadas,
+ * em paralelo. A tabela não é alterada pelas simulações (ver
+ * {@link PessoaTable}), e cada simulação usa uma instância própria do controle,
+ * criada pela fábrica informada
+ */
+public class SimulacaoBatchRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(SimulacaoBatchRunner.class);
+
+	private final PessoaTable tabelaPessoas;
+	private final List<Supplier<ElevadorControle>> fabricasControle;
+	private ExecutorService executor;
+
+	/**
+	 * Aplicada a cada simulador antes da inicialização, para alterar os
+	 * parâmetros da simulação
+	 */
+	private Consumer<Simulador> configuracao;
+
+	public SimulacaoBatchRunner(PessoaTable tabelaPessoas) {
+		this.tabelaPessoas = tabelaPessoas;
+		this.fabricasControle = new ArrayList<>();
+		// o pool comum dimensiona os threads pela quantidade de processadores
+		this.executor = ForkJoinPool.commonPool();
+		this.configuracao = s -> {
+		};
+	}
+
+	public SimulacaoBatchRunner adicionar(Supplier<ElevadorControle> fabricaControle) {
+		this.fabricasControle.add(fabricaControle);
+		return this;
+	}
+
+	/**
+	 * Executa as simulações e aguarda o fim de todas
+	 * 
+	 * @return resultados na ordem em que os controles foram adicionados
+	 */
+	public List<ResultadoLote> executar() {
+		if (this.fabricasControle.isEmpty()) {
+			throw new RuntimeException("Nenhum controle de elevadores adicionado");
+		}
+		List<Future<ResultadoLote>> futuros = new ArrayList<>(this.fabricasControle.size());
+		for (Supplier<ElevadorControle> fabrica : this.fabricasControle) {
+			futuros.add(this.executor.submit(() -> simular(fabrica.get())));
+		}
+		return Utilitarios.aguardarTodos(futuros, "simulação");
+	}
+
+	private ResultadoLote simular(ElevadorControle controle) {
+		long inicio = System.nanoTime();
+		Simulador sim = new Simulador(controle);
+		this.configuracao.accept(sim);
+		logger.info("Simulação com " + controle.getNome());
+		sim.inicializar(this.tabelaPessoas);
+		sim.executar();
+		logger.info("Simulação Finalizada: " + controle.getNome());
+		return new ResultadoLote(sim, Duration.ofNanos(System.nanoTime() - inicio));
+	}
+
+	/**
+	 * Tabela comparativa dos resultados, uma linha por simulação
+	 * 
+	 * @param resultados
+	 * @return
+	 */
+	public static String formatarComparacao(List<ResultadoLote> resultados) {
+		String formato = "%n%-36s %14s %14s %14s %14s %14s %12s";
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(formato, "Controle", "Média espera", "Média percurso", "Média total", "Maior espera",
+				"Maior total", "Execução"));
+		for (ResultadoLote r : resultados) {
+			EstatisticasSimulacao e = r.getEstatisticas();
+			sb.append(String.format(formato, r.getNome(), Utilitarios.formatar(e.getTempoMedioEsperaFila()),
+					Utilitarios.formatar(e.getTempoMedioChegadaAndar()), Utilitarios.formatar(e.getTempoMedioTotalPercurso()),
+					Utilitarios.formatar(e.getMaiorTempoEsperaFila()), Utilitarios.formatar(e.getMaiorTempoTotalPercurso()),
+					Utilitarios.formatar(Optional.of(r.getTempoExecucao()))));
+		}
+		return sb.toString();
+	}
+
+	public PessoaTable getTabelaPessoas() {
+		return tabelaPessoas;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Executor usado nas simulações, o padrão é o ForkJoinPool comum. O
+	 * executor não é encerrado pelo runner
+	 * 
+	 * @param executor
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	public Consumer<Simulador> getConfiguracao() {
+		return configuracao;
+	}
+
+	public void setConfiguracao(Consumer<Simulador> configuracao) {
+		this.configuracao = configuracao;
+	}
+
+}
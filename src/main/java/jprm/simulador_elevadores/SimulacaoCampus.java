@@ -0,0 +1,147 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Simula um campus com vários prédios, cada prédio com seu simulador, controle
+ * e trajeto de chegadas, em paralelo. Os prédios são independentes, então cada
+ * um é uma tarefa do executor, sem estado compartilhado; os trajetos são lidos
+ * em modo streaming e somente as estatísticas de cada prédio são mantidas, de
+ * modo que a memória depende da quantidade de prédios simulados ao mesmo tempo
+ * e das pessoas em transito, não do tamanho dos trajetos
+ */
+public class SimulacaoCampus {
+
+	private static final Logger logger = LoggerFactory.getLogger(SimulacaoCampus.class);
+
+	private final List<Predio> predios;
+	private ExecutorService executor;
+
+	/**
+	 * Tempo de relógio da última execução, do envio do primeiro prédio ao fim
+	 * do último
+	 */
+	private Duration tempoExecucao;
+
+	public SimulacaoCampus() {
+		this.predios = new ArrayList<>();
+		this.executor = ForkJoinPool.commonPool();
+	}
+
+	public SimulacaoCampus adicionar(Predio predio) {
+		this.predios.add(predio);
+		return this;
+	}
+
+	/**
+	 * Simula todos os prédios e aguarda o fim de todos
+	 *
+	 * @return resultados na ordem em que os prédios foram adicionados
+	 */
+	public List<ResultadoPredio> executar() {
+		if (this.predios.isEmpty()) {
+			throw new RuntimeException("Nenhum prédio adicionado ao campus");
+		}
+		long inicio = System.nanoTime();
+		List<Future<ResultadoPredio>> futuros = new ArrayList<>(this.predios.size());
+		for (Predio predio : this.predios) {
+			futuros.add(this.executor.submit(() -> simular(predio)));
+		}
+		List<ResultadoPredio> resultados = Utilitarios.aguardarTodos(futuros, "simulação");
+		this.tempoExecucao = Duration.ofNanos(System.nanoTime() - inicio);
+		return resultados;
+	}
+
+	private ResultadoPredio simular(Predio predio) {
+		long inicio = System.nanoTime();
+		ElevadorControle controle = predio.getFabricaControle().get();
+		Simulador sim = new Simulador(controle);
+		predio.getConfiguracao().accept(sim);
+		logger.info("Simulação do prédio " + predio.getNome() + " com " + controle.getNome());
+		CursorChegadas cursor = predio.getFonteChegadas().get();
+		try {
+			sim.inicializar(cursor);
+			sim.executar();
+		} finally {
+			cursor.close();
+		}
+		logger.info("Simulação Finalizada: " + predio.getNome());
+		return new ResultadoPredio(predio.getNome(), controle.getNome(), sim.getEstatisticas(),
+				Duration.ofNanos(System.nanoTime() - inicio));
+	}
+
+	/**
+	 * Estatísticas do campus inteiro, somando as pessoas de todos os prédios
+	 *
+	 * @param resultados
+	 * @return
+	 */
+	public static EstatisticasSimulacao consolidar(List<ResultadoPredio> resultados) {
+		EstatisticasSimulacao campus = new EstatisticasSimulacao();
+		for (ResultadoPredio r : resultados) {
+			campus.adicionar(r.getEstatisticas());
+		}
+		return campus;
+	}
+
+	/**
+	 * Tabela com uma linha por prédio e uma linha final com o campus. A
+	 * execução do campus é o tempo de relógio, não a soma das execuções dos
+	 * prédios, de modo que a razão entre as duas é o ganho do paralelismo
+	 *
+	 * @param resultados
+	 * @param tempoExecucao
+	 *            tempo de relógio da execução do campus, ver
+	 *            {@link #getTempoExecucao()}
+	 * @return
+	 */
+	public static String formatarResumo(List<ResultadoPredio> resultados, Duration tempoExecucao) {
+		String formato = "%n%-24s %12s %14s %14s %14s %14s %14s";
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(formato, "Prédio", "Pessoas", "Média espera", "Média total", "p95 total",
+				"Maior total", "Execução"));
+		for (ResultadoPredio r : resultados) {
+			sb.append(linha(formato, r.getNome(), r.getEstatisticas(), r.getTempoExecucao()));
+		}
+		sb.append(linha(formato, "Campus", consolidar(resultados), tempoExecucao));
+		return sb.toString();
+	}
+
+	private static String linha(String formato, String nome, EstatisticasSimulacao e, Duration execucao) {
+		return String.format(formato, nome, e.getQuantidadeDesembarques(), Utilitarios.formatar(e.getTempoMedioEsperaFila()),
+				Utilitarios.formatar(e.getTempoMedioTotalPercurso()), Utilitarios.formatar(e.getPercentilTotalPercurso(95)),
+				Utilitarios.formatar(e.getMaiorTempoTotalPercurso()), Utilitarios.formatar(Optional.of(execucao)));
+	}
+
+	public List<Predio> getPredios() {
+		return predios;
+	}
+
+	public Duration getTempoExecucao() {
+		return tempoExecucao;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Executor usado nas simulações, o padrão é o ForkJoinPool comum. O
+	 * executor não é encerrado pelo campus
+	 *
+	 * @param executor
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+}
@@ -0,0 +1,42 @@
+package jprm.simulador_elevadores;
+
+/**
+ * Recebe os eventos da simulação, chamado pelo thread da simulação. Os
+ * instantes são em milissegundos (UTC), ver {@link EscalaTempo#deMilis(long)}
+ * 
+ * Todos os métodos têm implementação vazia, a pessoa e o elevador são visões
+ * válidas somente durante a chamada (no modo streaming a linha da pessoa é
+ * reaproveitada após o desembarque)
+ */
+public interface SimulacaoListener {
+
+	/**
+	 * Listener sem ação, padrão do {@link Simulador}
+	 */
+	public static final SimulacaoListener NENHUM = new SimulacaoListener() {
+	};
+
+	public default void chegada(long instante, Pessoa p) {
+	}
+
+	/**
+	 * Elevador escolhido pelo controle para a pessoa
+	 */
+	public default void despacho(long instante, Pessoa p, Elevador e) {
+	}
+
+	public default void embarque(long instante, Pessoa p, Elevador e) {
+	}
+
+	public default void desembarque(long instante, Pessoa p, Elevador e) {
+	}
+
+	public default void mudancaStatus(long instante, Elevador e, ElevadorStatus anterior) {
+	}
+
+	/**
+	 * Fim da simulação
+	 */
+	public default void finalizada(long instante) {
+	}
+}
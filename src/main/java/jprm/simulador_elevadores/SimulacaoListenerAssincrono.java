@@ -0,0 +1,225 @@
+package jprm.simulador_elevadores;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registra os eventos da simulação em um Writer, uma linha CSV por evento, a
+ * partir de um thread próprio
+ * 
+ * O thread da simulação somente copia os campos do evento para uma posição
+ * de um buffer circular pré-alocado, sem formatação nem criação de objetos. O
+ * thread de escrita consome as posições publicadas em lotes, formata as linhas
+ * e faz um flush por lote. Quando o buffer está cheio o thread da simulação
+ * aguarda a escrita liberar posições, sem perder eventos
+ * 
+ * Pode ser compartilhado por várias simulações, a publicação é sincronizada
+ */
+public class SimulacaoListenerAssincrono implements SimulacaoListener, Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(SimulacaoListenerAssincrono.class);
+
+	public static final String CABECALHO = "instante,evento,elevador,status,statusAnterior,lotacao,pessoa,andar";
+
+	private static final byte CHEGADA = 0;
+	private static final byte DESPACHO = 1;
+	private static final byte EMBARQUE = 2;
+	private static final byte DESEMBARQUE = 3;
+	private static final byte MUDANCA_STATUS = 4;
+	private static final byte FINALIZADA = 5;
+	private static final String[] nomesEventos = { "chegada", "despacho", "embarque", "desembarque",
+			"mudancaStatus", "finalizada" };
+
+	private static final int capacidadeDefault = 1 << 16;
+
+	// pausa do thread de escrita quando não há eventos, e do thread da
+	// simulação quando o buffer está cheio
+	private static final long esperaNanos = 50000l;
+
+	private final Writer saida;
+	private final int mascara;
+
+	/**
+	 * Buffer circular, uma coluna por campo do evento
+	 */
+	private final byte[] eventos;
+	private final long[] instantes;
+	private final int[] elevadores;
+	private final ElevadorStatus[] status;
+	private final ElevadorStatus[] statusAnteriores;
+	private final int[] lotacoes;
+	private final String[] pessoas;
+	private final int[] andares;
+
+	/**
+	 * Sequências: próxima posição a publicar e próxima posição a consumir
+	 */
+	private final AtomicLong publicados;
+	private final AtomicLong consumidos;
+	private volatile boolean fechado;
+	private final Thread escritor;
+
+	public SimulacaoListenerAssincrono(Writer saida) {
+		this(saida, capacidadeDefault);
+	}
+
+	/**
+	 * @param saida
+	 *            fechado no {@link #close()}
+	 * @param capacidade
+	 *            quantidade de eventos no buffer, arredondada para potência de
+	 *            2
+	 */
+	public SimulacaoListenerAssincrono(Writer saida, int capacidade) {
+		int tamanho = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+		this.saida = saida;
+		this.mascara = tamanho - 1;
+		this.eventos = new byte[tamanho];
+		this.instantes = new long[tamanho];
+		this.elevadores = new int[tamanho];
+		this.status = new ElevadorStatus[tamanho];
+		this.statusAnteriores = new ElevadorStatus[tamanho];
+		this.lotacoes = new int[tamanho];
+		this.pessoas = new String[tamanho];
+		this.andares = new int[tamanho];
+		this.publicados = new AtomicLong();
+		this.consumidos = new AtomicLong();
+		this.escritor = new Thread(this::escrever, "simulacao-listener");
+		this.escritor.setDaemon(true);
+		this.escritor.start();
+	}
+
+	@Override
+	public void chegada(long instante, Pessoa p) {
+		publicar(CHEGADA, instante, null, null, p);
+	}
+
+	@Override
+	public void despacho(long instante, Pessoa p, Elevador e) {
+		publicar(DESPACHO, instante, e, null, p);
+	}
+
+	@Override
+	public void embarque(long instante, Pessoa p, Elevador e) {
+		publicar(EMBARQUE, instante, e, null, p);
+	}
+
+	@Override
+	public void desembarque(long instante, Pessoa p, Elevador e) {
+		publicar(DESEMBARQUE, instante, e, null, p);
+	}
+
+	@Override
+	public void mudancaStatus(long instante, Elevador e, ElevadorStatus anterior) {
+		publicar(MUDANCA_STATUS, instante, e, anterior, null);
+	}
+
+	@Override
+	public void finalizada(long instante) {
+		publicar(FINALIZADA, instante, null, null, null);
+	}
+
+	private synchronized void publicar(byte evento, long instante, Elevador e, ElevadorStatus anterior, Pessoa p) {
+		if (this.fechado) {
+			throw new RuntimeException("O listener de eventos da simulação já foi fechado");
+		}
+		long sequencia = this.publicados.get();
+		while (sequencia - this.consumidos.get() > this.mascara) {
+			LockSupport.parkNanos(esperaNanos);
+		}
+		int i = (int) sequencia & this.mascara;
+		this.eventos[i] = evento;
+		this.instantes[i] = instante;
+		this.elevadores[i] = e == null ? 0 : e.getIdentificacao();
+		this.status[i] = e == null ? null : e.getStatus();
+		this.statusAnteriores[i] = anterior;
+		this.lotacoes[i] = e == null ? 0 : e.getQuantidadeLotacao();
+		this.pessoas[i] = p == null ? null : p.getNome();
+		this.andares[i] = p == null ? 0 : p.getAndar();
+		// publica a posição somente após a escrita dos campos
+		this.publicados.lazySet(sequencia + 1);
+	}
+
+	private void escrever() {
+		StringBuilder linha = new StringBuilder(128);
+		try {
+			this.saida.write(CABECALHO);
+			this.saida.write(System.lineSeparator());
+			while (true) {
+				long consumido = this.consumidos.get();
+				long publicado = this.publicados.get();
+				if (consumido == publicado) {
+					if (this.fechado && publicado == this.publicados.get()) {
+						break;
+					}
+					LockSupport.parkNanos(esperaNanos);
+					continue;
+				}
+				for (long s = consumido; s < publicado; s++) {
+					formatar(linha, (int) s & this.mascara);
+					this.saida.append(linha);
+					this.pessoas[(int) s & this.mascara] = null;
+				}
+				this.saida.flush();
+				this.consumidos.lazySet(publicado);
+			}
+			this.saida.flush();
+		} catch (IOException e) {
+			logger.error("Erro ao escrever eventos da simulação", e);
+			// descarta os eventos para não bloquear a simulação
+			while (!this.fechado) {
+				this.consumidos.lazySet(this.publicados.get());
+				LockSupport.parkNanos(esperaNanos);
+			}
+		}
+	}
+
+	private void formatar(StringBuilder linha, int i) {
+		linha.setLength(0);
+		DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(EscalaTempo.deMilis(this.instantes[i]), linha);
+		linha.append(',').append(nomesEventos[this.eventos[i]]).append(',');
+		if (this.status[i] != null) {
+			linha.append(this.elevadores[i]).append(',').append(this.status[i]).append(',');
+			if (this.statusAnteriores[i] != null) {
+				linha.append(this.statusAnteriores[i]);
+			}
+			linha.append(',').append(this.lotacoes[i]);
+		} else {
+			linha.append(",,,");
+		}
+		linha.append(',');
+		if (this.pessoas[i] != null) {
+			linha.append('"').append(this.pessoas[i].replace("\"", "\"\"")).append('"');
+		}
+		linha.append(',');
+		if (this.eventos[i] <= DESEMBARQUE) {
+			linha.append(this.andares[i]);
+		}
+		linha.append(System.lineSeparator());
+	}
+
+	/**
+	 * Aguarda a escrita de todos os eventos publicados e fecha o Writer
+	 */
+	@Override
+	public void close() throws IOException {
+		// aguarda publicações em andamento
+		synchronized (this) {
+			this.fechado = true;
+		}
+		try {
+			this.escritor.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.saida.close();
+	}
+
+}
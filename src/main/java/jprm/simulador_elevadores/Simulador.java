@@ -3,12 +3,10 @@ package jprm.simulador_elevadores;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.PriorityQueue;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,11 +19,67 @@ public class Simulador {
 	 * Parâmetros da simulação
 	 */
 	private LocalDateTime instanteInicial;
-	private LocalDateTime instanteAtual;
-	private LocalDateTime instanteFinal;
-	private List<Pessoa> listaPessoas;
+	private EscalaTempo escalaTempo;
+
+	/**
+	 * Instantes em ticks da escala de tempo da simulação
+	 */
+	private long instanteAtual;
+	private long instanteFinal;
+	private PessoaTable tabelaPessoas;
+	private ResultadoSimulacao resultado;
 	private List<Elevador> listaElevadores;
 	private ElevadorControle elevadorControle;
+	private ModoSimulacao modoSimulacao;
+	private SimulacaoListener listener;
+
+	/**
+	 * Status de cada elevador na última notificação ao listener
+	 */
+	private ElevadorStatus[] statusNotificados;
+
+	/**
+	 * Pessoas que chegaram no instante atual, decididas em lote pelo controle
+	 */
+	private final List<Pessoa> loteChegadas = new ArrayList<>();
+
+	/**
+	 * Cursor de chegadas ordenadas pelo instante de chegada, consumido
+	 * conforme o instante atual avança. A chegada pendente é a próxima pessoa
+	 * a chegar, já lida do cursor
+	 */
+	private CursorChegadas cursorChegadas;
+	private boolean chegadaPendente;
+	private long instanteChegadaPendente;
+
+	/**
+	 * No modo serviço as pessoas chegam por {@link #chamar(String, int)} e a
+	 * simulação não finaliza enquanto recebe chamadas
+	 */
+	private boolean recebendoChamadas;
+	private final List<Pessoa> chamadasPendentes = new ArrayList<>();
+	private long instanteChamadas;
+
+	/**
+	 * No modo streaming as pessoas são copiadas para a tabela somente na
+	 * chegada e a linha é liberada no desembarque, mantendo na memória somente
+	 * as pessoas em transito
+	 */
+	private boolean reciclarPessoas;
+	private EstatisticasSimulacao estatisticas;
+
+	/**
+	 * Contadores atualizados na chegada, embarque e desembarque de pessoas
+	 */
+	private int pessoasAguardandoEmbarque;
+	private int pessoasEmTransito;
+
+	/**
+	 * Eventos futuros, usados somente no modo de eventos discretos
+	 */
+	private PriorityQueue<Evento> filaEventos;
+	private long[] eventosAgendadosElevadores;
+	private long chegadaAgendada;
 
 	private Integer quantidadeElevadores;
 	private Duration periodoParadaElevador;
@@ -34,9 +88,20 @@ public class Simulador {
 	private Integer andarMinimoElevador;
 	private Integer andarMaximoElevador;
 	private Integer andarInicialElevador;
+	private Duration resolucaoTempo;
 
-	// assumindo 1s como maior unidade de tempo sem perda de eventos
-	private static final Long passoSimulacaoSegundosDefault = 1l;
+	/**
+	 * Indica instante ainda não definido
+	 */
+	private static final long SEM_INSTANTE = -1l;
+
+	// assumindo 1s como maior unidade de tempo sem perda de eventos, cada
+	// passo da simulação corresponde a um tick da escala de tempo
+	private static final Duration resolucaoTempoDefault = Duration.ofSeconds(1l);
+
+	// eventos discretos processam somente os instantes em que algo acontece,
+	// com resultado idêntico ao passo fixo
+	private static final ModoSimulacao modoSimulacaoDefault = ModoSimulacao.EVENTOS_DISCRETOS;
 
 	/**
 	 * Segundo enunciado:
@@ -68,17 +133,87 @@ public class Simulador {
 			throw new RuntimeException("A lista de pessoas para simulação está vazia");
 		}
 
-		this.listaPessoas = pessoas;
+		inicializar(PessoaTable.de(pessoas));
+	}
+
+	/**
+	 * Inicializa a simulação sobre a tabela de chegadas, que não é alterada.
+	 * Os instantes de embarque e desembarque são escritos no resultado da
+	 * simulação, ver {@link #getResultado()}, de modo que a mesma tabela pode
+	 * ser usada por várias simulações
+	 * 
+	 * @param tabela
+	 */
+	public void inicializar(PessoaTable tabela) {
+		if (tabela.tamanho() == 0) {
+			throw new RuntimeException("A tabela de pessoas para simulação está vazia");
+		}
+
+		// ordenação estável, pessoas que chegam no mesmo instante mantêm a
+		// ordem da tabela
+		inicializar(tabela.cursorPorChegada(), tabela, false);
+	}
+
+	/**
+	 * Inicializa a simulação em modo streaming: as pessoas são lidas do cursor
+	 * somente quando chegam, e descartadas após o desembarque, a memória usada
+	 * é proporcional à quantidade de pessoas em transito. As chegadas devem
+	 * estar ordenadas pelo instante de chegada
+	 * 
+	 * @param cursor
+	 */
+	public void inicializar(CursorChegadas cursor) {
+		inicializar(cursor, new PessoaTable(this.quantidadeElevadores * this.lotacaoMaximaElevador), true);
+	}
 
-		Optional<LocalDateTime> instanteInicialOpt = pessoas.stream().filter(Objects::nonNull)
-				.map(Pessoa::getInstanteChegada).min(LocalDateTime::compareTo);
+	/**
+	 * Inicializa a simulação em modo serviço, sem chegadas previstas: as
+	 * pessoas chegam por {@link #chamar(String, int)} e a simulação avança por
+	 * {@link #avancarPara(long)} até {@link #encerrarChamadas()}. Como no modo
+	 * streaming, somente as pessoas em transito ficam na memória
+	 * 
+	 * @param instanteInicial
+	 *            instante do tick zero
+	 */
+	public void inicializarServico(LocalDateTime instanteInicial) {
+		inicializar(CursorChegadas.de(Collections.emptyIterator()),
+				new PessoaTable(this.quantidadeElevadores * this.lotacaoMaximaElevador), true, instanteInicial);
+	}
 
+	private void inicializar(CursorChegadas cursor, PessoaTable tabela, boolean reciclarPessoas) {
 		// inicializar instanteInicial
-		this.instanteInicial = instanteInicialOpt
-				.orElseThrow(() -> new RuntimeException("Não foi possível obter o instante inicial para a simulação"));
+		if (!cursor.avancar()) {
+			throw new RuntimeException("Não foi possível obter o instante inicial para a simulação");
+		}
+		inicializar(cursor, tabela, reciclarPessoas, null);
+	}
 
-		// LocalDateTime é imutável
-		this.instanteAtual = LocalDateTime.from(this.instanteInicial);
+	/**
+	 * @param instanteInicial
+	 *            null para iniciar na chegada em que o cursor está posicionado,
+	 *            senão inicia em modo serviço
+	 */
+	private void inicializar(CursorChegadas cursor, PessoaTable tabela, boolean reciclarPessoas,
+			LocalDateTime instanteInicial) {
+		this.tabelaPessoas = tabela;
+		this.resultado = new ResultadoSimulacao(tabela.tamanho());
+		this.reciclarPessoas = reciclarPessoas;
+		this.cursorChegadas = cursor;
+		this.pessoasAguardandoEmbarque = 0;
+		this.pessoasEmTransito = 0;
+		this.estatisticas = new EstatisticasSimulacao();
+
+		this.recebendoChamadas = instanteInicial != null;
+		this.chamadasPendentes.clear();
+		this.instanteChamadas = 0l;
+		this.instanteInicial = this.recebendoChamadas ? instanteInicial : EscalaTempo.deMilis(cursor.getChegada());
+		this.escalaTempo = new EscalaTempo(this.instanteInicial, this.resolucaoTempo);
+		this.chegadaPendente = !this.recebendoChamadas;
+		if (this.chegadaPendente) {
+			this.instanteChegadaPendente = this.escalaTempo.milisParaTicks(cursor.getChegada());
+		}
+		this.instanteAtual = 0l;
+		this.instanteFinal = SEM_INSTANTE;
 
 		// incializar elevadores
 		this.listaElevadores = new ArrayList<Elevador>(this.quantidadeElevadores);
@@ -89,152 +224,461 @@ public class Simulador {
 			e.setAndarMinimo(this.andarMinimoElevador);
 			e.setIdentificacao(i + 1);
 			e.setMarcadorTemporal(this.instanteAtual);
-			e.setPeriodoEntreAndares(this.periodoEntreAndaresElevador);
-			e.setPeriodoParada(this.periodoParadaElevador);
+			e.setPeriodoEntreAndares(this.escalaTempo.paraTicks(this.periodoEntreAndaresElevador));
+			e.setPeriodoParada(this.escalaTempo.paraTicks(this.periodoParadaElevador));
 			e.setStatus(ElevadorStatus.ESPERA_TERREO);
 			this.listaElevadores.add(e);
 		}
 
+		this.elevadorControle.vincular(this);
 		this.elevadorControle.inicializar(this.listaElevadores);
+		this.statusNotificados = new ElevadorStatus[this.listaElevadores.size()];
+		for (int i = 0; i < this.statusNotificados.length; i++) {
+			this.statusNotificados[i] = this.listaElevadores.get(i).getStatus();
+		}
+
+		// os eventos são agendados conforme o cursor de chegadas avança e o
+		// status de cada elevador muda
+		this.filaEventos = new PriorityQueue<>();
+		this.eventosAgendadosElevadores = new long[this.listaElevadores.size()];
+		Arrays.fill(this.eventosAgendadosElevadores, Elevador.SEM_EVENTO);
+		this.chegadaAgendada = SEM_INSTANTE;
+	}
+
+	/**
+	 * Executa a simulação até o fim, conforme o modo de simulação configurado
+	 */
+	public void executar() {
+		if (this.modoSimulacao == ModoSimulacao.PASSO_FIXO) {
+			while (processarInstante() == SimulacaoStatus.PROCESSANDO) {
+				incrementarInstanteAtual();
+			}
+		} else {
+			while (processarInstante() == SimulacaoStatus.PROCESSANDO) {
+				avancarProximoEvento();
+			}
+		}
+	}
+
+	/**
+	 * Executa a simulação até finalizar ou até o instante atual passar do
+	 * instante limite, sem processar instantes posteriores ao limite
+	 * 
+	 * @param instanteLimite
+	 *            em ticks
+	 * @return
+	 */
+	public SimulacaoStatus executarAte(long instanteLimite) {
+		return executarAte(instanteLimite, false, 0l);
+	}
+
+	/**
+	 * Como {@link #executarAte(long)}, interrompendo também quando o relógio
+	 * passa do prazo, verificado a cada instante processado. Usado para
+	 * abandonar projeções que não terminaram a tempo sem continuar ocupando o
+	 * thread
+	 * 
+	 * @param instanteLimite
+	 *            em ticks
+	 * @param prazoNanos
+	 *            valor de {@link System#nanoTime()} a partir do qual a execução
+	 *            é interrompida
+	 * @return PROCESSANDO se interrompida pelo limite ou pelo prazo
+	 */
+	public SimulacaoStatus executarAte(long instanteLimite, long prazoNanos) {
+		return executarAte(instanteLimite, true, prazoNanos);
+	}
+
+	private SimulacaoStatus executarAte(long instanteLimite, boolean comPrazo, long prazoNanos) {
+		while (this.instanteAtual <= instanteLimite) {
+			if (comPrazo && System.nanoTime() - prazoNanos >= 0) {
+				return SimulacaoStatus.PROCESSANDO;
+			}
+			if (processarInstante() == SimulacaoStatus.FINALIZADA) {
+				return SimulacaoStatus.FINALIZADA;
+			}
+			if (this.modoSimulacao == ModoSimulacao.PASSO_FIXO) {
+				incrementarInstanteAtual();
+			} else {
+				avancarProximoEvento();
+			}
+		}
+		return SimulacaoStatus.PROCESSANDO;
+	}
+
+	/**
+	 * Cria uma cópia independente do estado atual da simulação, para projetar o
+	 * futuro sem alterar a simulação original. Somente as pessoas em fila ou em
+	 * transito são copiadas, para uma tabela e resultado próprios (custo
+	 * proporcional às pessoas em transito, não ao tamanho da tabela); a cópia
+	 * não recebe novas chegadas e não notifica o listener. A cópia processa
+	 * novamente o instante atual, o que não altera os elevadores já
+	 * atualizados nesse instante
+	 * 
+	 * @return
+	 */
+	public Simulador bifurcar() {
+		if (this.escalaTempo == null) {
+			throw new RuntimeException("A simulação não foi inicializada");
+		}
+		Simulador copia = new Simulador(this.elevadorControle);
+		copia.quantidadeElevadores = this.quantidadeElevadores;
+		copia.periodoParadaElevador = this.periodoParadaElevador;
+		copia.periodoEntreAndaresElevador = this.periodoEntreAndaresElevador;
+		copia.lotacaoMaximaElevador = this.lotacaoMaximaElevador;
+		copia.andarMinimoElevador = this.andarMinimoElevador;
+		copia.andarMaximoElevador = this.andarMaximoElevador;
+		copia.andarInicialElevador = this.andarInicialElevador;
+		copia.resolucaoTempo = this.resolucaoTempo;
+		copia.modoSimulacao = this.modoSimulacao;
+		copia.instanteInicial = this.instanteInicial;
+		copia.escalaTempo = this.escalaTempo;
+		copia.instanteAtual = this.instanteAtual;
+		copia.instanteFinal = SEM_INSTANTE;
+
+		int ativos = this.pessoasAguardandoEmbarque + this.pessoasEmTransito;
+		copia.tabelaPessoas = new PessoaTable(ativos + 1);
+		copia.resultado = new ResultadoSimulacao(ativos + 1);
+		copia.reciclarPessoas = false;
+		copia.chegadaPendente = false;
+		copia.estatisticas = new EstatisticasSimulacao();
+		copia.pessoasAguardandoEmbarque = this.pessoasAguardandoEmbarque;
+		copia.pessoasEmTransito = this.pessoasEmTransito;
+
+		copia.listaElevadores = new ArrayList<Elevador>(this.listaElevadores.size());
+		for (Elevador e : this.listaElevadores) {
+			copia.listaElevadores.add(e.copiar(p -> copia.copiarPessoa(p, this.resultado.getEmbarque(p.getId()))));
+		}
+		copia.statusNotificados = this.statusNotificados.clone();
+		copia.filaEventos = new PriorityQueue<>();
+		copia.eventosAgendadosElevadores = new long[copia.listaElevadores.size()];
+		Arrays.fill(copia.eventosAgendadosElevadores, Elevador.SEM_EVENTO);
+		copia.chegadaAgendada = SEM_INSTANTE;
+		return copia;
+	}
+
+	/**
+	 * Acrescenta uma cópia da pessoa no final da fila do elevador da posição
+	 * indicada, como se tivesse chegado agora; usado em simulações bifurcadas
+	 * para avaliar a escolha de um elevador
+	 * 
+	 * @param indiceElevador
+	 * @param p
+	 * @return a cópia da pessoa
+	 */
+	public Pessoa adicionarNaFila(int indiceElevador, Pessoa p) {
+		Pessoa copia = copiarPessoa(p, PessoaTable.SEM_INSTANTE);
+		this.listaElevadores.get(indiceElevador).getFilaTerreo().adicionar(copia);
+		this.pessoasAguardandoEmbarque += 1;
+		this.estatisticas.registrarChegada();
+		return copia;
+	}
+
+	private Pessoa copiarPessoa(Pessoa p, long embarque) {
+		int id = this.tabelaPessoas.adicionar(p.getNome(), p.getAndar(), p.getTabela().getChegada(p.getId()));
+		this.resultado.garantirCapacidade(id + 1);
+		this.resultado.limpar(id);
+		if (embarque != PessoaTable.SEM_INSTANTE) {
+			this.resultado.setEmbarque(id, embarque);
+		}
+		return this.tabelaPessoas.getPessoa(this.resultado, id);
+	}
+
+	/**
+	 * Registra a chegada de uma pessoa no modo serviço. A pessoa é decidida
+	 * pelo controle, junto com as demais chamadas pendentes, no próximo
+	 * instante processado; o elevador escolhido é informado ao listener em
+	 * {@link SimulacaoListener#despacho(long, Pessoa, Elevador)}
+	 * 
+	 * @param nome
+	 * @param andar
+	 * @return a pessoa, cuja identificação é válida até o desembarque
+	 */
+	public Pessoa chamar(String nome, int andar) {
+		if (!this.recebendoChamadas) {
+			throw new RuntimeException("A simulação não está recebendo chamadas");
+		}
+		if (andar <= this.andarMinimoElevador || andar > this.andarMaximoElevador) {
+			throw new RuntimeException("Andar fora do intervalo atendido pelos elevadores: " + andar);
+		}
+		int id = this.tabelaPessoas.adicionar(nome, andar, this.escalaTempo.paraMilis(this.instanteAtual));
+		this.resultado.garantirCapacidade(id + 1);
+		this.resultado.limpar(id);
+		Pessoa p = this.tabelaPessoas.getPessoa(this.resultado, id);
+		this.chamadasPendentes.add(p);
+		return p;
+	}
+
+	/**
+	 * Processa os eventos anteriores ao instante e então o próprio instante,
+	 * com as chamadas pendentes. O instante pode ser o instante atual, que é
+	 * processado novamente sem alterar os elevadores já atualizados nele
+	 * 
+	 * @param instante
+	 *            em ticks, não anterior ao instante atual
+	 * @return
+	 */
+	public SimulacaoStatus avancarPara(long instante) {
+		if (instante < this.instanteAtual) {
+			throw new RuntimeException("Instante anterior ao instante atual da simulação: " + instante);
+		}
+		// as chamadas pendentes chegam no instante, não nos intermediários
+		this.instanteChamadas = instante;
+		if (this.modoSimulacao == ModoSimulacao.PASSO_FIXO) {
+			while (this.instanteAtual < instante) {
+				if (processarInstante() == SimulacaoStatus.FINALIZADA) {
+					return SimulacaoStatus.FINALIZADA;
+				}
+				incrementarInstanteAtual();
+			}
+		} else {
+			long proximo;
+			while ((proximo = proximoEvento()) != SEM_INSTANTE && proximo < instante) {
+				this.filaEventos.poll();
+				this.instanteAtual = proximo;
+				if (processarInstante() == SimulacaoStatus.FINALIZADA) {
+					return SimulacaoStatus.FINALIZADA;
+				}
+			}
+			this.instanteAtual = instante;
+		}
+		return processarInstante();
+	}
+
+	/**
+	 * Deixa de receber chamadas, a simulação finaliza quando todas as pessoas
+	 * desembarcarem, ver {@link #executar()}
+	 */
+	public void encerrarChamadas() {
+		this.recebendoChamadas = false;
 	}
 
 	public void incrementarInstanteAtual() {
-		this.instanteAtual = this.instanteAtual.plusSeconds(passoSimulacaoSegundosDefault);
+		this.instanteAtual += 1;
+	}
+
+	/**
+	 * Avança o instante atual diretamente para o instante do próximo evento,
+	 * sem processar os instantes intermediários em que nada acontece
+	 */
+	public void avancarProximoEvento() {
+		long proximo = proximoEvento();
+		if (proximo == SEM_INSTANTE) {
+			throw new RuntimeException("Não há eventos futuros, mas a simulação não foi finalizada");
+		}
+		this.filaEventos.poll();
+		this.instanteAtual = proximo;
+	}
+
+	/**
+	 * Agenda os eventos do instante atual e descarta os já processados
+	 * 
+	 * @return instante do próximo evento, que continua na fila, ou SEM_INSTANTE
+	 */
+	private long proximoEvento() {
+		agendarProximaChegada();
+		agendarEventosElevadores();
+
+		// descartar eventos já processados
+		while (!this.filaEventos.isEmpty() && this.filaEventos.peek().getInstante() <= this.instanteAtual) {
+			this.filaEventos.poll();
+		}
+		return this.filaEventos.isEmpty() ? SEM_INSTANTE : this.filaEventos.peek().getInstante();
+	}
+
+	/**
+	 * Agenda a chegada da próxima pessoa do cursor, se ainda não agendada
+	 */
+	private void agendarProximaChegada() {
+		if (this.chegadaPendente) {
+			long instante = this.instanteChegadaPendente;
+			if (instante != this.chegadaAgendada) {
+				this.filaEventos.add(new Evento(instante));
+				this.chegadaAgendada = instante;
+			}
+		}
+	}
+
+	/**
+	 * Agenda o próximo evento de cada elevador cujo status mudou no instante
+	 * atual
+	 */
+	private void agendarEventosElevadores() {
+		long instanteMinimo = this.instanteAtual + 1;
+		for (int i = 0; i < this.listaElevadores.size(); i++) {
+			Elevador e = this.listaElevadores.get(i);
+			long instante = e.calcularInstanteProximoEvento(instanteMinimo);
+			if (instante != Elevador.SEM_EVENTO && instante != this.eventosAgendadosElevadores[i]) {
+				this.filaEventos.add(new Evento(instante));
+				this.eventosAgendadosElevadores[i] = instante;
+			}
+		}
 	}
 
 	public SimulacaoStatus processarInstante() {
-		if (this.instanteAtual == null) {
-			throw new RuntimeException("O instante atual é nulo");
+		if (this.escalaTempo == null) {
+			throw new RuntimeException("A simulação não foi inicializada");
 		}
-		if (this.instanteFinal != null && this.instanteAtual.isAfter(instanteFinal)) {
+		if (this.instanteFinal != SEM_INSTANTE && this.instanteAtual > this.instanteFinal) {
 			throw new RuntimeException("Instante atual é posterior ao final da simulação");
 		}
 
+		long agora = this.escalaTempo.paraMilis(this.instanteAtual);
+
 		// atualizar posição elevadores
-		this.listaElevadores.forEach(e -> e.atualizar(this.instanteAtual));
+		for (Elevador e : this.listaElevadores) {
+			e.atualizar(this.instanteAtual);
+		}
+		notificarMudancasStatus(agora);
 
 		// se o elevador estiver parado, verifica se há pessoas para desembarque
 		for (Elevador e : this.listaElevadores) {
 			if (e.getStatus() == ElevadorStatus.PARADO_SUBIR || e.getStatus() == ElevadorStatus.PARADO_DESCER) {
-				List<Pessoa> lotacao = e.getLotacao().stream().filter(p -> p.getAndar() == e.getAndarAtual())
-						.collect(Collectors.toList());
-				e.getLotacao().removeAll(lotacao);
-				lotacao.forEach(p -> {
-					p.setInstanteDesembarque(this.instanteAtual);
-					registrarDesembarque(p, e);
-				});
+				List<Pessoa> lotacao = e.desembarcar();
+				this.pessoasEmTransito -= lotacao.size();
+				for (Pessoa p : lotacao) {
+					int id = p.getId();
+					long embarque = this.resultado.getEmbarque(id);
+					this.resultado.setDesembarque(id, agora);
+					this.estatisticas.registrarDesembarque(embarque - this.tabelaPessoas.getChegada(id),
+							agora - embarque);
+					this.listener.desembarque(agora, p, e);
+					if (this.reciclarPessoas) {
+						this.tabelaPessoas.liberar(id);
+					}
+				}
 			}
 		}
 
-		// pegar pessoas para processamento (instante atual = instante de
-		// chegada)
-		List<Pessoa> pessoasChegaram = this.listaPessoas.stream()
-				.filter(p -> p.getInstanteChegada().isEqual(this.instanteAtual)).collect(Collectors.toList());
-
-		// para cada pessoa para o controlador decidirá qual elevador pegar, e
-		// adiciona a pessoa no final da lista da fila do terreo
-		pessoasChegaram.forEach(p -> this.elevadorControle.decisao(p, instanteAtual).getFilaTerreo().add(p));
+		// pegar pessoas para processamento (instante de chegada até o instante
+		// atual), avançando o cursor de chegadas. O controlador decide em
+		// lote qual elevador cada pessoa deve pegar, e a pessoa é adicionada
+		// no final da lista da fila do terreo
+		this.loteChegadas.clear();
+		while (this.chegadaPendente && this.instanteChegadaPendente <= this.instanteAtual) {
+			CursorChegadas c = this.cursorChegadas;
+			int id = c.getId();
+			if (this.reciclarPessoas) {
+				id = this.tabelaPessoas.adicionar(c.getNome(), c.getAndar(), c.getChegada());
+				this.resultado.garantirCapacidade(id + 1);
+				this.resultado.limpar(id);
+			}
+			Pessoa p = this.tabelaPessoas.getPessoa(this.resultado, id);
+			this.listener.chegada(agora, p);
+			this.loteChegadas.add(p);
+			avancarCursorChegadas();
+		}
+		if (this.instanteAtual >= this.instanteChamadas) {
+			for (Pessoa p : this.chamadasPendentes) {
+				// a chamada chega no instante em que é processada
+				this.tabelaPessoas.redefinirChegada(p.getId(), agora);
+				this.listener.chegada(agora, p);
+				this.loteChegadas.add(p);
+			}
+			this.chamadasPendentes.clear();
+		}
+		if (!this.loteChegadas.isEmpty()) {
+			this.elevadorControle.decidirLote(this.loteChegadas, instanteAtual, (p, e) -> {
+				this.listener.despacho(agora, p, e);
+				e.getFilaTerreo().adicionar(p);
+				this.pessoasAguardandoEmbarque += 1;
+				this.estatisticas.registrarChegada();
+			});
+		}
 
 		// se o elevador estiver em espera no andar minimo, verifica se há
 		// pessoas para embarque, se o elevador estiver no andar minimo mas o
 		// status for parado_subindo considera-se que o elevador não está mais
 		// disponível para embarque de pessoas na fila que acabaram de chegar
-		this.listaElevadores.stream().filter(e -> e.getStatus() == ElevadorStatus.ESPERA_TERREO).forEach(e -> {
-			List<Pessoa> pessoasFila = e.getFilaTerreo();
-			if (!pessoasFila.isEmpty()) {
+		for (Elevador e : this.listaElevadores) {
+			if (e.getStatus() != ElevadorStatus.ESPERA_TERREO) {
+				continue;
+			}
+			FilaTerreo fila = e.getFilaTerreo();
+			if (!fila.isEmpty()) {
 				e.setStatus(ElevadorStatus.PARADO_SUBIR);
 			}
-			List<Pessoa> lotacao = e.getLotacao();
-			// usando iterator para evitar problemas de concorrencia na chamada
-			// array.remove(obj)
-			Iterator<Pessoa> it = pessoasFila.iterator();
-			while (it.hasNext()) {
-				Pessoa p = it.next();
-				if (lotacao.size() < this.getLotacaoMaximaElevador()) {
-					lotacao.add(p);
-					it.remove();
-					p.setInstanteEmbarque(instanteAtual);
-				}
+			// embarca as pessoas do início da fila até a lotação máxima
+			for (Pessoa p : fila.drenarPara(e, this.getLotacaoMaximaElevador())) {
+				this.resultado.setEmbarque(p.getId(), agora);
+				this.estatisticas.registrarEmbarque(agora - this.tabelaPessoas.getChegada(p.getId()));
+				this.pessoasAguardandoEmbarque -= 1;
+				this.pessoasEmTransito += 1;
+				this.listener.embarque(agora, p, e);
 			}
-		});
-
-		// condição: se lista de pessoas que ainda não desembarcaram estiver vazia,
-		// finalizar simulação
-		if (this.listaPessoas.stream().filter(p -> p.getInstanteDesembarque() == null).count() == 0) {
-			this.instanteFinal = LocalDateTime.from(this.instanteAtual);
+		}
+		notificarMudancasStatus(agora);
+
+		// condição: se todas as pessoas chegaram e não há pessoas aguardando
+		// embarque ou em transito, finalizar simulação
+		if (!this.chegadaPendente && !this.recebendoChamadas && this.chamadasPendentes.isEmpty()
+				&& this.pessoasAguardandoEmbarque == 0 && this.pessoasEmTransito == 0) {
+			this.instanteFinal = this.instanteAtual;
+			this.listener.finalizada(agora);
 			return SimulacaoStatus.FINALIZADA;
 		} else {
 			return SimulacaoStatus.PROCESSANDO;
 		}
 	}
 
-	public void registrarDesembarque(Pessoa p, Elevador e) {
-		logger.info(String.format("%n %n --> Desembarque: Elevador %d %s %n --> Elevadores: %s %n",
-				e.getIdentificacao(), p, imprimeElevadores()));
+	/**
+	 * Lê a próxima chegada do cursor, fechando o cursor quando não houver mais
+	 * chegadas
+	 */
+	private void avancarCursorChegadas() {
+		long chegadaAnterior = this.cursorChegadas.getChegada();
+		this.chegadaPendente = this.cursorChegadas.avancar();
+		if (!this.chegadaPendente) {
+			this.cursorChegadas.close();
+			return;
+		}
+		if (this.cursorChegadas.getChegada() < chegadaAnterior) {
+			throw new RuntimeException("As chegadas devem estar ordenadas pelo instante de chegada: "
+					+ EscalaTempo.deMilis(this.cursorChegadas.getChegada()) + " após "
+					+ EscalaTempo.deMilis(chegadaAnterior));
+		}
+		this.instanteChegadaPendente = this.escalaTempo.milisParaTicks(this.cursorChegadas.getChegada());
 	}
 
-	private String imprimeElevadores() {
-		String retorno = "";
-		for (Elevador e : this.listaElevadores) {
-			String lotacao = e.getLotacao().size()
-					+ e.getLotacao().stream().map(p -> String.format("%s -> %d andar", p.getNome(), p.getAndar()))
-							.collect(Collectors.joining(",", "[", "]"));
-			retorno += String.format("%n Elevador %d: andarAtual=%d, status=%s, lotacao=%s", e.getIdentificacao(),
-					e.getAndarAtual(), e.getStatus(), lotacao);
+	/**
+	 * Notifica o listener dos elevadores cujo status mudou desde a última
+	 * notificação
+	 */
+	private void notificarMudancasStatus(long agora) {
+		for (int i = 0; i < this.statusNotificados.length; i++) {
+			Elevador e = this.listaElevadores.get(i);
+			if (e.getStatus() != this.statusNotificados[i]) {
+				this.listener.mudancaStatus(agora, e, this.statusNotificados[i]);
+				this.statusNotificados[i] = e.getStatus();
+			}
 		}
-		return retorno;
 	}
 
 	public void imprimeEstatisticasSimulacao() {
-		// calcula tempo médio de espera na fila
-		List<Duration> listaTempoEsperaFila = obterListaTempo(p -> p.calculaTempoEsperaFila());
-
-		Optional<Duration> maiorTempoEsperaFilaOpt = listaTempoEsperaFila.stream().max(Duration::compareTo);
-
-		Optional<Duration> tempoMedioEsperaFilaOpt = calculaTempoMedio(listaTempoEsperaFila);
+		EstatisticasSimulacao e = this.estatisticas;
 
 		// verifica pessoas que não embarcaram
 		String pessoasNaoEmbarcaram = String.format("Quantidade de pessoas que não embarcaram=%d",
-				this.listaPessoas.size() - listaTempoEsperaFila.size());
-
-		// calcula tempo médio do embarque até desembarque (Chegada até o andar)
-		List<Duration> listaTempoChegadaAndar = obterListaTempo(p -> p.calculaTempoChegadaAndar());
-
-		Optional<Duration> maiorTempoCheagadaAndarOpt = listaTempoChegadaAndar.stream().max(Duration::compareTo);
-
-		Optional<Duration> tempoMedioChegadaAndarOpt = calculaTempoMedio(listaTempoChegadaAndar);
+				e.getQuantidadeChegadas() - e.getQuantidadeEmbarques());
 
 		// verifica pessoas que não desembarcaram
 		String pessoasNaoDesembarcaram = String.format("Quantidade de pessoas que não embarcaram=%d",
-				this.listaPessoas.size() - listaTempoChegadaAndar.size());
-
-		// calcula tempo médio total de percurso
-		List<Duration> listaTempoTotalPercurso = obterListaTempo(p -> p.calculaTempoTotalPercurso());
-
-		Optional<Duration> maiorTempoTotalPercursoOpt = listaTempoTotalPercurso.stream().max(Duration::compareTo);
-
-		Optional<Duration> tempoMedioTotalPercursoOpt = calculaTempoMedio(listaTempoTotalPercurso);
+				e.getQuantidadeChegadas() - e.getQuantidadeDesembarques());
 
 		// Mensagem
 		String mensagem = "%n %n Estatísticas da Simulação: %s %n Tempo médio de espera na fila = %s "
 				+ "%n Tempo médio entre embarque e desembarque do elevador = %s "
 				+ "%n Tempo médio total de percurso = %s " + "%n Maior Tempo de espera = %s "
 				+ "%n Maior Tempo entre Embarque e Desembarque = %s " + "%n Maior tempo total de percurso = %s "
-				+ "%n %s %n %s %n";
-
-		logger.info(String.format(mensagem, this.elevadorControle.getNome(), tempoMedioEsperaFilaOpt,
-				tempoMedioChegadaAndarOpt, tempoMedioTotalPercursoOpt, maiorTempoEsperaFilaOpt,
-				maiorTempoCheagadaAndarOpt, maiorTempoTotalPercursoOpt, pessoasNaoEmbarcaram, pessoasNaoDesembarcaram));
+				+ "%n %s %n %s " + "%n Percentis de espera na fila: %s "
+				+ "%n Percentis entre embarque e desembarque: %s " + "%n Percentis do tempo total de percurso: %s %n";
 
-	}
-
-	private Optional<Duration> calculaTempoMedio(List<Duration> l) {
-		return l.stream().reduce(Duration::plus).map(d -> d.dividedBy(l.size()));
-	}
+		logger.info(String.format(mensagem, this.elevadorControle.getNome(), e.getTempoMedioEsperaFila(),
+				e.getTempoMedioChegadaAndar(), e.getTempoMedioTotalPercurso(), e.getMaiorTempoEsperaFila(),
+				e.getMaiorTempoChegadaAndar(), e.getMaiorTempoTotalPercurso(), pessoasNaoEmbarcaram,
+				pessoasNaoDesembarcaram, e.getHistogramaEsperaFila(), e.getHistogramaChegadaAndar(),
+				e.getHistogramaTotalPercurso()));
 
-	private List<Duration> obterListaTempo(Function<? super Pessoa, ? extends Optional<Duration>> mapper) {
-		return this.listaPessoas.stream().map(mapper).filter(Optional::isPresent).map(Optional::get)
-				.collect(Collectors.toList());
 	}
 
 	public Simulador(ElevadorControle elevadorControle) {
@@ -245,6 +689,9 @@ public class Simulador {
 		this.andarMinimoElevador = andarMinimoElevadorDefault;
 		this.andarMaximoElevador = andarMaximoElevadorDefault;
 		this.andarInicialElevador = andarInicialElevadorDefault;
+		this.resolucaoTempo = resolucaoTempoDefault;
+		this.modoSimulacao = modoSimulacaoDefault;
+		this.listener = SimulacaoListener.NENHUM;
 		this.elevadorControle = elevadorControle;
 	}
 
@@ -256,28 +703,59 @@ public class Simulador {
 		this.instanteInicial = instanteInicial;
 	}
 
+	public EscalaTempo getEscalaTempo() {
+		return escalaTempo;
+	}
+
 	public LocalDateTime getInstanteAtual() {
-		return instanteAtual;
+		return escalaTempo == null ? null : escalaTempo.paraInstante(instanteAtual);
 	}
 
 	public void setInstanteAtual(LocalDateTime instanteAtual) {
-		this.instanteAtual = instanteAtual;
+		this.instanteAtual = escalaTempo.paraTicks(instanteAtual);
+	}
+
+	public long getInstanteAtualTicks() {
+		return instanteAtual;
 	}
 
 	public LocalDateTime getInstanteFinal() {
-		return instanteFinal;
+		return instanteFinal == SEM_INSTANTE ? null : escalaTempo.paraInstante(instanteFinal);
 	}
 
 	public void setInstanteFinal(LocalDateTime instanteFinal) {
-		this.instanteFinal = instanteFinal;
+		this.instanteFinal = instanteFinal == null ? SEM_INSTANTE : escalaTempo.paraTicks(instanteFinal);
 	}
 
+	/**
+	 * Lista de pessoas simuladas, vazia no modo streaming (as pessoas são
+	 * descartadas após o desembarque)
+	 * 
+	 * @return
+	 */
 	public List<Pessoa> getListaPessoas() {
-		return listaPessoas;
+		if (tabelaPessoas == null) {
+			return null;
+		}
+		return reciclarPessoas ? Collections.emptyList() : tabelaPessoas.getListaPessoas(resultado);
+	}
+
+	public PessoaTable getTabelaPessoas() {
+		return tabelaPessoas;
+	}
+
+	/**
+	 * Instantes de embarque e desembarque, indexados pela identificação da
+	 * pessoa na tabela de pessoas
+	 * 
+	 * @return
+	 */
+	public ResultadoSimulacao getResultado() {
+		return resultado;
 	}
 
-	public void setListaPessoas(List<Pessoa> listaPessoas) {
-		this.listaPessoas = listaPessoas;
+	public EstatisticasSimulacao getEstatisticas() {
+		return estatisticas;
 	}
 
 	public List<Elevador> getListaElevadores() {
@@ -296,6 +774,28 @@ public class Simulador {
 		this.elevadorControle = elevadorControle;
 	}
 
+	public ModoSimulacao getModoSimulacao() {
+		return modoSimulacao;
+	}
+
+	public void setModoSimulacao(ModoSimulacao modoSimulacao) {
+		this.modoSimulacao = modoSimulacao;
+	}
+
+	public SimulacaoListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Listener dos eventos da simulação, ver {@link SimulacaoListenerAssincrono}
+	 * para registrar os eventos sem atrasar a simulação
+	 * 
+	 * @param listener
+	 */
+	public void setListener(SimulacaoListener listener) {
+		this.listener = listener == null ? SimulacaoListener.NENHUM : listener;
+	}
+
 	public Integer getQuantidadeElevadores() {
 		return quantidadeElevadores;
 	}
@@ -344,6 +844,14 @@ public class Simulador {
 		this.andarMaximoElevador = andarMaximoElevador;
 	}
 
+	public Duration getResolucaoTempo() {
+		return resolucaoTempo;
+	}
+
+	public void setResolucaoTempo(Duration resolucaoTempo) {
+		this.resolucaoTempo = resolucaoTempo;
+	}
+
 	public Integer getAndarInicialElevador() {
 		return andarInicialElevador;
 	}
@@ -354,8 +862,8 @@ public class Simulador {
 
 	@Override
 	public String toString() {
-		return "\n Simulador [instanteInicial=" + instanteInicial + ", instanteAtual=" + instanteAtual
-				+ ", instanteFinal=" + instanteFinal + "]";
+		return "\n Simulador [instanteInicial=" + instanteInicial + ", instanteAtual=" + getInstanteAtual()
+				+ ", instanteFinal=" + getInstanteFinal() + "]";
 	}
 
 }
@@ -0,0 +1,281 @@
+package jprm.simulador_elevadores;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Formato binário compacto de chegadas de pessoas, ordenadas pelo instante de
+ * chegada, para evitar a leitura do CSV a cada execução
+ * 
+ * Layout (big-endian):
+ * 
+ * <pre>
+ * cabeçalho (40 bytes): assinatura "ELEV", versão, largura do andar (1, 2 ou 4
+ *   bytes), flags (bit 0: nomes presentes), reservado, quantidade de pessoas,
+ *   unidade das chegadas em ms, instante base em ms (UTC), posição do bloco de
+ *   chegadas, posição do bloco de nomes (0 se ausente)
+ * andares: quantidade * largura do andar
+ * chegadas: diferença para a chegada anterior, em unidades, como varint
+ * nomes: quantidade de nomes distintos, cada nome como varint do tamanho e
+ *   bytes UTF-8, seguido do índice do nome de cada pessoa como varint (0 para
+ *   nome nulo)
+ * </pre>
+ */
+public class TrajetoBinario {
+
+	private static final Logger logger = LoggerFactory.getLogger(TrajetoBinario.class);
+
+	public static final int ASSINATURA = 0x454C4556;
+	public static final byte VERSAO = 1;
+	public static final int TAMANHO_CABECALHO = 40;
+	public static final byte FLAG_NOMES = 1;
+
+	/**
+	 * Converte um CSV de pessoas para o formato binário
+	 * 
+	 * uso: TrajetoBinario arquivo.csv arquivo.bin [sem-nomes]
+	 * 
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			logger.error("uso: TrajetoBinario arquivo.csv arquivo.bin [sem-nomes]");
+			return;
+		}
+		boolean incluirNomes = args.length < 3 || !"sem-nomes".equals(args[2]);
+		try {
+			int quantidade = converter(Paths.get(args[0]), Paths.get(args[1]), incluirNomes);
+			logger.info(String.format("Convertidas %d pessoas de %s para %s", quantidade, args[0], args[1]));
+		} catch (IOException e) {
+			logger.error(String.format("Erro ao converter %s", args[0]), e);
+		}
+	}
+
+	/**
+	 * Converte um CSV de pessoas para o formato binário, ordenando as pessoas
+	 * pelo instante de chegada
+	 * 
+	 * @param csv
+	 * @param destino
+	 * @param incluirNomes
+	 * @return quantidade de pessoas convertidas
+	 * @throws IOException
+	 */
+	public static int converter(Path csv, Path destino, boolean incluirNomes) throws IOException {
+		PessoaTable tabela = new PessoaLoader(csv.toString()).getTabelaPessoasParalela();
+		return escrever(tabela.cursorPorChegada(), destino, incluirNomes);
+	}
+
+	/**
+	 * Verifica se o arquivo está no formato binário
+	 * 
+	 * @param arquivo
+	 * @return
+	 * @throws IOException
+	 */
+	public static boolean formatoBinario(Path arquivo) throws IOException {
+		try (InputStream in = Files.newInputStream(arquivo)) {
+			int assinatura = 0;
+			for (int i = 0; i < 4; i++) {
+				int b = in.read();
+				if (b < 0) {
+					return false;
+				}
+				assinatura = (assinatura << 8) | b;
+			}
+			return assinatura == ASSINATURA;
+		}
+	}
+
+	/**
+	 * Escreve as chegadas do cursor no formato binário, o cursor deve estar
+	 * ordenado pelo instante de chegada e é fechado ao final
+	 * 
+	 * Os andares, as chegadas e os índices dos nomes são lidos uma única vez
+	 * e guardados em arquivos temporários até o fim do cursor, quando a
+	 * largura do andar e a unidade das chegadas são conhecidas, então a memória
+	 * depende somente da quantidade de nomes distintos, não do tamanho do
+	 * trajeto
+	 * 
+	 * @param cursor
+	 * @param destino
+	 * @param incluirNomes
+	 * @return quantidade de pessoas escritas
+	 * @throws IOException
+	 */
+	public static int escrever(CursorChegadas cursor, Path destino, boolean incluirNomes) throws IOException {
+		Path temporarioAndares = Files.createTempFile("andares", ".tmp");
+		Path temporarioChegadas = Files.createTempFile("chegadas", ".tmp");
+		Path temporarioNomes = Files.createTempFile("nomes", ".tmp");
+		try {
+			int quantidade = 0;
+			long base = 0l;
+			long anterior = 0l;
+			boolean segundos = true;
+			int andarMinimo = Integer.MAX_VALUE;
+			int andarMaximo = Integer.MIN_VALUE;
+			Map<String, Integer> dicionario = new HashMap<>();
+			ByteArrayOutputStream nomes = new ByteArrayOutputStream();
+
+			try (CursorChegadas c = cursor;
+					DataOutputStream andares = new DataOutputStream(abrirTemporario(temporarioAndares));
+					OutputStream chegadas = abrirTemporario(temporarioChegadas);
+					OutputStream indicesNomes = abrirTemporario(temporarioNomes)) {
+				while (c.avancar()) {
+					long chegada = c.getChegada();
+					if (quantidade == 0) {
+						base = chegada;
+						anterior = chegada;
+					} else if (chegada < anterior) {
+						throw new RuntimeException("As chegadas devem estar ordenadas pelo instante de chegada: "
+								+ EscalaTempo.deMilis(chegada));
+					}
+					andares.writeInt(c.getAndar());
+					// diferença em ms, convertida para a unidade ao final
+					escreverVarint(chegadas, chegada - anterior);
+					// unidade de 1s se todas as chegadas forem em segundos inteiros
+					segundos &= (chegada - base) % 1000 == 0;
+					anterior = chegada;
+					andarMinimo = Math.min(andarMinimo, c.getAndar());
+					andarMaximo = Math.max(andarMaximo, c.getAndar());
+					if (incluirNomes) {
+						escreverIndiceNome(c.getNome(), dicionario, nomes, indicesNomes);
+					}
+					quantidade += 1;
+				}
+			}
+
+			int unidade = segundos ? 1000 : 1;
+			byte larguraAndar = andarMinimo >= Byte.MIN_VALUE && andarMaximo <= Byte.MAX_VALUE ? (byte) 1
+					: andarMinimo >= Short.MIN_VALUE && andarMaximo <= Short.MAX_VALUE ? (byte) 2 : (byte) 4;
+			long posicaoChegadas = TAMANHO_CABECALHO + (long) quantidade * larguraAndar;
+			long tamanhoChegadas = 0l;
+
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(destino)))) {
+				// cabeçalho escrito ao final, quando a posição dos nomes é conhecida
+				out.write(new byte[TAMANHO_CABECALHO]);
+				try (DataInputStream in = new DataInputStream(
+						new BufferedInputStream(Files.newInputStream(temporarioAndares)))) {
+					for (int i = 0; i < quantidade; i++) {
+						int andar = in.readInt();
+						if (larguraAndar == 1) {
+							out.writeByte(andar);
+						} else if (larguraAndar == 2) {
+							out.writeShort(andar);
+						} else {
+							out.writeInt(andar);
+						}
+					}
+				}
+				try (InputStream in = new BufferedInputStream(Files.newInputStream(temporarioChegadas))) {
+					for (int i = 0; i < quantidade; i++) {
+						tamanhoChegadas += escreverVarint(out, lerVarint(in) / unidade);
+					}
+				}
+				if (incluirNomes) {
+					out.writeInt(dicionario.size());
+					nomes.writeTo(out);
+					Files.copy(temporarioNomes, out);
+				}
+			}
+			long posicaoNomes = incluirNomes ? posicaoChegadas + tamanhoChegadas : 0l;
+
+			ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+			cabecalho.putInt(ASSINATURA);
+			cabecalho.put(VERSAO);
+			cabecalho.put(larguraAndar);
+			cabecalho.put(incluirNomes ? FLAG_NOMES : 0);
+			cabecalho.put((byte) 0);
+			cabecalho.putInt(quantidade);
+			cabecalho.putInt(unidade);
+			cabecalho.putLong(base);
+			cabecalho.putLong(posicaoChegadas);
+			cabecalho.putLong(posicaoNomes);
+			cabecalho.flip();
+			try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.WRITE)) {
+				while (cabecalho.hasRemaining()) {
+					canal.write(cabecalho, cabecalho.position());
+				}
+			}
+			return quantidade;
+		} finally {
+			Files.deleteIfExists(temporarioAndares);
+			Files.deleteIfExists(temporarioChegadas);
+			Files.deleteIfExists(temporarioNomes);
+		}
+	}
+
+	private static OutputStream abrirTemporario(Path arquivo) throws IOException {
+		return new BufferedOutputStream(Files.newOutputStream(arquivo));
+	}
+
+	private static void escreverIndiceNome(String nome, Map<String, Integer> dicionario, ByteArrayOutputStream nomes,
+			OutputStream indicesNomes) throws IOException {
+		if (nome == null) {
+			escreverVarint(indicesNomes, 0);
+			return;
+		}
+		Integer indice = dicionario.get(nome);
+		if (indice == null) {
+			indice = dicionario.size() + 1;
+			dicionario.put(nome, indice);
+			byte[] bytes = nome.getBytes(StandardCharsets.UTF_8);
+			escreverVarint(nomes, bytes.length);
+			nomes.write(bytes, 0, bytes.length);
+		}
+		escreverVarint(indicesNomes, indice);
+	}
+
+	/**
+	 * Escreve um inteiro não negativo com 7 bits por byte, o bit mais
+	 * significativo indica que há mais bytes
+	 * 
+	 * @return quantidade de bytes escritos
+	 */
+	static int escreverVarint(OutputStream out, long valor) throws IOException {
+		int bytes = 1;
+		while ((valor & ~0x7Fl) != 0) {
+			out.write((int) ((valor & 0x7F) | 0x80));
+			valor >>>= 7;
+			bytes += 1;
+		}
+		out.write((int) valor);
+		return bytes;
+	}
+
+	private static long lerVarint(InputStream in) throws IOException {
+		long valor = 0l;
+		int deslocamento = 0;
+		int b;
+		do {
+			b = in.read();
+			if (b < 0) {
+				throw new EOFException("Fim inesperado do arquivo temporário de chegadas");
+			}
+			valor |= (long) (b & 0x7F) << deslocamento;
+			deslocamento += 7;
+		} while ((b & 0x80) != 0);
+		return valor;
+	}
+
+}
@@ -0,0 +1,54 @@
+package jprm.simulador_elevadores;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Funções compartilhadas pelas execuções em paralelo e pelos relatórios
+ */
+final class Utilitarios {
+
+	private Utilitarios() {
+	}
+
+	/**
+	 * Aguarda o fim de todas as tarefas. Se alguma falhar, ou se o thread for
+	 * interrompido, as demais são canceladas
+	 *
+	 * @param futuros
+	 * @param tarefa
+	 *            descrição da tarefa nas mensagens de erro
+	 * @return resultados na ordem dos futuros
+	 */
+	static <T> List<T> aguardarTodos(List<? extends Future<T>> futuros, String tarefa) {
+		List<T> resultados = new ArrayList<>(futuros.size());
+		for (Future<T> f : futuros) {
+			try {
+				resultados.add(f.get());
+			} catch (InterruptedException e) {
+				futuros.forEach(fu -> fu.cancel(true));
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Execução interrompida aguardando " + tarefa, e);
+			} catch (ExecutionException e) {
+				futuros.forEach(fu -> fu.cancel(true));
+				throw new RuntimeException("Erro ao executar " + tarefa, e.getCause());
+			}
+		}
+		return resultados;
+	}
+
+	/**
+	 * Duração no formato ISO-8601, ou "-" se não houver valor
+	 *
+	 * @param d
+	 * @return
+	 */
+	static String formatar(Optional<Duration> d) {
+		return d.map(Duration::toString).orElse("-");
+	}
+
+}
@@ -0,0 +1,274 @@
+package jprm.simulador_elevadores;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Varredura de parâmetros do {@link Simulador}: executa uma simulação para
+ * cada combinação de quantidade de elevadores, lotação máxima, período de
+ * parada, período entre andares, andar máximo e controle, sobre a mesma
+ * tabela de chegadas
+ * 
+ * As combinações são divididas recursivamente em um ForkJoinPool (roubo de
+ * tarefas entre os threads) e cada resultado é escrito como uma linha CSV assim
+ * que a simulação termina, sem manter os simuladores finalizados na memória.
+ * As linhas são escritas na ordem em que as simulações terminam
+ */
+public class VarreduraParametros {
+
+	private static final Logger logger = LoggerFactory.getLogger(VarreduraParametros.class);
+
+	public static final String CABECALHO = "controle,quantidadeElevadores,lotacaoMaxima,periodoParada_ms,"
+			+ "periodoEntreAndares_ms,andarMaximo,chegadas,desembarques,mediaEsperaFila_ms,mediaChegadaAndar_ms,"
+			+ "mediaTotalPercurso_ms,maiorEsperaFila_ms,maiorChegadaAndar_ms,maiorTotalPercurso_ms,execucao_ms,erro";
+
+	private final PessoaTable tabelaPessoas;
+	private final List<Supplier<ElevadorControle>> fabricasControle;
+	private List<Integer> quantidadesElevadores;
+	private List<Integer> lotacoesMaximas;
+	private List<Duration> periodosParada;
+	private List<Duration> periodosEntreAndares;
+	private List<Integer> andaresMaximos;
+	private ForkJoinPool pool;
+
+	/**
+	 * Os parâmetros não informados usam o valor padrão do {@link Simulador}
+	 * 
+	 * @param tabelaPessoas
+	 */
+	public VarreduraParametros(PessoaTable tabelaPessoas) {
+		this.tabelaPessoas = tabelaPessoas;
+		this.fabricasControle = new ArrayList<>();
+		Simulador padrao = new Simulador(null);
+		this.quantidadesElevadores = Collections.singletonList(padrao.getQuantidadeElevadores());
+		this.lotacoesMaximas = Collections.singletonList(padrao.getLotacaoMaximaElevador());
+		this.periodosParada = Collections.singletonList(padrao.getPeriodoParadaElevador());
+		this.periodosEntreAndares = Collections.singletonList(padrao.getPeriodoEntreAndaresElevador());
+		this.andaresMaximos = Collections.singletonList(padrao.getAndarMaximoElevador());
+		this.pool = ForkJoinPool.commonPool();
+	}
+
+	public VarreduraParametros adicionar(Supplier<ElevadorControle> fabricaControle) {
+		this.fabricasControle.add(fabricaControle);
+		return this;
+	}
+
+	/**
+	 * Valores de inicio até fim (inclusive) com o passo informado
+	 * 
+	 * @param inicio
+	 * @param fim
+	 * @param passo
+	 * @return
+	 */
+	public static List<Integer> intervalo(int inicio, int fim, int passo) {
+		if (passo <= 0) {
+			throw new RuntimeException("O passo do intervalo deve ser positivo: " + passo);
+		}
+		return IntStream.iterate(inicio, i -> i + passo).limit(Math.max(0, (fim - inicio) / passo + 1)).boxed()
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Quantidade de combinações de parâmetros e controles
+	 * 
+	 * @return
+	 */
+	public long quantidadeCombinacoes() {
+		return (long) this.fabricasControle.size() * this.quantidadesElevadores.size() * this.lotacoesMaximas.size()
+				* this.periodosParada.size() * this.periodosEntreAndares.size() * this.andaresMaximos.size();
+	}
+
+	/**
+	 * Executa todas as combinações, escrevendo o cabeçalho e uma linha CSV por
+	 * simulação finalizada. Erros em uma simulação são registrados na coluna
+	 * erro, sem interromper a varredura
+	 * 
+	 * @param saida
+	 * @return quantidade de simulações executadas
+	 */
+	public long executar(Writer saida) {
+		if (this.fabricasControle.isEmpty()) {
+			throw new RuntimeException("Nenhum controle de elevadores adicionado");
+		}
+		AtomicLong executadas = new AtomicLong();
+		try {
+			saida.write(CABECALHO);
+			saida.write(System.lineSeparator());
+			saida.flush();
+			this.pool.invoke(new TarefaVarredura(0, quantidadeCombinacoes(), saida, executadas));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return executadas.get();
+	}
+
+	/**
+	 * Divide o intervalo de combinações ao meio até restar uma combinação,
+	 * executada pelo thread que a pegar
+	 */
+	private class TarefaVarredura extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long inicio;
+		private final long fim;
+		private final Writer saida;
+		private final AtomicLong executadas;
+
+		private TarefaVarredura(long inicio, long fim, Writer saida, AtomicLong executadas) {
+			this.inicio = inicio;
+			this.fim = fim;
+			this.saida = saida;
+			this.executadas = executadas;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.fim - this.inicio > 1) {
+				long meio = (this.inicio + this.fim) >>> 1;
+				invokeAll(new TarefaVarredura(this.inicio, meio, this.saida, this.executadas),
+						new TarefaVarredura(meio, this.fim, this.saida, this.executadas));
+			} else if (this.fim > this.inicio) {
+				String linha = simular(this.inicio);
+				synchronized (this.saida) {
+					try {
+						this.saida.write(linha);
+						this.saida.write(System.lineSeparator());
+						this.saida.flush();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				this.executadas.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Executa a combinação de índice i, decomposto em um índice por lista de
+	 * parâmetros
+	 * 
+	 * @param i
+	 * @return linha CSV do resultado
+	 */
+	private String simular(long i) {
+		int iAndarMaximo = (int) (i % this.andaresMaximos.size());
+		i /= this.andaresMaximos.size();
+		int iEntreAndares = (int) (i % this.periodosEntreAndares.size());
+		i /= this.periodosEntreAndares.size();
+		int iParada = (int) (i % this.periodosParada.size());
+		i /= this.periodosParada.size();
+		int iLotacao = (int) (i % this.lotacoesMaximas.size());
+		i /= this.lotacoesMaximas.size();
+		int iQuantidade = (int) (i % this.quantidadesElevadores.size());
+		i /= this.quantidadesElevadores.size();
+		ElevadorControle controle = this.fabricasControle.get((int) i).get();
+
+		Simulador sim = new Simulador(controle);
+		sim.setQuantidadeElevadores(this.quantidadesElevadores.get(iQuantidade));
+		sim.setLotacaoMaximaElevador(this.lotacoesMaximas.get(iLotacao));
+		sim.setPeriodoParadaElevador(this.periodosParada.get(iParada));
+		sim.setPeriodoEntreAndaresElevador(this.periodosEntreAndares.get(iEntreAndares));
+		sim.setAndarMaximoElevador(this.andaresMaximos.get(iAndarMaximo));
+
+		String parametros = String.join(",", campo(controle.getNome()), sim.getQuantidadeElevadores().toString(),
+				sim.getLotacaoMaximaElevador().toString(),
+				Long.toString(sim.getPeriodoParadaElevador().toMillis()),
+				Long.toString(sim.getPeriodoEntreAndaresElevador().toMillis()), sim.getAndarMaximoElevador().toString());
+		long inicio = System.nanoTime();
+		try {
+			sim.inicializar(this.tabelaPessoas);
+			sim.executar();
+		} catch (RuntimeException e) {
+			logger.error("Erro na simulação: " + parametros, e);
+			return parametros + ",,,,,,,,,," + campo(e.getMessage());
+		}
+		long execucao = (System.nanoTime() - inicio) / 1000000l;
+		EstatisticasSimulacao e = sim.getEstatisticas();
+		return String.join(",", parametros, Long.toString(e.getQuantidadeChegadas()),
+				Long.toString(e.getQuantidadeDesembarques()), milis(e.getTempoMedioEsperaFila()),
+				milis(e.getTempoMedioChegadaAndar()), milis(e.getTempoMedioTotalPercurso()),
+				milis(e.getMaiorTempoEsperaFila()), milis(e.getMaiorTempoChegadaAndar()),
+				milis(e.getMaiorTempoTotalPercurso()), Long.toString(execucao), "");
+	}
+
+	private static String milis(Optional<Duration> d) {
+		return d.map(x -> Long.toString(x.toMillis())).orElse("");
+	}
+
+	private static String campo(String valor) {
+		if (valor == null) {
+			return "";
+		}
+		return "\"" + valor.replace("\"", "\"\"") + "\"";
+	}
+
+	public PessoaTable getTabelaPessoas() {
+		return tabelaPessoas;
+	}
+
+	public List<Integer> getQuantidadesElevadores() {
+		return quantidadesElevadores;
+	}
+
+	public void setQuantidadesElevadores(List<Integer> quantidadesElevadores) {
+		this.quantidadesElevadores = quantidadesElevadores;
+	}
+
+	public List<Integer> getLotacoesMaximas() {
+		return lotacoesMaximas;
+	}
+
+	public void setLotacoesMaximas(List<Integer> lotacoesMaximas) {
+		this.lotacoesMaximas = lotacoesMaximas;
+	}
+
+	public List<Duration> getPeriodosParada() {
+		return periodosParada;
+	}
+
+	public void setPeriodosParada(List<Duration> periodosParada) {
+		this.periodosParada = periodosParada;
+	}
+
+	public List<Duration> getPeriodosEntreAndares() {
+		return periodosEntreAndares;
+	}
+
+	public void setPeriodosEntreAndares(List<Duration> periodosEntreAndares) {
+		this.periodosEntreAndares = periodosEntreAndares;
+	}
+
+	public List<Integer> getAndaresMaximos() {
+		return andaresMaximos;
+	}
+
+	public void setAndaresMaximos(List<Integer> andaresMaximos) {
+		this.andaresMaximos = andaresMaximos;
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+}
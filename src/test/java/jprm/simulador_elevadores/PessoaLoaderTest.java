@@ -0,0 +1,154 @@
+package jprm.simulador_elevadores;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Testes do PessoaLoader
+ */
+public class PessoaLoaderTest extends TestCase {
+
+	public PessoaLoaderTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		return new TestSuite(PessoaLoaderTest.class);
+	}
+
+	/**
+	 * Arquivo gzip deve ser lido da mesma forma que o CSV original
+	 */
+	public void testGzip() throws IOException {
+		File arquivo = File.createTempFile("elevadores", ".csv.gz");
+		arquivo.deleteOnExit();
+		try (InputStream in = getClass().getClassLoader().getResource("elevadores.csv").openStream();
+				OutputStream out = new GZIPOutputStream(Files.newOutputStream(arquivo.toPath()))) {
+			byte[] buffer = new byte[8192];
+			int lidos;
+			while ((lidos = in.read(buffer)) > 0) {
+				out.write(buffer, 0, lidos);
+			}
+		}
+
+		PessoaTable esperado = (new PessoaLoader()).getTabelaPessoasResource();
+		PessoaTable obtido = (new PessoaLoader(arquivo.getPath())).getTabelaPessoas();
+		assertIgual(esperado, obtido);
+	}
+
+	/**
+	 * Leitura paralela deve ser idêntica à sequencial, inclusive com blocos
+	 * pequenos, linhas com aspas internas e linhas que não seguem o formato
+	 * simples
+	 */
+	public void testLeituraParalela() throws IOException {
+		PessoaTable esperado = (new PessoaLoader()).getTabelaPessoasResource();
+		assertIgual(esperado, (new PessoaLoader()).getTabelaPessoasParalelaResource());
+
+		File arquivo = File.createTempFile("elevadores", ".csv");
+		arquivo.deleteOnExit();
+		copiarResource(arquivo);
+		List<String> linhas = new ArrayList<>(Files.readAllLines(arquivo.toPath()));
+		linhas.set(1, "\"Leola \"\"Lee\"\" Osinski IV\",\"2016-08-31 10:00:04\",11");
+		linhas.set(2, "Pietro Spencer,2016-08-31 10:00:10,21\r");
+		linhas.set(3, "\"Selmer, Pollich\",\"2016-08-31 10:00:10\",15,extra");
+		linhas.add(4, "");
+		linhas.add(5, "linha incompleta");
+		Files.write(arquivo.toPath(), linhas);
+
+		PessoaLoader loader = new PessoaLoader(arquivo.getPath());
+		esperado = loader.getTabelaPessoas();
+		loader.setTamanhoMinimoBloco(1024);
+		PessoaTable obtido = loader.getTabelaPessoasParalela();
+		assertIgual(esperado, obtido);
+		assertEquals("Leola \"Lee\" Osinski IV", obtido.getNome(1));
+		assertEquals("Selmer, Pollich", obtido.getNome(3));
+	}
+
+	private void copiarResource(File arquivo) throws IOException {
+		try (InputStream in = getClass().getClassLoader().getResource("elevadores.csv").openStream()) {
+			Files.copy(in, arquivo.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * O stream reaproveita uma única linha de uma única tabela
+	 */
+	public void testStreamPessoas() {
+		PessoaTable esperado = (new PessoaLoader()).getTabelaPessoasResource();
+		int[] id = { 0 };
+		Set<PessoaTable> tabelas = new HashSet<>();
+		try (Stream<Pessoa> pessoas = (new PessoaLoader()).streamPessoasResource()) {
+			pessoas.forEach(p -> {
+				assertEquals(esperado.getNome(id[0]), p.getNome());
+				assertEquals(esperado.getAndar(id[0]), p.getAndar());
+				assertEquals(esperado.getChegada(id[0]), p.getTabela().getChegada(p.getId()));
+				assertEquals(0, p.getId());
+				tabelas.add(p.getTabela());
+				id[0] += 1;
+			});
+		}
+		assertEquals(esperado.tamanho(), id[0]);
+		assertEquals(1, tabelas.size());
+	}
+
+	/**
+	 * O formato binário deve preservar as chegadas em ordem, inclusive com
+	 * milissegundos, andares fora da faixa de um byte e nomes nulos
+	 */
+	public void testTrajetoBinario() throws IOException {
+		File arquivo = File.createTempFile("elevadores", ".bin");
+		arquivo.deleteOnExit();
+		File csv = File.createTempFile("elevadores", ".csv");
+		csv.deleteOnExit();
+		copiarResource(csv);
+		TrajetoBinario.converter(csv.toPath(), arquivo.toPath(), true);
+
+		PessoaTable tabela = (new PessoaLoader()).getTabelaPessoasResource();
+		PessoaTable esperado = new PessoaTable();
+		for (int id : tabela.ordenarPorChegada()) {
+			esperado.adicionar(tabela.getNome(id), tabela.getAndar(id), tabela.getChegada(id));
+		}
+		PessoaLoader loader = new PessoaLoader(arquivo.getPath());
+		assertIgual(esperado, loader.getTabelaPessoas());
+		assertIgual(esperado, loader.getTabelaPessoasParalela());
+
+		tabela = new PessoaTable();
+		tabela.adicionar("a", 1, 1000l);
+		tabela.adicionar(null, 300, 1500l);
+		tabela.adicionar("a", -2, 1500l);
+		tabela.adicionar("b", 70000, 3600000l);
+		TrajetoBinario.escrever(tabela.cursorPorChegada(), arquivo.toPath(), true);
+		PessoaTable obtido = LeitorTrajetoBinario.lerTabela(arquivo.toPath());
+		assertEquals(tabela.tamanho(), obtido.tamanho());
+		for (int id = 0; id < tabela.tamanho(); id++) {
+			assertEquals(tabela.getNome(id), obtido.getNome(id));
+			assertEquals(tabela.getAndar(id), obtido.getAndar(id));
+			assertEquals(tabela.getChegada(id), obtido.getChegada(id));
+		}
+	}
+
+	static void assertIgual(PessoaTable esperado, PessoaTable obtido) {
+		assertEquals(1000, esperado.tamanho());
+		assertEquals(esperado.tamanho(), obtido.tamanho());
+		for (int id = 0; id < esperado.tamanho(); id++) {
+			assertEquals(esperado.getNome(id), obtido.getNome(id));
+			assertEquals(esperado.getAndar(id), obtido.getAndar(id));
+			assertEquals(esperado.getChegada(id), obtido.getChegada(id));
+		}
+	}
+}
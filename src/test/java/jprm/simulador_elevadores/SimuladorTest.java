@@ -0,0 +1,855 @@
+package jprm.simulador_elevadores;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Testes do Simulador
+ */
+public class SimuladorTest extends TestCase {
+
+	public SimuladorTest(String testName) {
+		super(testName);
+	}
+
+	public static Test suite() {
+		return new TestSuite(SimuladorTest.class);
+	}
+
+	/**
+	 * O modo de eventos discretos deve produzir o mesmo resultado do passo
+	 * fixo de 1s
+	 */
+	public void testEventosDiscretosIgualPassoFixo() {
+		compararModos(new ElevadorControleSequencial(), new ElevadorControleSequencial());
+		compararModos(new ElevadorControleMenorTempoImediato(), new ElevadorControleMenorTempoImediato());
+	}
+
+	/**
+	 * Com chegadas em segundos inteiros e períodos múltiplos da resolução, a
+	 * resolução de 100ms deve produzir o mesmo resultado da resolução de 1s
+	 */
+	public void testResolucaoSubsegundo() {
+		PessoaTable tabela = (new PessoaLoader()).getTabelaPessoasResource();
+		for (ModoSimulacao modo : ModoSimulacao.values()) {
+			Simulador simSegundo = new Simulador(new ElevadorControleMenorTempoImediato());
+			simSegundo.setModoSimulacao(modo);
+			simSegundo.inicializar(tabela);
+			simSegundo.executar();
+
+			Simulador simDecimo = new Simulador(new ElevadorControleMenorTempoImediato());
+			simDecimo.setModoSimulacao(modo);
+			simDecimo.setResolucaoTempo(Duration.ofMillis(100));
+			simDecimo.inicializar(tabela);
+			simDecimo.executar();
+
+			assertEquals(100l, simDecimo.getEscalaTempo().getResolucaoMilis());
+			for (int id = 0; id < tabela.tamanho(); id++) {
+				assertTrue(simDecimo.getResultado().getDesembarque(id) != PessoaTable.SEM_INSTANTE);
+				assertEquals(simSegundo.getResultado().getEmbarque(id), simDecimo.getResultado().getEmbarque(id));
+				assertEquals(simSegundo.getResultado().getDesembarque(id),
+						simDecimo.getResultado().getDesembarque(id));
+			}
+			assertEquals(simSegundo.getInstanteAtual(), simDecimo.getInstanteAtual());
+			assertEquals(simSegundo.getEstatisticas().toString(), simDecimo.getEstatisticas().toString());
+		}
+	}
+
+	/**
+	 * As chegadas são consumidas em ordem mesmo quando a tabela não está
+	 * ordenada, e a simulação termina assim que a última pessoa desembarca
+	 */
+	public void testChegadasForaDeOrdem() {
+		LocalDateTime inicio = LocalDateTime.of(2016, 8, 31, 8, 0);
+		PessoaTable ordenada = new PessoaTable();
+		PessoaTable embaralhada = new PessoaTable();
+		for (int i = 0; i < 200; i++) {
+			ordenada.adicionar("p" + i, 2 + (i * 7) % 24, inicio.plusSeconds(i * 7));
+			// 73 e 200 são primos entre si, então j percorre todas as pessoas
+			int j = (i * 73) % 200;
+			embaralhada.adicionar("p" + j, 2 + (j * 7) % 24, inicio.plusSeconds(j * 7));
+		}
+
+		Simulador simOrdenada = new Simulador(new ElevadorControleSequencial());
+		simOrdenada.inicializar(ordenada);
+		simOrdenada.executar();
+		Simulador simEmbaralhada = new Simulador(new ElevadorControleSequencial());
+		simEmbaralhada.inicializar(embaralhada);
+		simEmbaralhada.executar();
+
+		LocalDateTime ultimoDesembarque = null;
+		for (int id = 0; id < 200; id++) {
+			Pessoa obtido = simEmbaralhada.getTabelaPessoas().getPessoa(simEmbaralhada.getResultado(), id);
+			int i = Integer.parseInt(obtido.getNome().substring(1));
+			Pessoa esperado = simOrdenada.getTabelaPessoas().getPessoa(simOrdenada.getResultado(), i);
+			assertNotNull(obtido.getInstanteDesembarque());
+			assertEquals(esperado.getInstanteEmbarque(), obtido.getInstanteEmbarque());
+			assertEquals(esperado.getInstanteDesembarque(), obtido.getInstanteDesembarque());
+			if (ultimoDesembarque == null || obtido.getInstanteDesembarque().isAfter(ultimoDesembarque)) {
+				ultimoDesembarque = obtido.getInstanteDesembarque();
+			}
+		}
+		assertEquals(ultimoDesembarque, simEmbaralhada.getInstanteAtual());
+	}
+
+	/**
+	 * A tabela colunar ordena as chegadas de forma estável, reaproveita linhas
+	 * liberadas e mantém embarque e desembarque fora das colunas de chegada
+	 */
+	public void testPessoaTable() {
+		PessoaTable tabela = new PessoaTable(2);
+		SplittableRandom aleatorio = new SplittableRandom(4l);
+		for (int i = 0; i < 5000; i++) {
+			tabela.adicionar("p" + i, 2 + i % 24, aleatorio.nextInt(100) * 1000l);
+		}
+		int[] ids = tabela.ordenarPorChegada();
+		assertEquals(5000, ids.length);
+		for (int i = 1; i < ids.length; i++) {
+			long anterior = tabela.getChegada(ids[i - 1]);
+			assertTrue(anterior <= tabela.getChegada(ids[i]));
+			assertTrue(anterior < tabela.getChegada(ids[i]) || ids[i - 1] < ids[i]);
+		}
+
+		Pessoa p = tabela.getPessoa(17);
+		assertEquals("p17", p.getNome());
+		assertEquals(2 + 17 % 24, p.getAndar());
+		assertNull(p.getInstanteEmbarque());
+		p.setInstanteEmbarque(p.getInstanteChegada().plusSeconds(30));
+		assertEquals(Duration.ofSeconds(30), p.calculaTempoEsperaFila().get());
+
+		tabela.liberar(17);
+		assertEquals(17, tabela.adicionar("q", 9, 0l));
+		assertEquals(5000, tabela.tamanho());
+		assertEquals("q", tabela.getNome(17));
+		assertNull(tabela.getPessoa(17).getInstanteEmbarque());
+	}
+
+	/**
+	 * O modo streaming deve produzir as mesmas estatísticas da simulação sobre
+	 * a tabela completa, mantendo somente as pessoas em transito
+	 */
+	public void testStreamingIgualTabela() {
+		Simulador simTabela = new Simulador(new ElevadorControleMenorTempoImediato());
+		simTabela.inicializar((new PessoaLoader()).getTabelaPessoasResource());
+		simTabela.executar();
+
+		Simulador simStreaming = new Simulador(new ElevadorControleMenorTempoImediato());
+		simStreaming.inicializar((new PessoaLoader()).abrirCursorResource());
+		simStreaming.executar();
+
+		EstatisticasSimulacao esperado = simTabela.getEstatisticas();
+		EstatisticasSimulacao obtido = simStreaming.getEstatisticas();
+		assertEquals(1000, obtido.getQuantidadeDesembarques());
+		assertEquals(esperado.toString(), obtido.toString());
+		assertEquals(esperado.getMaiorTempoTotalPercurso(), obtido.getMaiorTempoTotalPercurso());
+		assertTrue(simStreaming.getTabelaPessoas().tamanho() < 1000);
+	}
+
+	/**
+	 * Simulações sobre a mesma tabela de chegadas não interferem entre si e
+	 * não alteram a tabela
+	 */
+	public void testTabelaCompartilhada() {
+		PessoaTable tabela = (new PessoaLoader()).getTabelaPessoasResource();
+		Simulador simS = new Simulador(new ElevadorControleSequencial());
+		simS.inicializar(tabela);
+		Simulador simM = new Simulador(new ElevadorControleMenorTempoImediato());
+		simM.inicializar(tabela);
+		simS.executar();
+		simM.executar();
+
+		List<Pessoa> esperado = simular(new ElevadorControleSequencial(), ModoSimulacao.EVENTOS_DISCRETOS);
+		List<Pessoa> obtido = simS.getListaPessoas();
+		for (int i = 0; i < esperado.size(); i++) {
+			assertEquals(esperado.get(i).getInstanteDesembarque(), obtido.get(i).getInstanteDesembarque());
+		}
+		assertFalse(simS.getResultado() == simM.getResultado());
+		assertNull(tabela.getPessoa(0).getInstanteEmbarque());
+	}
+
+	/**
+	 * Simulações em paralelo devem produzir o mesmo resultado da execução
+	 * isolada, na ordem em que os controles foram adicionados
+	 */
+	public void testBatchRunner() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			SimulacaoBatchRunner runner = new SimulacaoBatchRunner((new PessoaLoader()).getTabelaPessoasResource());
+			runner.setExecutor(executor);
+			runner.adicionar(ElevadorControleSequencial::new).adicionar(ElevadorControleMenorTempoImediato::new);
+			List<ResultadoLote> resultados = runner.executar();
+
+			assertEquals(2, resultados.size());
+			assertEquals(new ElevadorControleSequencial().getNome(), resultados.get(0).getNome());
+			List<Pessoa> esperado = simular(new ElevadorControleMenorTempoImediato(),
+					ModoSimulacao.EVENTOS_DISCRETOS);
+			List<Pessoa> obtido = resultados.get(1).getSimulador().getListaPessoas();
+			for (int i = 0; i < esperado.size(); i++) {
+				assertEquals(esperado.get(i).getInstanteDesembarque(), obtido.get(i).getInstanteDesembarque());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Cada combinação da varredura gera uma linha, a combinação com os
+	 * parâmetros padrão deve ter o resultado da simulação padrão
+	 */
+	public void testVarreduraParametros() {
+		VarreduraParametros varredura = new VarreduraParametros((new PessoaLoader()).getTabelaPessoasResource());
+		varredura.adicionar(ElevadorControleSequencial::new).adicionar(ElevadorControleMenorTempoImediato::new);
+		varredura.setQuantidadesElevadores(VarreduraParametros.intervalo(2, 4, 2));
+		varredura.setAndaresMaximos(Arrays.asList(25, 20));
+		StringWriter saida = new StringWriter();
+
+		assertEquals(8, varredura.executar(saida));
+		List<String> linhas = Arrays.asList(saida.toString().split(System.lineSeparator()));
+		assertEquals(VarreduraParametros.CABECALHO, linhas.get(0));
+		assertEquals(9, linhas.size());
+		assertEquals(4, linhas.stream().filter(l -> l.endsWith(",")).count());
+
+		Simulador sim = new Simulador(new ElevadorControleMenorTempoImediato());
+		sim.inicializar((new PessoaLoader()).getTabelaPessoasResource());
+		sim.executar();
+		String esperado = "\"" + sim.getElevadorControle().getNome() + "\",4,8,20000,2000,25,1000,1000,"
+				+ sim.getEstatisticas().getTempoMedioEsperaFila().get().toMillis() + ",";
+		assertEquals(1, linhas.stream().filter(l -> l.startsWith(esperado)).count());
+	}
+
+	/**
+	 * Replicações com a mesma semente são reprodutíveis, e a execução para
+	 * quando o intervalo de confiança é estreito o suficiente
+	 */
+	public void testReplicacaoMonteCarlo() {
+		PessoaTable tabela = (new PessoaLoader()).getTabelaPessoasResource();
+		ReplicacaoMonteCarlo.ResultadoReplicacoes[] resultados = new ReplicacaoMonteCarlo.ResultadoReplicacoes[2];
+		for (int i = 0; i < resultados.length; i++) {
+			ReplicacaoMonteCarlo replicacao = new ReplicacaoMonteCarlo(tabela, ElevadorControleAleatorio::new, 42l);
+			replicacao.setReplicacoesMinimas(2);
+			replicacao.setReplicacoesMaximas(4);
+			replicacao.setTamanhoLote(2);
+			resultados[i] = replicacao.executar();
+		}
+		assertEquals(4, resultados[0].getQuantidadeReplicacoes());
+		assertEquals(resultados[0].toString(), resultados[1].toString());
+		assertTrue(resultados[0].getEsperaFila().getDesvioPadrao() > 0d);
+
+		ReplicacaoMonteCarlo replicacao = new ReplicacaoMonteCarlo(tabela, ElevadorControleSequencial::new, 42l);
+		replicacao.setReplicacoesMinimas(2);
+		replicacao.setTamanhoLote(2);
+		replicacao.setLarguraMaximaIntervalo(Duration.ofSeconds(1l));
+		ReplicacaoMonteCarlo.ResultadoReplicacoes resultado = replicacao.executar();
+		assertEquals(2, resultado.getQuantidadeReplicacoes());
+		assertEquals(0d, resultado.getTotalPercurso().getMeiaLarguraIntervalo());
+	}
+
+	/**
+	 * O listener assíncrono deve registrar todos os eventos da simulação
+	 */
+	public void testListenerAssincrono() throws IOException {
+		StringWriter saida = new StringWriter();
+		int[] desembarques = new int[1];
+		Simulador sim = new Simulador(new ElevadorControleMenorTempoImediato());
+		try (SimulacaoListenerAssincrono listener = new SimulacaoListenerAssincrono(saida, 64)) {
+			sim.setListener(new SimulacaoListener() {
+				@Override
+				public void desembarque(long instante, Pessoa p, Elevador e) {
+					desembarques[0] += 1;
+					listener.desembarque(instante, p, e);
+				}
+
+				@Override
+				public void finalizada(long instante) {
+					listener.finalizada(instante);
+				}
+			});
+			sim.inicializar((new PessoaLoader()).getTabelaPessoasResource());
+			sim.executar();
+		}
+		List<String> linhas = Arrays.asList(saida.toString().split(System.lineSeparator()));
+		assertEquals(1000, desembarques[0]);
+		assertEquals(SimulacaoListenerAssincrono.CABECALHO, linhas.get(0));
+		assertEquals(1002, linhas.size());
+		assertTrue(linhas.get(1000).contains(",desembarque,"));
+		assertTrue(linhas.get(1001)
+				.startsWith(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(sim.getInstanteFinal()) + ",finalizada,"));
+	}
+
+	/**
+	 * Percentis do histograma devem ficar entre o valor exato e o erro
+	 * relativo máximo de 1/64
+	 */
+	public void testPercentis() {
+		Simulador sim = new Simulador(new ElevadorControleMenorTempoImediato());
+		sim.inicializar((new PessoaLoader()).getTabelaPessoasResource());
+		sim.executar();
+		long[] esperas = sim.getListaPessoas().stream().mapToLong(p -> p.calculaTempoEsperaFila().get().toMillis())
+				.sorted().toArray();
+		for (double percentil : new double[] { 50d, 90d, 95d, 99d, 99.9d, 100d }) {
+			long exato = esperas[(int) Math.ceil(percentil / 100d * esperas.length) - 1];
+			long obtido = sim.getEstatisticas().getPercentilEsperaFila(percentil).get().toMillis();
+			assertTrue(obtido >= exato && obtido <= exato + exato / 64);
+		}
+
+		HistogramaTempo histograma = new HistogramaTempo();
+		for (long v = 0; v < 100000; v++) {
+			histograma.registrar(v);
+		}
+		assertEquals(Duration.ofMillis(127l), histograma.getPercentil(0.128d).get());
+		long p99 = histograma.getPercentil(99d).get().toMillis();
+		assertTrue(p99 >= 98999l && p99 <= 98999l + 98999l / 64);
+
+		HistogramaTempo micros = new HistogramaTempo(TimeUnit.MICROSECONDS);
+		micros.registrar(1500l);
+		assertEquals(1500l, micros.getPercentilValor(50d));
+		assertEquals(Duration.ofNanos(1500000l), micros.getPercentil(50d).get());
+	}
+
+	/**
+	 * O índice de paradas do elevador deve funcionar acima de 127 andares, e
+	 * todas as pessoas de um prédio de 200 andares devem chegar ao destino
+	 */
+	public void testPredioAlto() {
+		Elevador e = new Elevador(1, 1, 200, 8, ElevadorStatus.SUBINDO, 0l, 2l, 20l);
+		PessoaTable tabela = new PessoaTable();
+		for (int andar : new int[] { 150, 70, 200, 150 }) {
+			e.embarcar(tabela.getPessoa(tabela.adicionar("p" + andar, andar, 0l)));
+		}
+		assertEquals(3, e.contarParadas(1, 200));
+		assertEquals(1, e.contarParadas(71, 199));
+		assertEquals(2, e.contarParadas(70, 150));
+		assertEquals(2, e.pessoasNoAndar(150));
+		assertEquals(Integer.valueOf(200), e.getUltimaParadaLotacao().get());
+		assertEquals(Arrays.asList(150, 150, 200), (e.getParadasLotacao().subList(1, 4)));
+		e.setAndarAtual(150);
+		List<Pessoa> desembarque = e.desembarcar();
+		assertEquals(2, desembarque.size());
+		assertEquals(0, desembarque.get(0).getId());
+		assertEquals(3, desembarque.get(1).getId());
+		assertFalse(e.possuiParada(150));
+		assertEquals(2, e.contarParadas(1, 200));
+		assertEquals(2, e.getQuantidadeLotacao());
+
+		// posições liberadas são reaproveitadas e a lotação cresce além da
+		// capacidade inicial
+		for (int i = 0; i < 30; i++) {
+			e.embarcar(tabela.getPessoa(tabela.adicionar("q" + i, 150 + i % 3, 0l)));
+		}
+		assertEquals(32, e.getQuantidadeLotacao());
+		assertEquals(10, e.desembarcar().size());
+		assertEquals(22, e.getLotacao().size());
+
+		tabela = new PessoaTable();
+		for (int i = 0; i < 500; i++) {
+			tabela.adicionar("p" + i, 2 + (i * 37) % 199, i * 3000l);
+		}
+		Simulador sim = new Simulador(new ElevadorControleMenorTempoImediato());
+		sim.setAndarMaximoElevador(200);
+		sim.setQuantidadeElevadores(8);
+		sim.inicializar(tabela);
+		sim.executar();
+		assertEquals(500, sim.getEstatisticas().getQuantidadeDesembarques());
+	}
+
+	/**
+	 * A fila do térreo deve manter a ordem ao crescer e ao dar a volta no
+	 * buffer, e o embarque deve parar na lotação máxima
+	 */
+	public void testFilaTerreo() {
+		PessoaTable tabela = new PessoaTable();
+		FilaTerreo fila = new FilaTerreo();
+		Elevador e = new Elevador(1, 1, 25, 8, ElevadorStatus.ESPERA_TERREO, 0l, 2l, 20l);
+		int proximo = 0;
+		for (int rodada = 0; rodada < 10; rodada++) {
+			for (int i = 0; i < 15; i++) {
+				fila.adicionar(tabela.getPessoa(tabela.adicionar("p", 2 + tabela.tamanho() % 24, 0l)));
+			}
+			List<Pessoa> embarcadas = fila.drenarPara(e, 8);
+			assertEquals(8, embarcadas.size());
+			for (Pessoa p : embarcadas) {
+				assertEquals(proximo++, p.getId());
+			}
+			assertTrue(fila.drenarPara(e, 8).isEmpty());
+			e.setLotacao(Collections.emptyList());
+		}
+		assertEquals(70, fila.tamanho());
+		assertEquals(proximo, fila.getPessoa(0).getId());
+		assertEquals(2 + proximo % 24, fila.getAndar(0));
+	}
+
+	public void testEstimativaFilaIncremental() {
+		PessoaTable tabela = new PessoaTable();
+		Elevador e = new Elevador(1, 1, 25, 8, ElevadorStatus.ESPERA_TERREO, 0l, 2l, 20l);
+		SplittableRandom aleatorio = new SplittableRandom(17);
+		for (int rodada = 0; rodada < 300; rodada++) {
+			int chegadas = aleatorio.nextInt(12);
+			for (int i = 0; i < chegadas; i++) {
+				e.getFilaTerreo().adicionar(tabela.getPessoa(tabela.adicionar("p", aleatorio.nextInt(2, 30), 0l)));
+			}
+			for (int andar = 1; andar <= 27; andar++) {
+				Pessoa p = tabela.getPessoa(tabela.adicionar("q", andar, 0l));
+				assertEquals(estimativaFila(e, andar, 1), e.simularTempoFilaEspera(p));
+				int quantidade = 1 + aleatorio.nextInt(20);
+				assertEquals(estimativaFila(e, andar, quantidade), e.simularTempoFilaEspera(andar, quantidade));
+			}
+			if (aleatorio.nextInt(3) == 0) {
+				// elevador parcialmente ocupado desalinha os blocos
+				e.embarcar(tabela.getPessoa(tabela.adicionar("r", 5, 0l)));
+			}
+			e.getFilaTerreo().drenarPara(e, 8);
+			e.setLotacao(Collections.emptyList());
+		}
+	}
+
+	/**
+	 * O método húngaro deve achar o mesmo custo mínimo da busca exaustiva, e o
+	 * controle em lote deve levar todas as pessoas nos dois modos de simulação
+	 */
+	public void testAtribuicaoLote() {
+		SplittableRandom aleatorio = new SplittableRandom(5);
+		for (int rodada = 0; rodada < 200; rodada++) {
+			int linhas = 1 + aleatorio.nextInt(4);
+			long[][] custos = new long[linhas][linhas + aleatorio.nextInt(3)];
+			for (long[] linha : custos) {
+				for (int j = 0; j < linha.length; j++) {
+					linha[j] = aleatorio.nextInt(50);
+				}
+			}
+			int[] coluna = ElevadorControleAtribuicaoLote.atribuir(custos);
+			long custo = 0;
+			for (int i = 0; i < linhas; i++) {
+				custo += custos[i][coluna[i]];
+			}
+			assertEquals(menorCusto(custos, 0, new boolean[custos[0].length]), custo);
+			assertEquals(linhas, Arrays.stream(coluna).distinct().count());
+		}
+
+		// três grupos de 6 pessoas com lotação 8: dois elevadores vazios não
+		// recebem dois grupos no mesmo elevador antes de o outro receber um
+		PessoaTable tabela = new PessoaTable();
+		List<Elevador> elevadores = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			elevadores.add(new Elevador(1, 1, 25, 8, ElevadorStatus.ESPERA_TERREO, 0l, 5l, 20l));
+		}
+		List<Pessoa> lote = new ArrayList<>();
+		for (int i = 0; i < 18; i++) {
+			lote.add(tabela.getPessoa(tabela.adicionar("p" + i, 5 + i % 3, 0l)));
+		}
+		ElevadorControleAtribuicaoLote controle = new ElevadorControleAtribuicaoLote();
+		controle.inicializar(elevadores);
+		controle.decidirLote(lote, 0l, (p, e) -> e.getFilaTerreo().adicionar(p));
+		int menor = Math.min(elevadores.get(0).getFilaTerreo().tamanho(), elevadores.get(1).getFilaTerreo().tamanho());
+		assertEquals(6, menor);
+		// o grupo que ficou para a segunda rodada foi para o final da fila
+		for (Elevador e : elevadores) {
+			FilaTerreo fila = e.getFilaTerreo();
+			for (int i = 1; i < fila.tamanho(); i++) {
+				assertTrue(i % 6 == 0 || fila.getAndar(i) == fila.getAndar(i - 1));
+			}
+		}
+		compararModos(new ElevadorControleAtribuicaoLote(), new ElevadorControleAtribuicaoLote());
+	}
+
+	/**
+	 * A última viagem formada na fila deve reconhecer os andares já presentes,
+	 * e o controle por destino deve levar todas as pessoas nos dois modos
+	 */
+	public void testControleDestino() {
+		PessoaTable tabela = new PessoaTable();
+		Elevador e = new Elevador(1, 1, 25, 3, ElevadorStatus.ESPERA_TERREO, 0l, 2l, 20l);
+		for (int andar : new int[] { 10, 4, 12, 7, 9 }) {
+			e.getFilaTerreo().adicionar(tabela.getPessoa(tabela.adicionar("p", andar, 0l)));
+		}
+		// blocos [10, 4, 12] e [7, 9]
+		assertTrue(e.filaTerreoPossuiParada(9));
+		assertFalse(e.filaTerreoPossuiParada(10));
+		assertEquals(2, e.contarFilaTerreoAcima(5));
+		assertEquals(1, e.contarFilaTerreoAcima(8));
+		assertEquals(0, e.contarFilaTerreoAcima(9));
+		compararModos(new ElevadorControleDestino(), new ElevadorControleDestino());
+	}
+
+	/**
+	 * Uma cópia da simulação feita após a última chegada deve levar as pessoas
+	 * em transito nos mesmos instantes da simulação original; o controle por
+	 * projeção deve levar todas as pessoas
+	 */
+	public void testBifurcarSimulacao() {
+		Simulador sim = new Simulador(new ElevadorControleMenorTempoImediato());
+		PessoaTable tabelaOriginal = (new PessoaLoader()).getTabelaPessoasResource();
+		sim.inicializar(tabelaOriginal);
+		long ultimaChegada = 0l;
+		for (int id = 0; id < tabelaOriginal.tamanho(); id++) {
+			ultimaChegada = Math.max(ultimaChegada, tabelaOriginal.getChegada(id));
+		}
+		long limite = sim.getEscalaTempo().milisParaTicks(ultimaChegada);
+		assertEquals(SimulacaoStatus.PROCESSANDO, sim.executarAte(limite));
+		Simulador copia = sim.bifurcar();
+		assertTrue(copia.getTabelaPessoas().tamanho() > 0);
+		assertEquals(SimulacaoStatus.FINALIZADA, copia.executarAte(Long.MAX_VALUE));
+		sim.executar();
+
+		List<Long> esperado = new ArrayList<>();
+		PessoaTable tabela = sim.getTabelaPessoas();
+		for (int id = 0; id < tabela.tamanho(); id++) {
+			long desembarque = sim.getResultado().getDesembarque(id);
+			if (sim.getEscalaTempo().milisParaTicks(tabela.getChegada(id)) <= limite
+					&& sim.getEscalaTempo().milisParaTicks(desembarque) > limite) {
+				esperado.add(desembarque);
+			}
+		}
+		List<Long> obtido = new ArrayList<>();
+		for (int id = 0; id < copia.getTabelaPessoas().tamanho(); id++) {
+			obtido.add(copia.getResultado().getDesembarque(id));
+		}
+		Collections.sort(esperado);
+		Collections.sort(obtido);
+		assertEquals(esperado, obtido);
+
+		ElevadorControleProjecao projecao = new ElevadorControleProjecao();
+		projecao.setOrcamento(Duration.ofSeconds(10l));
+		List<Pessoa> lista = simular(projecao, ModoSimulacao.EVENTOS_DISCRETOS);
+		for (Pessoa p : lista) {
+			assertNotNull(p.getInstanteDesembarque());
+		}
+	}
+
+	/**
+	 * Com orçamento folgado o controle por projeção escolhe o elevador cuja
+	 * projeção tem o menor custo, e uma projeção com o prazo vencido para sem
+	 * processar nenhum instante
+	 */
+	public void testControleProjecao() {
+		ElevadorControleProjecao projecao = new ElevadorControleProjecao();
+		projecao.setOrcamento(Duration.ofSeconds(30l));
+		projecao.setHorizonte(null);
+		Simulador sim = new Simulador(projecao);
+		LocalDateTime inicio = LocalDateTime.of(2016, 8, 31, 8, 0);
+		PessoaTable tabela = new PessoaTable();
+		for (int i = 0; i < 40; i++) {
+			tabela.adicionar("p" + i, 2 + (i * 11) % 24, inicio.plusSeconds(i * 3));
+		}
+		sim.inicializar(tabela);
+		sim.executarAte(sim.getEscalaTempo().paraTicks(Duration.ofSeconds(90l)));
+
+		Pessoa p = new Pessoa("x", 20, sim.getInstanteAtual());
+		int esperado = -1;
+		long custoMinimo = Long.MAX_VALUE;
+		long custoMaximo = Long.MIN_VALUE;
+		for (int i = 0; i < sim.getListaElevadores().size(); i++) {
+			Simulador copia = sim.bifurcar();
+			copia.adicionarNaFila(i, p);
+			assertEquals(SimulacaoStatus.FINALIZADA, copia.executarAte(Long.MAX_VALUE));
+			long custo = 0l;
+			for (int id = 0; id < copia.getTabelaPessoas().tamanho(); id++) {
+				custo += copia.getResultado().getDesembarque(id) - copia.getTabelaPessoas().getChegada(id);
+			}
+			if (custo <= custoMinimo) {
+				custoMinimo = custo;
+				esperado = i;
+			}
+			custoMaximo = Math.max(custoMaximo, custo);
+		}
+		assertTrue(custoMinimo < custoMaximo);
+		assertSame(sim.getListaElevadores().get(esperado), projecao.decisao(p, sim.getInstanteAtualTicks()));
+
+		Simulador copia = sim.bifurcar();
+		long instante = copia.getInstanteAtualTicks();
+		assertEquals(SimulacaoStatus.PROCESSANDO, copia.executarAte(Long.MAX_VALUE, System.nanoTime()));
+		assertEquals(instante, copia.getInstanteAtualTicks());
+	}
+
+	/**
+	 * Cada prédio do campus deve ter o resultado da simulação isolada, e o
+	 * campus deve somar as pessoas de todos os prédios
+	 */
+	public void testCampus() {
+		SimulacaoCampus campus = new SimulacaoCampus();
+		for (int i = 0; i < 3; i++) {
+			campus.adicionar(new Predio("Torre " + i, () -> (new PessoaLoader()).abrirCursorResource(),
+					ElevadorControleMenorTempoImediato::new));
+		}
+		campus.getPredios().get(2).setConfiguracao(sim -> sim.setQuantidadeElevadores(6));
+		List<ResultadoPredio> resultados = campus.executar();
+
+		Simulador sim = new Simulador(new ElevadorControleMenorTempoImediato());
+		sim.inicializar((new PessoaLoader()).getTabelaPessoasResource());
+		sim.executar();
+		EstatisticasSimulacao esperado = sim.getEstatisticas();
+		EstatisticasSimulacao torre = resultados.get(0).getEstatisticas();
+		assertEquals("Torre 0", resultados.get(0).getNome());
+		assertEquals(esperado.getTempoMedioTotalPercurso(), torre.getTempoMedioTotalPercurso());
+		assertEquals(esperado.getPercentilTotalPercurso(99), torre.getPercentilTotalPercurso(99));
+
+		EstatisticasSimulacao total = SimulacaoCampus.consolidar(resultados);
+		assertEquals(3 * esperado.getQuantidadeDesembarques(), total.getQuantidadeDesembarques());
+		assertEquals(3 * esperado.getHistogramaTotalPercurso().getQuantidade(),
+				total.getHistogramaTotalPercurso().getQuantidade());
+		assertEquals(esperado.getMaiorTempoTotalPercurso(), total.getMaiorTempoTotalPercurso());
+		assertTrue(resultados.get(2).getEstatisticas().getTempoMedioTotalPercurso().get()
+				.compareTo(torre.getTempoMedioTotalPercurso().get()) < 0);
+		assertTrue(campus.getTempoExecucao().compareTo(resultados.get(0).getTempoExecucao()) >= 0);
+		assertTrue(SimulacaoCampus.formatarResumo(resultados, campus.getTempoExecucao()).contains("Campus"));
+	}
+
+	/**
+	 * O relatório deve ser lido como escrito, e a comparação com o baseline
+	 * deve apontar somente as métricas que pioraram além da tolerância
+	 */
+	public void testBenchmarkCenarios() throws IOException {
+		BenchmarkCenarios.Cenario cenario = new BenchmarkCenarios.Cenario("teste",
+				() -> (new PessoaLoader()).getTabelaPessoasResource(), s -> {
+				}, Collections.singletonList(ElevadorControleMenorTempoImediato::new));
+		List<BenchmarkCenarios.Medicao> medicoes = BenchmarkCenarios.executar(cenario, 1);
+		assertEquals(1, medicoes.size());
+		BenchmarkCenarios.Medicao m = medicoes.get(0);
+		assertEquals(1000, m.getPessoas());
+		assertEquals(1201873l, m.getMediaTotalPercurso());
+
+		Path arquivo = Files.createTempFile("benchmark", ".csv");
+		try {
+			BenchmarkCenarios.escrever(medicoes, arquivo);
+			assertEquals(m.paraCsv(), BenchmarkCenarios.ler(arquivo).get(0).paraCsv());
+		} finally {
+			Files.delete(arquivo);
+		}
+
+		BenchmarkCenarios.Medicao lenta = new BenchmarkCenarios.Medicao(m.getCenario(), m.getControle(),
+				m.getPessoas(), m.getSimulado(), m.getExecucao() * 2, m.getSimuladoPorSegundo() / 2,
+				m.getPessoasPorSegundo() * 0.95, m.getPicoHeap(), m.getAlocacaoPorSegundo() * 2,
+				m.getAlocacaoPorPessoa(), m.getMediaTotalPercurso(), m.getP99TotalPercurso());
+		List<String> regressoes = BenchmarkCenarios.comparar(Collections.singletonList(lenta), medicoes, 10d);
+		assertEquals(1, regressoes.size());
+		assertTrue(regressoes.get(0).contains("simuladoPorSegundo"));
+		assertTrue(BenchmarkCenarios.comparar(medicoes, medicoes, 10d).isEmpty());
+	}
+
+	/**
+	 * A mesma semente deve gerar as mesmas chegadas, ordenadas, com os andares
+	 * pesados pela população, e o CSV e o binário escritos devem ser lidos
+	 * como gerados
+	 */
+	public void testGeradorChegadas() throws IOException {
+		LocalDateTime inicio = LocalDateTime.of(2016, 8, 31, 0, 0);
+		GeradorChegadas gerador = new GeradorChegadas(PerfilChegadas.constante(3600d), inicio.plusHours(8),
+				Duration.ofHours(1), 7l).setPopulacaoAndares(2, new int[] { 0, 1, 3 });
+		List<long[]> chegadas = new ArrayList<>();
+		int[] porAndar = new int[5];
+		while (gerador.avancar()) {
+			chegadas.add(new long[] { gerador.getChegada(), gerador.getAndar() });
+			porAndar[gerador.getAndar()] += 1;
+		}
+		// Poisson com média 3600 e desvio 60
+		assertTrue(Math.abs(chegadas.size() - 3600) < 300);
+		assertEquals(0, porAndar[2]);
+		assertTrue(Math.abs((double) porAndar[4] / porAndar[3] - 3d) < 0.5d);
+		for (int i = 1; i < chegadas.size(); i++) {
+			assertTrue(chegadas.get(i)[0] >= chegadas.get(i - 1)[0]);
+		}
+
+		gerador.reiniciar();
+		Path csv = Files.createTempFile("chegadas", ".csv");
+		Path bin = Files.createTempFile("chegadas", ".bin");
+		try {
+			assertEquals(chegadas.size(), GeradorChegadas.escreverCsv(gerador, csv));
+			gerador.reiniciar();
+			assertEquals(chegadas.size(), TrajetoBinario.escrever(gerador, bin, false));
+			for (Path arquivo : Arrays.asList(csv, bin)) {
+				try (CursorChegadas c = new PessoaLoader(arquivo.toString()).abrirCursor()) {
+					for (long[] chegada : chegadas) {
+						assertTrue(c.avancar());
+						assertEquals(chegada[0], c.getChegada());
+						assertEquals(chegada[1], c.getAndar());
+					}
+					assertFalse(c.avancar());
+				}
+			}
+		} finally {
+			Files.delete(csv);
+			Files.delete(bin);
+		}
+
+		// dia útil direto no simulador, sem arquivo, limitado a 5000 pessoas
+		GeradorChegadas dia = new GeradorChegadas(PerfilChegadas.diaUtil(4000), inicio, Duration.ofDays(1), 1l)
+				.setQuantidadeMaxima(5000);
+		Simulador sim = new Simulador(new ElevadorControleMenorTempoImediato());
+		sim.setQuantidadeElevadores(8);
+		sim.inicializar(dia);
+		sim.executar();
+		assertEquals(5000, sim.getEstatisticas().getQuantidadeDesembarques());
+
+		PerfilChegadas perfil = PerfilChegadas.diaUtil(1000);
+		assertTrue(perfil.taxa(EscalaTempo.paraMilis(inicio.plusHours(8).plusMinutes(30))) > 10
+				* perfil.taxa(EscalaTempo.paraMilis(inicio.plusHours(17))));
+	}
+
+	/**
+	 * As chegadas do elevadores.csv feitas como chamadas no modo serviço devem
+	 * ter o resultado da simulação sobre a tabela, e o serviço HTTP deve
+	 * responder chamadas simultâneas
+	 */
+	public void testServicoDespacho() throws Exception {
+		PessoaTable tabela = (new PessoaLoader()).getTabelaPessoasResource();
+		Simulador simTabela = new Simulador(new ElevadorControleMenorTempoImediato());
+		simTabela.inicializar(tabela);
+		simTabela.executar();
+
+		Simulador simServico = new Simulador(new ElevadorControleMenorTempoImediato());
+		simServico.inicializarServico(EscalaTempo.deMilis(tabela.getChegada(0)));
+		EscalaTempo escala = simServico.getEscalaTempo();
+		int[] ordem = tabela.ordenarPorChegada();
+		for (int i = 0; i < ordem.length; i++) {
+			simServico.chamar(tabela.getNome(ordem[i]), tabela.getAndar(ordem[i]));
+			// chamadas do mesmo instante decididas em um único lote
+			long instante = escala.milisParaTicks(tabela.getChegada(ordem[i]));
+			if (i + 1 == ordem.length || escala.milisParaTicks(tabela.getChegada(ordem[i + 1])) != instante) {
+				simServico.avancarPara(instante);
+			}
+		}
+		simServico.encerrarChamadas();
+		simServico.executar();
+		assertEquals(simTabela.getEstatisticas().toString(), simServico.getEstatisticas().toString());
+		assertEquals(simTabela.getInstanteFinal(), simServico.getInstanteFinal());
+
+		Simulador sim = new Simulador(new ElevadorControleMenorTempoImediato());
+		ServicoDespacho servico = new ServicoDespacho(sim);
+		servico.setAceleracao(60d);
+		servico.iniciar(0);
+		ExecutorService clientes = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> respostas = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				int andar = 2 + i % 24;
+				respostas.add(clientes.submit(() -> requisitar(servico.getPorta(), "/chamada?andar=" + andar)));
+			}
+			for (Future<String> r : respostas) {
+				assertTrue(r.get().matches("200 elevador=[1-4]"));
+			}
+			assertTrue(requisitar(servico.getPorta(), "/chamada?andar=1").startsWith("400"));
+			assertTrue(requisitar(servico.getPorta(), "/chamada?andar=x").startsWith("400"));
+			assertTrue(requisitar(servico.getPorta(), "/estatisticas").contains("Latência p99"));
+		} finally {
+			clientes.shutdown();
+			servico.encerrar();
+		}
+		// as duas chamadas recusadas também entram na latência
+		assertEquals(202, servico.getQuantidadeChamadas());
+		assertEquals(2, servico.getQuantidadeRecusadas());
+		assertTrue(servico.getPercentilLatencia(99).isPresent());
+		assertTrue(servico.chamar("pessoa", 10).isCompletedExceptionally());
+
+		// chamadas feitas durante o encerramento são decididas ou recusadas,
+		// nenhuma fica esperando o tempo máximo de resposta
+		ServicoDespacho concorrente = new ServicoDespacho(new Simulador(new ElevadorControleMenorTempoImediato()));
+		concorrente.iniciar(0);
+		List<CompletableFuture<Integer>> chamadas = Collections.synchronizedList(new ArrayList<>());
+		Thread cliente = new Thread(() -> {
+			for (int i = 0; i < 20000; i++) {
+				chamadas.add(concorrente.chamar("pessoa", 2 + i % 24));
+			}
+		});
+		cliente.start();
+		concorrente.encerrar();
+		cliente.join();
+		for (CompletableFuture<Integer> c : chamadas) {
+			assertTrue(c.isDone());
+		}
+	}
+
+	private static String requisitar(int porta, String caminho) throws IOException {
+		HttpURLConnection conexao = (HttpURLConnection) new URL("http://localhost:" + porta + caminho)
+				.openConnection();
+		try {
+			int status = conexao.getResponseCode();
+			InputStream in = status < 400 ? conexao.getInputStream() : conexao.getErrorStream();
+			StringBuilder sb = new StringBuilder();
+			try (BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+				String linha;
+				while ((linha = r.readLine()) != null) {
+					sb.append(linha);
+				}
+			}
+			return status + " " + sb;
+		} finally {
+			conexao.disconnect();
+		}
+	}
+
+	private long menorCusto(long[][] custos, int linha, boolean[] usadas) {
+		if (linha == custos.length) {
+			return 0;
+		}
+		long menor = Long.MAX_VALUE;
+		for (int j = 0; j < usadas.length; j++) {
+			if (!usadas[j]) {
+				usadas[j] = true;
+				menor = Math.min(menor, custos[linha][j] + menorCusto(custos, linha + 1, usadas));
+				usadas[j] = false;
+			}
+		}
+		return menor;
+	}
+
+	// partição direta da fila em blocos de lotação máxima
+	private long estimativaFila(Elevador e, int andar, int quantidade) {
+		List<Integer> paradas = e.getParadasFilaTerreo();
+		paradas.addAll(Collections.nCopies(quantidade, andar));
+		long tempo = 0l;
+		for (int inicio = 0; inicio < paradas.size(); inicio += e.getLotacaoMaxima()) {
+			List<Integer> bloco = paradas.subList(inicio, Math.min(paradas.size(), inicio + e.getLotacaoMaxima()));
+			int maior = Collections.max(bloco);
+			tempo += 2 * e.getPeriodoEntreAndares() * (maior - e.getAndarMinimo())
+					+ e.getPeriodoParada() * bloco.stream().distinct().count();
+		}
+		return tempo;
+	}
+
+	private void compararModos(ElevadorControle ctrlPassoFixo, ElevadorControle ctrlEventos) {
+		List<Pessoa> listaPassoFixo = simular(ctrlPassoFixo, ModoSimulacao.PASSO_FIXO);
+		List<Pessoa> listaEventos = simular(ctrlEventos, ModoSimulacao.EVENTOS_DISCRETOS);
+
+		assertEquals(listaPassoFixo.size(), listaEventos.size());
+		for (int i = 0; i < listaPassoFixo.size(); i++) {
+			Pessoa esperado = listaPassoFixo.get(i);
+			Pessoa obtido = listaEventos.get(i);
+			assertNotNull(obtido.getInstanteDesembarque());
+			assertEquals(esperado.getInstanteEmbarque(), obtido.getInstanteEmbarque());
+			assertEquals(esperado.getInstanteDesembarque(), obtido.getInstanteDesembarque());
+		}
+	}
+
+	private List<Pessoa> simular(ElevadorControle ctrl, ModoSimulacao modo) {
+		List<Pessoa> lista = (new PessoaLoader()).getListaPessoasResource();
+		Simulador sim = new Simulador(ctrl);
+		sim.setModoSimulacao(modo);
+		sim.inicializar(lista);
+		sim.executar();
+		return sim.getListaPessoas();
+	}
+}